@@ -0,0 +1,192 @@
+package com.nhahang.restaurant.benchmark;
+
+import com.nhahang.restaurant.model.BookingStatus;
+import com.nhahang.restaurant.model.MenuItemStatus;
+import com.nhahang.restaurant.model.OrderStatus;
+import com.nhahang.restaurant.model.OrderType;
+import com.nhahang.restaurant.model.PaymentMethod;
+import com.nhahang.restaurant.model.PaymentStatus;
+import com.nhahang.restaurant.model.TableStatus;
+import com.nhahang.restaurant.model.entity.Booking;
+import com.nhahang.restaurant.model.entity.MenuItem;
+import com.nhahang.restaurant.model.entity.Order;
+import com.nhahang.restaurant.model.entity.OrderItem;
+import com.nhahang.restaurant.model.entity.Payment;
+import com.nhahang.restaurant.model.entity.RestaurantTable;
+import com.nhahang.restaurant.model.entity.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sinh dữ liệu giả lập dùng chung cho các benchmark
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Sinh {@code count} khóa trong [1, n] theo phân phối Zipf với số mũ {@code s}
+     * (vài món bán rất chạy, phần lớn món bán ít)
+     */
+    static int[] zipfKeys(Random random, int count, int n, double s) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, s);
+            cdf[i] = sum;
+        }
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            double u = random.nextDouble() * sum;
+            int lo = 0;
+            int hi = n - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < u) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            keys[i] = lo + 1;
+        }
+        return keys;
+    }
+
+    /** Sinh {@code count} số điện thoại di động 10 số, không trùng (đầu số 03x/07x/08x/09x) */
+    static String[] phoneNumbers(Random random, int count) {
+        String[] prefixes = {"032", "033", "034", "035", "070", "077", "086", "088", "090", "091", "093", "096", "097", "098"};
+        java.util.Set<String> seen = new java.util.HashSet<>(count * 2);
+        String[] phones = new String[count];
+        int i = 0;
+        while (i < count) {
+            String phone = prefixes[random.nextInt(prefixes.length)] + String.format("%07d", random.nextInt(10_000_000));
+            if (seen.add(phone)) {
+                phones[i++] = phone;
+            }
+        }
+        return phones;
+    }
+
+    /** Thực đơn {@code count} món, giá 15.000 - 350.000 làm tròn nghìn, ~10% tạm hết */
+    static MenuItem[] menuItems(Random random, int count) {
+        MenuItem[] items = new MenuItem[count];
+        for (int i = 0; i < count; i++) {
+            MenuItem item = new MenuItem();
+            item.setId(i + 1);
+            item.setName("Món số " + (i + 1));
+            item.setPrice(BigDecimal.valueOf((15 + random.nextInt(336)) * 1000L));
+            item.setStatus(random.nextInt(10) == 0 ? MenuItemStatus.Unavailable : MenuItemStatus.Available);
+            items[i] = item;
+        }
+        return items;
+    }
+
+    static User[] users(Random random, int count) {
+        String[] phones = phoneNumbers(random, count);
+        User[] users = new User[count];
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId(i + 1);
+            user.setUid("uid-" + (i + 1));
+            user.setFullName("Khách hàng " + (i + 1));
+            user.setPhoneNumber(phones[i]);
+            user.setEmail("khach" + (i + 1) + "@example.com");
+            users[i] = user;
+        }
+        return users;
+    }
+
+    static RestaurantTable[] tables(int count) {
+        RestaurantTable[] tables = new RestaurantTable[count];
+        for (int i = 0; i < count; i++) {
+            RestaurantTable table = new RestaurantTable();
+            table.setId(i + 1);
+            table.setTableNumber(i + 1);
+            table.setCapacity(2 + (i % 4) * 2);
+            table.setStatus(TableStatus.Available);
+            tables[i] = table;
+        }
+        return tables;
+    }
+
+    /**
+     * Sinh {@code count} đơn hàng đầy đủ quan hệ như khi Hibernate nạp lên: 60% ăn tại chỗ,
+     * 2-8 dòng món (món theo Zipf), phần lớn đã có thanh toán
+     */
+    static List<Order> orders(Random random, int count, MenuItem[] menu, User[] users, RestaurantTable[] tables) {
+        OrderStatus[] statuses = OrderStatus.values();
+        int[] menuKeys = zipfKeys(random, count * 8, menu.length, 1.1);
+        int cursor = 0;
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setId(i + 1);
+            order.setUser(users[random.nextInt(users.length)]);
+            boolean dineIn = random.nextInt(10) < 6;
+            order.setOrderType(dineIn ? OrderType.Dinein : OrderType.Takeaway);
+            order.setTable(dineIn ? tables[random.nextInt(tables.length)] : null);
+            order.setStatus(statuses[random.nextInt(statuses.length)]);
+            order.setCreatedAt(start.plusMinutes(i * 7L));
+
+            int lines = 2 + random.nextInt(7);
+            List<OrderItem> items = new ArrayList<>(lines);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < lines; j++) {
+                MenuItem menuItem = menu[menuKeys[cursor++] - 1];
+                OrderItem item = new OrderItem();
+                item.setId(i * 8 + j + 1);
+                item.setOrder(order);
+                item.setMenuItem(menuItem);
+                item.setQuantity(1 + random.nextInt(4));
+                item.setPriceAtOrder(menuItem.getPrice());
+                items.add(item);
+                total = total.add(menuItem.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            }
+            order.setOrderItems(items);
+            order.setTotalAmount(total);
+
+            if (random.nextInt(10) < 8) {
+                Payment payment = new Payment();
+                payment.setId(i + 1);
+                payment.setOrder(order);
+                payment.setAmount(total);
+                payment.setPaymentMethod(random.nextBoolean() ? PaymentMethod.Cash : PaymentMethod.PayOS);
+                payment.setStatus(random.nextInt(10) < 9 ? PaymentStatus.Successful : PaymentStatus.Pending);
+                payment.setPaymentTime(order.getCreatedAt().plusMinutes(40));
+                order.setPayment(payment);
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /** Dòng [orderId, bookingTime] của booking khớp với từng đơn tại chỗ (trả về từ findLatestBookingTimesForOrders) */
+    static List<Object[]> bookingTimeRows(List<Order> orders) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Order order : orders) {
+            if (order.getOrderType() == OrderType.Dinein && order.getTable() != null && order.getUser() != null) {
+                rows.add(new Object[]{order.getId(), bookingFor(order).getBookingTime()});
+            }
+        }
+        return rows;
+    }
+
+    /** Booking khớp với một đơn tại chỗ */
+    static Booking bookingFor(Order order) {
+        Booking booking = new Booking();
+        booking.setId(order.getId());
+        booking.setUser(order.getUser());
+        booking.setTable(order.getTable());
+        booking.setBookingTime(order.getCreatedAt().minusMinutes(15));
+        booking.setNumGuests(2);
+        booking.setStatus(BookingStatus.Completed);
+        return booking;
+    }
+}
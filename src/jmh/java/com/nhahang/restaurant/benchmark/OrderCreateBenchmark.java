@@ -0,0 +1,85 @@
+package com.nhahang.restaurant.benchmark;
+
+import com.nhahang.restaurant.dto.OrderCreateRequest;
+import com.nhahang.restaurant.dto.OrderDTO;
+import com.nhahang.restaurant.dto.OrderItemRequest;
+import com.nhahang.restaurant.model.MenuItemStatus;
+import com.nhahang.restaurant.model.entity.MenuItem;
+import com.nhahang.restaurant.model.entity.User;
+import com.nhahang.restaurant.repository.MenuItemRepository;
+import com.nhahang.restaurant.repository.OrderRepository;
+import com.nhahang.restaurant.repository.UserRepository;
+import com.nhahang.restaurant.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo phần CPU của OrderService.createOrder với repository giả trong bộ nhớ (không tính thời gian DB):
+ * gộp các dòng trùng món, kiểm tra món và tính tổng tiền cho đơn mang đi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCreateBenchmark {
+
+    private static final int REQUESTS = 1 << 8;
+
+    // Số dòng món trong một yêu cầu tạo đơn (có dòng trùng món để kiểm tra phần gộp)
+    @Param({"5", "40"})
+    public int requestLines;
+
+    private OrderService orderService;
+    private OrderCreateRequest[] createRequests;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        MenuItem[] menu = Fixtures.menuItems(random, 200);
+        User[] users = Fixtures.users(random, 500);
+
+        OrderRepository orderRepository = RepositoryStubs.stub(OrderRepository.class, Map.of(
+                "save", args -> args[0]));
+        UserRepository userRepository = RepositoryStubs.stub(UserRepository.class, Map.of(
+                "findById", args -> Optional.of(users[((Integer) args[0] - 1) % users.length])));
+        MenuItemRepository menuItemRepository = RepositoryStubs.stub(MenuItemRepository.class, Map.of(
+                "findById", args -> Optional.of(menu[(Integer) args[0] - 1])));
+
+        orderService = new OrderService(orderRepository, userRepository, null, menuItemRepository,
+                null, event -> { }, new SimpleMeterRegistry());
+
+        // Đơn mang đi, món lấy theo Zipf nên hay lặp lại; chỉ chọn món đang bán
+        int[] keys = Fixtures.zipfKeys(random, REQUESTS * requestLines * 2, menu.length, 1.1);
+        int k = 0;
+        createRequests = new OrderCreateRequest[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            List<OrderItemRequest> items = new ArrayList<>(requestLines);
+            while (items.size() < requestLines) {
+                int menuItemId = keys[k++ % keys.length];
+                if (menu[menuItemId - 1].getStatus() == MenuItemStatus.Available) {
+                    items.add(new OrderItemRequest(menuItemId, 1 + random.nextInt(3)));
+                }
+            }
+            OrderCreateRequest request = new OrderCreateRequest();
+            request.setUserId(1 + random.nextInt(users.length));
+            request.setOrderType("Takeaway");
+            request.setOrderItems(items);
+            createRequests[i] = request;
+        }
+    }
+
+    @Benchmark
+    public OrderDTO createOrderMergeAndTotal() {
+        return orderService.createOrder(createRequests[cursor++ & (REQUESTS - 1)]);
+    }
+}
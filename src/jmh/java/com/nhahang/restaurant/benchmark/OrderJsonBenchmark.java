@@ -0,0 +1,59 @@
+package com.nhahang.restaurant.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nhahang.restaurant.dto.OrderDTO;
+import com.nhahang.restaurant.model.entity.Order;
+import com.nhahang.restaurant.repository.BookingRepository;
+import com.nhahang.restaurant.repository.OrderRepository;
+import com.nhahang.restaurant.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo Jackson serialize danh sách OrderDTO như GET /api/orders trả về,
+ * với ObjectMapper cấu hình giống Spring Boot (JavaTimeModule, ngày dạng ISO)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJsonBenchmark {
+
+    @Param({"100", "1000"})
+    public int orders;
+
+    private ObjectMapper objectMapper;
+    private List<OrderDTO> dtos;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        List<Order> orderList = Fixtures.orders(random, orders, Fixtures.menuItems(random, 200),
+                Fixtures.users(random, 500), Fixtures.tables(30));
+
+        // Dựng DTO qua đúng đường map của OrderService
+        OrderRepository orderRepository = RepositoryStubs.stub(OrderRepository.class, Map.of(
+                "findAllWithDetails", args -> orderList));
+        BookingRepository bookingRepository = RepositoryStubs.stub(BookingRepository.class, Map.of(
+                "findLatestBookingTimesForOrders", args -> Fixtures.bookingTimeRows(orderList)));
+        OrderService orderService = new OrderService(orderRepository, null, null, null,
+                bookingRepository, event -> { }, new SimpleMeterRegistry());
+        dtos = orderService.getAllOrders();
+
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        System.out.println("\n" + orders + " OrderDTO = " + objectMapper.writeValueAsBytes(dtos).length / 1024 + " KiB JSON");
+    }
+
+    @Benchmark
+    public byte[] serializeOrderList() throws Exception {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,66 @@
+package com.nhahang.restaurant.benchmark;
+
+import com.nhahang.restaurant.dto.OrderDTO;
+import com.nhahang.restaurant.model.entity.MenuItem;
+import com.nhahang.restaurant.model.entity.Order;
+import com.nhahang.restaurant.model.entity.User;
+import com.nhahang.restaurant.repository.BookingRepository;
+import com.nhahang.restaurant.repository.OrderRepository;
+import com.nhahang.restaurant.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo phần CPU của OrderService với repository giả trong bộ nhớ (không tính thời gian DB):
+ * map entity -> DTO (convertToDTO/convertOrderItemToDTO) qua getAllOrders và getOrderById
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    // Số đơn trả về cho getAllOrders
+    @Param({"1000"})
+    public int orders;
+
+    private OrderService orderService;
+    private List<Order> orderList;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        MenuItem[] menu = Fixtures.menuItems(random, 200);
+        User[] users = Fixtures.users(random, 500);
+        orderList = Fixtures.orders(random, orders, menu, users, Fixtures.tables(30));
+
+        OrderRepository orderRepository = RepositoryStubs.stub(OrderRepository.class, Map.of(
+                "findAllWithDetails", args -> orderList,
+                "findWithDetailsById", args -> Optional.of(orderList.get((Integer) args[0] - 1))));
+        List<Object[]> bookingTimes = Fixtures.bookingTimeRows(orderList);
+        BookingRepository bookingRepository = RepositoryStubs.stub(BookingRepository.class, Map.of(
+                "findLatestBookingTimesForOrders", args -> bookingTimes));
+
+        orderService = new OrderService(orderRepository, null, null, null,
+                bookingRepository, event -> { }, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public List<OrderDTO> getAllOrders() {
+        return orderService.getAllOrders();
+    }
+
+    @Benchmark
+    public OrderDTO getOrderById() {
+        return orderService.getOrderById(1 + (cursor++ % orders));
+    }
+}
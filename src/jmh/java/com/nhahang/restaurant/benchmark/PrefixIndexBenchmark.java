@@ -0,0 +1,60 @@
+package com.nhahang.restaurant.benchmark;
+
+import com.nhahang.restaurant.service.PrefixIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo tra cứu gợi ý theo tiền tố số điện thoại (UserTypeaheadService) với 500k khách
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefixIndexBenchmark {
+
+    private static final int QUERIES = 1 << 12;
+
+    @Param({"500000"})
+    public int users;
+
+    private PrefixIndex index;
+    private String[] queries;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        String[] phones = Fixtures.phoneNumbers(random, users);
+        Map<String, Integer> entries = new HashMap<>(users * 2);
+        for (int i = 0; i < phones.length; i++) {
+            entries.put(phones[i], i + 1);
+        }
+        index = new PrefixIndex();
+        index.load(entries);
+        // Vài trăm khách mới chưa gộp vào mảng chính
+        for (int i = 0; i < 500; i++) {
+            index.put("09" + String.format("%08d", random.nextInt(100_000_000)), users + i + 1);
+        }
+
+        // Tiền tố 4-7 số như khi lễ tân đang gõ
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String phone = phones[random.nextInt(phones.length)];
+            queries[i] = phone.substring(0, 4 + random.nextInt(4));
+        }
+        System.out.println("\nPrefixIndex: " + index.size() + " khóa, ~" + index.estimatedBytes() / 1024 + " KiB");
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Match> searchTop10() {
+        return index.search(queries[cursor++ & (QUERIES - 1)], 10);
+    }
+}
@@ -0,0 +1,36 @@
+package com.nhahang.restaurant.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repository giả trong bộ nhớ để chạy logic service mà không cần DB:
+ * chỉ các method được khai báo mới trả lời, method khác ném lỗi để benchmark không âm thầm đo sai
+ */
+final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return "stub " + type.getSimpleName();
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                default:
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer == null) {
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                                + " không được stub trong benchmark");
+                    }
+                    return answer.apply(args);
+            }
+        });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,76 @@
+package com.nhahang.restaurant.benchmark;
+
+import com.nhahang.restaurant.dto.RevenueReportDTO;
+import com.nhahang.restaurant.model.PaymentMethod;
+import com.nhahang.restaurant.model.PaymentStatus;
+import com.nhahang.restaurant.model.entity.Order;
+import com.nhahang.restaurant.repository.PaymentRepository;
+import com.nhahang.restaurant.service.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo PaymentService.getRevenueReport: tổng hợp theo phương thức thanh toán.
+ * Repository giả tính GROUP BY trên dữ liệu sinh sẵn như DB sẽ trả về;
+ * uncached dùng khoảng thời gian khác nhau mỗi lần để luôn trượt cache 30s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevenueReportBenchmark {
+
+    private PaymentService paymentService;
+    private List<Object[]> groupedRows;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Order> orders = Fixtures.orders(random, 20_000, Fixtures.menuItems(random, 200),
+                Fixtures.users(random, 2_000), Fixtures.tables(30));
+
+        Map<PaymentMethod, long[]> counts = new EnumMap<>(PaymentMethod.class);
+        Map<PaymentMethod, BigDecimal> sums = new EnumMap<>(PaymentMethod.class);
+        for (Order order : orders) {
+            if (order.getPayment() != null && order.getPayment().getStatus() == PaymentStatus.Successful) {
+                PaymentMethod method = order.getPayment().getPaymentMethod();
+                counts.computeIfAbsent(method, m -> new long[1])[0]++;
+                sums.merge(method, order.getPayment().getAmount(), BigDecimal::add);
+            }
+        }
+        groupedRows = new ArrayList<>();
+        counts.forEach((method, count) -> groupedRows.add(new Object[]{method, count[0], sums.get(method)}));
+
+        PaymentRepository paymentRepository = RepositoryStubs.stub(PaymentRepository.class, Map.of(
+                "sumByPaymentMethod", args -> groupedRows));
+        paymentService = new PaymentService(paymentRepository, null, null, null, null, null,
+                event -> { }, new SimpleMeterRegistry(), null);
+
+        from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        to = from.plusMonths(3);
+    }
+
+    @Benchmark
+    public RevenueReportDTO uncached() {
+        return paymentService.getRevenueReport(from.plusNanos(cursor++), to);
+    }
+
+    @Benchmark
+    public RevenueReportDTO cached() {
+        return paymentService.getRevenueReport(from, to);
+    }
+}
@@ -0,0 +1,59 @@
+package com.nhahang.restaurant.benchmark;
+
+import com.nhahang.restaurant.service.SpaceSavingSketch;
+import com.nhahang.restaurant.service.TimeBucketedTopK;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo đường cập nhật sketch khi một món được bán (luồng OrderCompletedEvent)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrendingSketchBenchmark {
+
+    private static final int EVENTS = 1 << 16;
+
+    @Param({"300", "5000"})
+    public int menuSize;
+
+    private int[] keys;
+    private SpaceSavingSketch sketch;
+    private TimeBucketedTopK window;
+    private long now;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        keys = Fixtures.zipfKeys(new Random(42), EVENTS, menuSize, 1.1);
+        sketch = new SpaceSavingSketch(64);
+        // Cửa sổ 2 giờ, bucket 5 phút như TrendingService.Window.H2
+        window = new TimeBucketedTopK(TimeUnit.HOURS.toMillis(2), TimeUnit.MINUTES.toMillis(5), 64);
+        now = System.currentTimeMillis();
+        for (int key : keys) {
+            window.record(key, 1, now, now);
+        }
+    }
+
+    @Benchmark
+    public void spaceSavingOffer() {
+        sketch.offer(keys[cursor++ & (EVENTS - 1)], 1);
+    }
+
+    @Benchmark
+    public void windowRecord() {
+        window.record(keys[cursor++ & (EVENTS - 1)], 1, now, now);
+    }
+
+    @Benchmark
+    public List<long[]> windowTop10() {
+        return window.top(10, now);
+    }
+}
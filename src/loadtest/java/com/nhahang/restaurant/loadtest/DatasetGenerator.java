@@ -0,0 +1,326 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.nhahang.restaurant.model.RoleName;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * Sinh dữ liệu giả lập theo schema hiện có, xác định hoàn toàn bởi seed: user, bàn, thực đơn,
+ * đơn hàng (món theo Zipf, giờ cao điểm trưa/tối, cuối tuần đông hơn), booking và thanh toán
+ * theo phương thức. Dòng được đẩy dần ra {@link RowSink} nên bộ nhớ không phụ thuộc số đơn.
+ * Các bảng tổng hợp (doanh thu theo giờ, thống kê bán chạy) do ứng dụng dựng lại khi khởi động.
+ */
+class DatasetGenerator {
+
+    static final String ADMIN_EMAIL = "admin@loadtest.local";
+    static final String STAFF_EMAIL = "staff@loadtest.local";
+
+    static final List<String> ALL_PERMISSIONS = List.of(
+            "READ_MENU", "CREATE_MENU", "UPDATE_MENU", "DELETE_MENU",
+            "READ_CATEGORY", "CREATE_CATEGORY", "UPDATE_CATEGORY", "DELETE_CATEGORY",
+            "READ_TABLE", "CREATE_TABLE", "UPDATE_TABLE", "DELETE_TABLE",
+            "READ_BOOKING", "CREATE_BOOKING", "UPDATE_BOOKING", "DELETE_BOOKING",
+            "READ_ORDER", "CREATE_ORDER", "UPDATE_ORDER", "DELETE_ORDER",
+            "READ_PAYMENT", "CREATE_PAYMENT", "UPDATE_PAYMENT", "DELETE_PAYMENT",
+            "READ_USER", "UPDATE_USER", "DELETE_USER");
+    private static final List<String> CUSTOMER_PERMISSIONS = List.of(
+            "READ_MENU", "READ_CATEGORY", "READ_TABLE", "READ_BOOKING", "CREATE_BOOKING",
+            "READ_ORDER", "CREATE_ORDER", "CREATE_PAYMENT");
+    private static final String[] CATEGORIES = {"Khai vị", "Món chính", "Lẩu", "Nướng", "Hải sản", "Cơm",
+            "Mì - Phở", "Tráng miệng", "Đồ uống", "Món chay"};
+    // Trọng số khách theo giờ mở cửa 10h-22h: đỉnh trưa 12h, đỉnh tối 19h
+    private static final int[] HOUR_WEIGHTS = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            2, 8, 12, 8, 3, 2, 2, 5, 11, 13, 9, 4, 2, 0};
+    private static final int[] IN_PROGRESS = {0, 1, 2};
+    private static final String[] ORDER_STATUSES = {"Pending", "Confirmed", "Preparing", "Completed", "Cancelled"};
+
+    /** Tham số sinh dữ liệu */
+    record Spec(long seed, int customers, int menuItems, int tables, long orders, int days,
+                double zipfExponent, double cashShare, double dineInShare, int futureBookingsPerTable) {
+
+        static Spec defaults(long orders) {
+            return new Spec(20240601L, Math.max(1000, (int) Math.min(2_000_000, orders / 20)), 200, 60, orders,
+                    365, 1.1, 0.55, 0.6, 20);
+        }
+    }
+
+    /** Quy mô dữ liệu đã sinh, driver đo tải dùng để chọn id hợp lệ */
+    record Summary(int customers, int menuItems, int tables, long orders, long orderItems, long payments,
+                   long bookings, List<Integer> availableMenuItemIds) {
+
+        static String customerEmail(int index) {
+            return "khach" + index + "@loadtest.local";
+        }
+
+        /** Id user của khách thứ index (1-based); id 1, 2 là admin và staff */
+        static int customerUserId(int index) {
+            return index + 2;
+        }
+
+        static int tableCapacity(int tableId) {
+            return 2 + (tableId % 5) * 2;
+        }
+    }
+
+    private final Spec spec;
+    private final int flushEveryOrders;
+
+    DatasetGenerator(Spec spec, int flushEveryOrders) {
+        this.spec = spec;
+        this.flushEveryOrders = flushEveryOrders;
+    }
+
+    /**
+     * Logic: Ghi bảng tham chiếu trước, rồi sinh đơn theo thứ tự thời gian kèm order_items,
+     * payments, bookings; cuối cùng là booking tương lai. Gọi progress sau mỗi lần flush.
+     */
+    Summary generate(RowSink sink, LongConsumer progress) {
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        declareTables(sink);
+        LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+
+        writeRolesAndPermissions(sink);
+        writeUsers(sink, random, now);
+        long[] prices = new long[spec.menuItems() + 1];
+        List<Integer> available = writeMenu(sink, random, prices);
+        for (int i = 1; i <= spec.tables(); i++) {
+            sink.row("tables", i, i, Summary.tableCapacity(i), "Available");
+        }
+        sink.flush();
+
+        ZipfSampler menuSampler = new ZipfSampler(spec.menuItems(), spec.zipfExponent());
+        VisitTimeSampler visitTimes = new VisitTimeSampler(now.toLocalDate().minusDays(spec.days()), spec.days());
+        long itemId = 0;
+        long paymentId = 0;
+        long bookingId = 0;
+        for (long orderId = 1; orderId <= spec.orders(); orderId++) {
+            LocalDateTime createdAt = visitTimes.sample(random);
+            if (createdAt.isAfter(now)) {
+                createdAt = now.minusMinutes(random.nextInt(1, 180));
+            }
+            int customer = 1 + random.nextInt(spec.customers());
+            int userId = Summary.customerUserId(customer);
+            boolean dineIn = random.nextDouble() < spec.dineInShare();
+            Integer tableId = dineIn ? 1 + random.nextInt(spec.tables()) : null;
+            String status = orderStatus(random, createdAt, now);
+
+            long total = 0;
+            int lines = 1 + random.nextInt(dineIn ? 6 : 3);
+            for (int j = 0; j < lines; j++) {
+                int menuItemId = menuSampler.sample(random);
+                int quantity = 1 + random.nextInt(3);
+                sink.row("order_items", ++itemId, orderId, menuItemId, quantity, prices[menuItemId]);
+                total += prices[menuItemId] * quantity;
+            }
+            sink.row("orders", orderId, userId, tableId, total, status, dineIn ? "Dinein" : "Takeaway", createdAt);
+
+            Object[] payment = payment(random, orderId, total, status, createdAt);
+            if (payment != null) {
+                payment[0] = ++paymentId;
+                sink.row("payments", payment);
+            }
+            if (dineIn) {
+                int guests = 1 + random.nextInt(Summary.tableCapacity(tableId));
+                sink.row("bookings", ++bookingId, userId, tableId,
+                        createdAt.minusMinutes(random.nextInt(5, 45)), guests,
+                        "Cancelled".equals(status) ? "Cancelled" : "Completed");
+            }
+
+            if (orderId % flushEveryOrders == 0) {
+                sink.flush();
+                progress.accept(orderId);
+            }
+        }
+
+        // Booking sắp tới trong 14 ngày, giờ theo cùng phân phối cao điểm
+        VisitTimeSampler upcoming = new VisitTimeSampler(now.toLocalDate().plusDays(1), 14);
+        for (int i = 0; i < spec.tables() * spec.futureBookingsPerTable(); i++) {
+            int tableId = 1 + random.nextInt(spec.tables());
+            sink.row("bookings", ++bookingId, Summary.customerUserId(1 + random.nextInt(spec.customers())),
+                    tableId, upcoming.sample(random), 1 + random.nextInt(Summary.tableCapacity(tableId)),
+                    random.nextInt(10) < 7 ? "Confirmed" : "Pending");
+        }
+        sink.flush();
+        if (spec.orders() % flushEveryOrders != 0) {
+            progress.accept(spec.orders());
+        }
+
+        return new Summary(spec.customers(), spec.menuItems(), spec.tables(), spec.orders(), itemId, paymentId,
+                bookingId, List.copyOf(available));
+    }
+
+    private static void declareTables(RowSink sink) {
+        sink.table("permissions", "id", "name");
+        sink.table("roles", "id", "role_name");
+        sink.table("role_permissions", "role_id", "permission_id");
+        sink.table("users", "id", "uid", "full_name", "email", "phone_number", "role_id", "created_at",
+                "updated_at");
+        sink.table("categories", "id", "name");
+        sink.table("menu_items", "id", "name", "description", "price", "category_id", "status");
+        sink.table("tables", "id", "table_number", "capacity", "status");
+        sink.table("orders", "id", "user_id", "table_id", "total_amount", "status", "order_type", "created_at");
+        sink.table("order_items", "id", "order_id", "menu_item_id", "quantity", "price_at_order");
+        sink.table("payments", "id", "order_id", "amount", "payment_method", "status", "transaction_id",
+                "payment_time");
+        sink.table("bookings", "id", "user_id", "table_id", "booking_time", "num_guests", "status");
+    }
+
+    private static void writeRolesAndPermissions(RowSink sink) {
+        for (int i = 0; i < ALL_PERMISSIONS.size(); i++) {
+            sink.row("permissions", i + 1, ALL_PERMISSIONS.get(i));
+        }
+        for (RoleName roleName : RoleName.values()) {
+            int roleId = roleName.ordinal() + 1;
+            sink.row("roles", roleId, roleName.name());
+            for (String permission : roleName == RoleName.user ? CUSTOMER_PERMISSIONS : ALL_PERMISSIONS) {
+                sink.row("role_permissions", roleId, ALL_PERMISSIONS.indexOf(permission) + 1);
+            }
+        }
+    }
+
+    private void writeUsers(RowSink sink, SplittableRandom random, LocalDateTime now) {
+        LocalDateTime opened = now.minusDays(spec.days());
+        sink.row("users", 1, "loadtest-admin", "Quản trị đo tải", ADMIN_EMAIL, "0900000001",
+                RoleName.admin.ordinal() + 1, opened, opened);
+        sink.row("users", 2, "loadtest-staff", "Nhân viên đo tải", STAFF_EMAIL, "0900000002",
+                RoleName.staff.ordinal() + 1, opened, opened);
+        long spanMinutes = (long) spec.days() * 24 * 60;
+        for (int i = 1; i <= spec.customers(); i++) {
+            LocalDateTime createdAt = opened.plusMinutes(random.nextLong(spanMinutes));
+            sink.row("users", Summary.customerUserId(i), "loadtest-" + i, "Khách hàng " + i,
+                    Summary.customerEmail(i), "09" + (10_000_000 + i), RoleName.user.ordinal() + 1,
+                    createdAt, createdAt);
+            if (i % flushEveryOrders == 0) {
+                sink.flush();
+            }
+        }
+    }
+
+    private List<Integer> writeMenu(RowSink sink, SplittableRandom random, long[] prices) {
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            sink.row("categories", i + 1, CATEGORIES[i]);
+        }
+        List<Integer> available = new ArrayList<>();
+        for (int i = 1; i <= spec.menuItems(); i++) {
+            prices[i] = (15 + random.nextInt(336)) * 1000L;
+            boolean isAvailable = random.nextInt(20) != 0;
+            if (isAvailable) {
+                available.add(i);
+            }
+            sink.row("menu_items", i, "Món số " + i, "Món ăn đo tải số " + i, prices[i],
+                    1 + random.nextInt(CATEGORIES.length), isAvailable ? "Available" : "Unavailable");
+        }
+        return available;
+    }
+
+    /** Đơn cũ đã kết thúc (Completed/Cancelled); đơn trong 3 giờ gần nhất có thể còn đang xử lý */
+    private static String orderStatus(SplittableRandom random, LocalDateTime createdAt, LocalDateTime now) {
+        if (createdAt.isAfter(now.minusHours(3)) && random.nextInt(10) < 6) {
+            return ORDER_STATUSES[IN_PROGRESS[random.nextInt(IN_PROGRESS.length)]];
+        }
+        return random.nextInt(100) < 92 ? "Completed" : "Cancelled";
+    }
+
+    /**
+     * Logic: Đơn hoàn thành có thanh toán Successful (tiền mặt theo cashShare, còn lại PayOS);
+     * một phần đơn hủy có giao dịch PayOS Failed; đơn đang xử lý có thể có link PayOS Pending.
+     * Phần tử đầu (id) do phía gọi gán.
+     */
+    private Object[] payment(SplittableRandom random, long orderId, long total, String status,
+                             LocalDateTime createdAt) {
+        return switch (status) {
+            case "Completed" -> {
+                boolean cash = random.nextDouble() < spec.cashShare();
+                yield new Object[]{null, orderId, total, cash ? "Cash" : "PayOS", "Successful",
+                        cash ? null : "FT" + (1_000_000_000L + orderId),
+                        createdAt.plusMinutes(random.nextInt(20, 90))};
+            }
+            case "Cancelled" -> random.nextInt(10) < 3
+                    ? new Object[]{null, orderId, total, "PayOS", "Failed", null,
+                    createdAt.plusMinutes(random.nextInt(5, 30))}
+                    : null;
+            default -> random.nextBoolean()
+                    ? new Object[]{null, orderId, total, "PayOS", "Pending", null, createdAt.plusMinutes(2)}
+                    : null;
+        };
+    }
+
+    /** Thời điểm khách đến: ngày cuối tuần đông hơn 30%, giờ theo HOUR_WEIGHTS, phút đều */
+    static final class VisitTimeSampler {
+        private final LocalDate firstDay;
+        private final int days;
+        private final int[] cumulativeHours = new int[24];
+
+        VisitTimeSampler(LocalDate firstDay, int days) {
+            this.firstDay = firstDay;
+            this.days = days;
+            int sum = 0;
+            for (int h = 0; h < 24; h++) {
+                sum += HOUR_WEIGHTS[h];
+                cumulativeHours[h] = sum;
+            }
+        }
+
+        LocalDateTime sample(SplittableRandom random) {
+            LocalDate day;
+            do {
+                day = firstDay.plusDays(random.nextInt(days));
+            } while (!isWeekend(day) && random.nextInt(13) >= 10);
+            int ticket = random.nextInt(cumulativeHours[23]);
+            int hour = 0;
+            while (cumulativeHours[hour] <= ticket) {
+                hour++;
+            }
+            return day.atTime(hour, random.nextInt(60));
+        }
+
+        private static boolean isWeekend(LocalDate day) {
+            DayOfWeek dayOfWeek = day.getDayOfWeek();
+            return dayOfWeek == DayOfWeek.FRIDAY || dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
+        }
+    }
+
+    /** Lấy mẫu số nguyên trong [1, n] theo phân phối Zipf (vài món bán rất chạy) */
+    static final class ZipfSampler {
+        private final double[] cdf;
+
+        ZipfSampler(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cdf[i] = sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            return sample(random.nextDouble());
+        }
+
+        int sample(Random random) {
+            return sample(random.nextDouble());
+        }
+
+        private int sample(double uniform) {
+            double u = uniform * cdf[cdf.length - 1];
+            int lo = 0;
+            int hi = cdf.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < u) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo + 1;
+        }
+    }
+}
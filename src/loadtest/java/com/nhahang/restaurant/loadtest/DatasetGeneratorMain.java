@@ -0,0 +1,123 @@
+package com.nhahang.restaurant.loadtest;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Sinh bộ dữ liệu giả lập lớn (mặc định 10 triệu đơn) không cần khởi động Spring:
+ * <ul>
+ *   <li>--format=csv --out=target/dataset: ghi CSV + load-data.sql cho LOAD DATA LOCAL INFILE</li>
+ *   <li>--format=jdbc --jdbc-url=... --jdbc-user=... --jdbc-password=...: INSERT nhiều dòng thẳng vào DB
+ *   (schema phải có sẵn, ví dụ chạy ứng dụng một lần với ddl-auto=update, và các bảng phải rỗng)</li>
+ * </ul>
+ * Tham số quy mô: --orders, --users, --menu-items, --tables, --days, --seed, --cash-share.
+ * Dấu "--" ở đầu tham số có thể bỏ (tiện khi truyền qua -Dloadtest.args).
+ */
+public class DatasetGeneratorMain {
+
+    private static final int FLUSH_EVERY_ORDERS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        long orders = Long.parseLong(options.getOrDefault("orders", "10000000"));
+        DatasetGenerator.Spec defaults = DatasetGenerator.Spec.defaults(orders);
+        DatasetGenerator.Spec spec = new DatasetGenerator.Spec(
+                Long.parseLong(options.getOrDefault("seed", String.valueOf(defaults.seed()))),
+                Integer.parseInt(options.getOrDefault("users", String.valueOf(defaults.customers()))),
+                Integer.parseInt(options.getOrDefault("menu-items", String.valueOf(defaults.menuItems()))),
+                Integer.parseInt(options.getOrDefault("tables", String.valueOf(defaults.tables()))),
+                orders,
+                Integer.parseInt(options.getOrDefault("days", String.valueOf(defaults.days()))),
+                defaults.zipfExponent(),
+                Double.parseDouble(options.getOrDefault("cash-share", String.valueOf(defaults.cashShare()))),
+                defaults.dineInShare(),
+                defaults.futureBookingsPerTable());
+
+        String format = options.getOrDefault("format", "csv");
+        long start = System.nanoTime();
+        DatasetGenerator generator = new DatasetGenerator(spec, FLUSH_EVERY_ORDERS);
+        DatasetGenerator.Summary summary;
+        switch (format) {
+            case "csv" -> {
+                Path out = Path.of(options.getOrDefault("out", "target/dataset"));
+                try (CsvRowSink sink = new CsvRowSink(out)) {
+                    summary = generator.generate(sink, progress(orders, start));
+                }
+                System.out.println("Nạp vào MySQL: mysql --local-infile=1 <db> < "
+                        + out.resolve("load-data.sql").toAbsolutePath());
+            }
+            case "jdbc" -> {
+                int rowsPerStatement = Integer.parseInt(options.getOrDefault("rows-per-statement", "1000"));
+                try (Connection connection = DriverManager.getConnection(require(options, "jdbc-url"),
+                        options.get("jdbc-user"), options.get("jdbc-password"))) {
+                    prepareTarget(connection);
+                    try (JdbcRowSink sink = new JdbcRowSink(connection, rowsPerStatement)) {
+                        summary = generator.generate(sink, progress(orders, start));
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("--format phải là csv hoặc jdbc: " + format);
+        }
+
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        System.out.printf("Xong trong %d s: %d khách, %d món, %d bàn, %d đơn, %d dòng món, %d thanh toán, %d booking%n",
+                seconds, summary.customers(), summary.menuItems(), summary.tables(), summary.orders(),
+                summary.orderItems(), summary.payments(), summary.bookings());
+    }
+
+    /**
+     * Logic: Từ chối ghi vào DB đã có dữ liệu (id gán tường minh sẽ đụng nhau); với MySQL tắt
+     * kiểm tra khóa ngoại/unique trong phiên để nạp nhanh hơn
+     */
+    private static void prepareTarget(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+                rs.next();
+                if (rs.getLong(1) > 0) {
+                    throw new IllegalStateException("Bảng users đã có dữ liệu; hãy dùng database rỗng");
+                }
+            }
+            if (connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")) {
+                statement.execute("SET SESSION foreign_key_checks = 0");
+                statement.execute("SET SESSION unique_checks = 0");
+            }
+        }
+    }
+
+    private static LongConsumer progress(long total, long start) {
+        return done -> {
+            if (done % 1_000_000 == 0 || done == total) {
+                double seconds = Math.max(0.001, (System.nanoTime() - start) / 1e9);
+                System.out.printf("  %,d/%,d đơn (%.0f đơn/s)%n", done, total, done / seconds);
+            }
+        };
+    }
+
+    private static String require(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Thiếu tham số --" + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Tham số phải có dạng --tên=giá-trị: " + arg);
+            }
+            options.put(option.substring(0, eq), option.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,84 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.nhahang.restaurant.service.PayOSGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * PayOS giả lập thay cho {@code PayOSClientGateway} (payos.gateway=fake): giữ link trong bộ nhớ,
+ * mỗi lời gọi chờ một độ trễ cấu hình được và có thể lỗi ngẫu nhiên, để đo cả đường
+ * bulkhead/timeout/circuit breaker của ResilientPayOSGateway khi PayOS chậm.
+ */
+@Component("payOSClientGateway")
+@ConditionalOnProperty(name = "payos.gateway", havingValue = "fake")
+public class FakePayOSGateway implements PayOSGateway {
+
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double failureRate;
+    private final Map<Long, PaymentLink> links = new ConcurrentHashMap<>();
+
+    public FakePayOSGateway(@Value("${loadtest.payos.latency-ms:150}") long latencyMs,
+                            @Value("${loadtest.payos.jitter-ms:100}") long jitterMs,
+                            @Value("${loadtest.payos.failure-rate:0.0}") double failureRate) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequest request) {
+        simulateCall();
+        String linkId = UUID.randomUUID().toString().replace("-", "");
+        PaymentLink link = new PaymentLink(linkId, request.getOrderCode(), request.getAmount(), 0L,
+                request.getAmount(), PaymentLinkStatus.PENDING, OffsetDateTime.now().toString(), List.of(), null, null);
+        links.put(request.getOrderCode(), link);
+        return new CreatePaymentLinkResponse("970422", "0000123456789", "NHA HANG LOADTEST", request.getAmount(),
+                request.getDescription(), request.getOrderCode(), "VND", linkId, PaymentLinkStatus.PENDING,
+                request.getExpiredAt(), "https://pay.payos.vn/web/" + linkId, "00020101021238570010A000000727" + linkId);
+    }
+
+    @Override
+    public PaymentLink getPaymentLink(long orderCode) {
+        simulateCall();
+        PaymentLink link = links.get(orderCode);
+        if (link == null) {
+            throw new RuntimeException("PayOS giả lập: không có link cho orderCode " + orderCode);
+        }
+        return link;
+    }
+
+    @Override
+    public WebhookData verifyWebhook(Webhook webhook) {
+        // Không có chữ ký thật để kiểm tra
+        return webhook.getData();
+    }
+
+    private void simulateCall() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs) : 0);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("PayOS giả lập: bị ngắt", e);
+        }
+        if (random.nextDouble() < failureRate) {
+            throw new RuntimeException("PayOS giả lập: lỗi ngẫu nhiên");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.nhahang.restaurant.loadtest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi bằng INSERT nhiều dòng (VALUES (...), (...), ...): mỗi câu lệnh chở tối đa
+ * rowsPerStatement dòng, câu lệnh đủ dòng được prepare một lần rồi dùng lại.
+ * Mỗi lần flush là một transaction.
+ */
+class JdbcRowSink implements RowSink {
+
+    private static final class TableBuffer {
+        final String name;
+        final String[] columns;
+        final List<Object[]> rows = new ArrayList<>();
+        PreparedStatement fullStatement;
+
+        TableBuffer(String name, String[] columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+    }
+
+    private final Connection connection;
+    private final int rowsPerStatement;
+    private final Map<String, TableBuffer> tables = new LinkedHashMap<>();
+
+    JdbcRowSink(Connection connection, int rowsPerStatement) {
+        this.connection = connection;
+        this.rowsPerStatement = rowsPerStatement;
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Không tắt được auto-commit", e);
+        }
+    }
+
+    @Override
+    public void table(String name, String... columns) {
+        tables.put(name, new TableBuffer(name, columns));
+    }
+
+    @Override
+    public void row(String table, Object... values) {
+        tables.get(table).rows.add(values);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            for (TableBuffer buffer : tables.values()) {
+                write(buffer);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Ghi dữ liệu thất bại: " + e.getMessage(), e);
+        }
+    }
+
+    private void write(TableBuffer buffer) throws SQLException {
+        List<Object[]> rows = buffer.rows;
+        int offset = 0;
+        while (rows.size() - offset >= rowsPerStatement) {
+            if (buffer.fullStatement == null) {
+                buffer.fullStatement = connection.prepareStatement(insertSql(buffer, rowsPerStatement));
+            }
+            execute(buffer.fullStatement, rows, offset, rowsPerStatement);
+            offset += rowsPerStatement;
+        }
+        int remaining = rows.size() - offset;
+        if (remaining > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(buffer, remaining))) {
+                execute(statement, rows, offset, remaining);
+            }
+        }
+        rows.clear();
+    }
+
+    private static void execute(PreparedStatement statement, List<Object[]> rows, int offset, int count)
+            throws SQLException {
+        int index = 1;
+        for (int i = offset; i < offset + count; i++) {
+            for (Object value : rows.get(i)) {
+                statement.setObject(index++, value instanceof LocalDateTime time ? Timestamp.valueOf(time) : value);
+            }
+        }
+        statement.executeUpdate();
+    }
+
+    private static String insertSql(TableBuffer buffer, int rowCount) {
+        String placeholders = "(" + "?, ".repeat(buffer.columns.length - 1) + "?)";
+        StringBuilder sql = new StringBuilder(64 + rowCount * (placeholders.length() + 2))
+                .append("INSERT INTO ").append(buffer.name)
+                .append(" (").append(String.join(", ", buffer.columns)).append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        for (TableBuffer buffer : tables.values()) {
+            if (buffer.fullStatement != null) {
+                try {
+                    buffer.fullStatement.close();
+                } catch (SQLException e) {
+                    // Đóng kết nối phía gọi sẽ dọn nốt
+                }
+            }
+        }
+    }
+}
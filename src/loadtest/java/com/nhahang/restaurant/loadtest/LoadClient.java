@@ -0,0 +1,95 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * HTTP client cho kịch bản đo tải: gắn token giả, ghi độ trễ từng endpoint vào {@link LoadStats}.
+ * Lỗi kết nối/timeout được ghi với status 0 thay vì ném ra ngoài.
+ */
+class LoadClient {
+
+    /** Kết quả một request; body rỗng khi lỗi hoặc không phải JSON */
+    record Response(int status, JsonNode body) {
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final LoadStats stats;
+
+    LoadClient(String baseUrl, ObjectMapper objectMapper, LoadStats stats) {
+        // HTTP/1.1 như trình duyệt qua proxy; tránh lượt nâng cấp h2c ở request đầu mỗi kết nối
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.stats = stats;
+    }
+
+    Response get(String name, String path, String email, boolean measured) {
+        return send(name, request(path, email).GET(), measured);
+    }
+
+    Response post(String name, String path, String email, Object body, boolean measured) {
+        return send(name, request(path, email).POST(bodyOf(body)), measured);
+    }
+
+    Response patch(String name, String path, String email, boolean measured) {
+        return send(name, request(path, email).method("PATCH", HttpRequest.BodyPublishers.noBody()), measured);
+    }
+
+    private HttpRequest.Builder request(String path, String email) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + StubIdTokenVerifier.tokenFor(email))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher bodyOf(Object body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (Exception e) {
+            throw new IllegalStateException("Không ghi được body JSON", e);
+        }
+    }
+
+    private Response send(String name, HttpRequest.Builder builder, boolean measured) {
+        long start = System.nanoTime();
+        int status = 0;
+        JsonNode body = MissingNode.getInstance();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            status = response.statusCode();
+            if (response.body().length > 0 && status < 300) {
+                body = objectMapper.readTree(response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Giữ status (0 nếu chưa nhận được response)
+        }
+        if (measured) {
+            stats.recordEndpoint(name, start, System.nanoTime(), status);
+        }
+        return new Response(status, body);
+    }
+}
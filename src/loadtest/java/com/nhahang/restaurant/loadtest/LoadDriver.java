@@ -0,0 +1,143 @@
+package com.nhahang.restaurant.loadtest;
+
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Phát tải theo mô hình mở: kịch bản bắt đầu theo lịch cố định (rate/giây) bất kể server
+ * trả lời nhanh hay chậm, nên độ trễ đo từ thời điểm lên lịch không bị "coordinated omission".
+ * Khi số kịch bản đang chạy chạm max-in-flight, lượt mới bị bỏ và được đếm riêng.
+ */
+class LoadDriver {
+
+    /** Cấu hình một lần chạy */
+    record Settings(double rate, int warmupSeconds, int durationSeconds, int maxInFlight,
+                    Map<String, Integer> mix) {
+
+        /** Đọc cấu hình loadtest.* (application-loadtest.properties, ghi đè bằng -D hoặc --) */
+        static Settings from(Environment env) {
+            return new Settings(
+                    env.getRequiredProperty("loadtest.rate", Double.class),
+                    env.getRequiredProperty("loadtest.warmup-seconds", Integer.class),
+                    env.getRequiredProperty("loadtest.duration-seconds", Integer.class),
+                    env.getRequiredProperty("loadtest.max-in-flight", Integer.class),
+                    parseMix(env.getRequiredProperty("loadtest.mix")));
+        }
+
+        /** Đọc "browse:45,book:10,..." thành trọng số theo thứ tự khai báo */
+        static Map<String, Integer> parseMix(String mix) {
+            Map<String, Integer> weights = new LinkedHashMap<>();
+            for (String part : mix.split(",")) {
+                String[] pair = part.trim().split(":");
+                if (pair.length != 2 || !LoadScenarios.NAMES.contains(pair[0].trim())) {
+                    throw new IllegalArgumentException("loadtest.mix không hợp lệ: " + part);
+                }
+                int weight = Integer.parseInt(pair[1].trim());
+                if (weight > 0) {
+                    weights.put(pair[0].trim(), weight);
+                }
+            }
+            if (weights.isEmpty()) {
+                throw new IllegalArgumentException("loadtest.mix không có kịch bản nào");
+            }
+            return weights;
+        }
+    }
+
+    private final Settings settings;
+    private final LoadScenarios scenarios;
+    private final LoadStats stats;
+    private final ExecutorService workers;
+    private final String[] names;
+    private final int[] cumulativeWeights;
+
+    LoadDriver(Settings settings, LoadScenarios scenarios, LoadStats stats, ExecutorService workers) {
+        this.settings = settings;
+        this.scenarios = scenarios;
+        this.stats = stats;
+        this.workers = workers;
+        this.names = settings.mix().keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[names.length];
+        int sum = 0;
+        for (int i = 0; i < names.length; i++) {
+            sum += settings.mix().get(names[i]);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /** Pool worker có chặn trên: không hàng đợi, đầy thì từ chối (để driver đếm lượt bị bỏ) */
+    static ThreadPoolExecutor newWorkerPool(int maxInFlight) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxInFlight, maxInFlight, 30, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.prestartAllCoreThreads();
+        return pool;
+    }
+
+    /**
+     * Logic: Chạy warmup rồi pha đo; kết quả warmup không được ghi. Trả về số giây thực của pha đo.
+     */
+    double run() throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+
+        System.out.printf("Phát tải %.1f kịch bản/s: warmup %d s, đo %d s, mix %s%n",
+                settings.rate(), settings.warmupSeconds(), settings.durationSeconds(), settings.mix());
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intended >= measureFrom;
+            String scenario = pickScenario();
+            try {
+                workers.execute(() -> {
+                    int status = scenarios.run(scenario, measured);
+                    if (measured) {
+                        stats.recordScenario(scenario, intended, System.nanoTime(), status);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                if (measured) {
+                    stats.recordDropped();
+                }
+            }
+        }
+
+        // Chờ các kịch bản còn dở; độ trễ của chúng vẫn được tính
+        workers.shutdown();
+        if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+            System.err.println("Còn kịch bản chưa xong sau 60 s, dừng cưỡng bức");
+        }
+        return TimeUnit.NANOSECONDS.toMillis(end - measureFrom) / 1000.0;
+    }
+
+    private String pickScenario() {
+        int ticket = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return names[i];
+            }
+        }
+        return names[names.length - 1];
+    }
+}
@@ -0,0 +1,198 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.nhahang.restaurant.loadtest.DatasetGenerator.Summary;
+import com.nhahang.restaurant.loadtest.DatasetGenerator.ZipfSampler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Các kịch bản người dùng cho đo tải. Mỗi kịch bản là một chuỗi request như client thật gọi;
+ * kết quả kịch bản là status tệ nhất trong chuỗi (0 nếu lỗi kết nối).
+ */
+class LoadScenarios {
+
+    static final List<String> NAMES = List.of("browse", "book", "order", "pay", "checkout", "dashboard",
+            "paymentlookup");
+
+    /** Đơn mang đi vừa tạo, chờ kịch bản pay thanh toán */
+    private record PendingOrder(int id, String totalAmount, String email) {
+    }
+
+    private static final int MAX_PENDING_ORDERS = 10_000;
+
+    private final LoadClient client;
+    private final Summary seed;
+    private final ZipfSampler menuSampler;
+    private final Queue<PendingOrder> pendingOrders = new ConcurrentLinkedQueue<>();
+
+    LoadScenarios(LoadClient client, Summary seed) {
+        this.client = client;
+        this.seed = seed;
+        this.menuSampler = new ZipfSampler(seed.availableMenuItemIds().size(), 1.1);
+    }
+
+    int run(String scenario, boolean measured) {
+        return switch (scenario) {
+            case "browse" -> browse(measured);
+            case "book" -> book(measured);
+            case "order" -> order(measured);
+            case "pay" -> pay(measured);
+            case "checkout" -> checkout(measured);
+            case "dashboard" -> dashboard(measured);
+            case "paymentlookup" -> paymentLookup(measured);
+            default -> throw new IllegalArgumentException("Kịch bản không tồn tại: " + scenario);
+        };
+    }
+
+    /**
+     * Logic: Xem danh mục, một trang thực đơn còn bán, rồi chi tiết một món (món phổ biến xem nhiều hơn)
+     */
+    private int browse(boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String email = randomCustomer();
+        int pages = Math.max(1, seed.availableMenuItemIds().size() / 10);
+        return worst(
+                client.get("GET /api/categories", "/api/categories", email, measured).status(),
+                client.get("GET /api/menu", "/api/menu?available=true&size=10&page=" + random.nextInt(pages),
+                        email, measured).status(),
+                client.get("GET /api/menu/{id}", "/api/menu/" + randomMenuItem(), email, measured).status());
+    }
+
+    /**
+     * Logic: Xem bàn trống ở một giờ trong 60 ngày tới rồi đặt một bàn đủ chỗ
+     */
+    private int book(boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userIndex = 1 + random.nextInt(seed.customers());
+        String email = Summary.customerEmail(userIndex);
+        LocalDateTime time = LocalDate.now().plusDays(1 + random.nextInt(60))
+                .atTime(10 + random.nextInt(12), random.nextBoolean() ? 0 : 30);
+
+        LoadClient.Response availability = client.get("GET /api/tables/availability",
+                "/api/tables/availability?time=" + time, email, measured);
+        int tableId = 1 + random.nextInt(seed.tables());
+        int numGuests = 1 + random.nextInt(Summary.tableCapacity(tableId));
+        LoadClient.Response booking = client.post("POST /api/bookings", "/api/bookings", email,
+                Map.of("userId", Summary.customerUserId(userIndex), "tableId", tableId,
+                        "bookingTime", time.toString(), "numGuests", numGuests), measured);
+        return worst(availability.status(), booking.status());
+    }
+
+    /**
+     * Logic: Tạo đơn mang đi 1-5 món (Zipf), lưu lại để kịch bản pay thanh toán
+     */
+    private int order(boolean measured) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userIndex = 1 + random.nextInt(seed.customers());
+        String email = Summary.customerEmail(userIndex);
+        List<Map<String, Object>> items = new ArrayList<>();
+        int lines = 1 + random.nextInt(5);
+        for (int i = 0; i < lines; i++) {
+            items.add(Map.of("menuItemId", randomMenuItem(), "quantity", 1 + random.nextInt(3)));
+        }
+        LoadClient.Response response = client.post("POST /api/orders", "/api/orders", email,
+                Map.of("userId", Summary.customerUserId(userIndex), "orderType", "Takeaway",
+                        "orderItems", items), measured);
+        if (response.ok() && pendingOrders.size() < MAX_PENDING_ORDERS) {
+            pendingOrders.add(new PendingOrder(response.body().path("id").asInt(),
+                    response.body().path("totalAmount").asText(), email));
+        }
+        return response.status();
+    }
+
+    /**
+     * Logic: Thanh toán một đơn đang chờ (tạo đơn trước nếu hàng chờ rỗng):
+     * 40% qua link PayOS (cổng giả có độ trễ), 60% tiền mặt rồi nhân viên xác nhận
+     */
+    private int pay(boolean measured) {
+        PendingOrder pending = pendingOrders.poll();
+        if (pending == null) {
+            int status = order(measured);
+            pending = pendingOrders.poll();
+            if (pending == null) {
+                return status;
+            }
+        }
+
+        if (ThreadLocalRandom.current().nextInt(10) < 4) {
+            return client.post("POST /api/payments/payos/{orderId}", "/api/payments/payos/" + pending.id(),
+                    pending.email(), null, measured).status();
+        }
+        LoadClient.Response payment = client.post("POST /api/payments", "/api/payments", pending.email(),
+                Map.of("orderId", pending.id(), "amount", pending.totalAmount(), "paymentMethod", "Cash"),
+                measured);
+        if (!payment.ok()) {
+            return payment.status();
+        }
+        return client.patch("PATCH /api/payments/{id}/confirm",
+                "/api/payments/" + payment.body().path("id").asInt() + "/confirm",
+                DatasetGenerator.STAFF_EMAIL, measured).status();
+    }
+
+    /**
+     * Logic: Tạo đơn mang đi rồi lấy link PayOS ngay, luôn qua cổng giả có độ trễ
+     * (dùng cho benchmark cổng chậm: mỗi kịch bản giữ một request chờ gateway)
+     */
+    private int checkout(boolean measured) {
+        int status = order(measured);
+        PendingOrder pending = pendingOrders.poll();
+        if (pending == null) {
+            return status;
+        }
+        return worst(status, client.post("POST /api/payments/payos/{orderId}",
+                "/api/payments/payos/" + pending.id(), pending.email(), null, measured).status());
+    }
+
+    /**
+     * Logic: Màn hình quản trị: doanh thu tổng, doanh thu theo ngày 30 ngày qua, thống kê tháng, món bán chạy
+     */
+    private int dashboard(boolean measured) {
+        String email = DatasetGenerator.ADMIN_EMAIL;
+        LocalDateTime to = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        return worst(
+                client.get("GET /api/payments/revenue-report", "/api/payments/revenue-report", email, measured)
+                        .status(),
+                client.get("GET /api/payments/revenue-series", "/api/payments/revenue-series?granularity=day&from="
+                        + to.minusDays(30) + "&to=" + to, email, measured).status(),
+                client.get("GET /api/orders/stats/monthly", "/api/orders/stats/monthly", email, measured).status(),
+                client.get("GET /api/menu/best-selling", "/api/menu/best-selling", email, measured).status());
+    }
+
+    /**
+     * Logic: Nhân viên tra thanh toán của một đơn bất kỳ trong dữ liệu nạp sẵn
+     * (đơn chưa có thanh toán trả 404, vẫn là một lần dò chỉ mục order_id)
+     */
+    private int paymentLookup(boolean measured) {
+        long orderId = 1 + ThreadLocalRandom.current().nextLong(seed.orders());
+        return client.get("GET /api/payments/order/{orderId}", "/api/payments/order/" + orderId,
+                DatasetGenerator.STAFF_EMAIL, measured).status();
+    }
+
+    private String randomCustomer() {
+        return Summary.customerEmail(1 + ThreadLocalRandom.current().nextInt(seed.customers()));
+    }
+
+    private int randomMenuItem() {
+        return seed.availableMenuItemIds().get(menuSampler.sample(ThreadLocalRandom.current()) - 1);
+    }
+
+    /** Lỗi kết nối (0) và 5xx tệ hơn 4xx, 4xx tệ hơn 2xx */
+    private static int worst(int... statuses) {
+        int worst = 200;
+        for (int status : statuses) {
+            if (status == 0) {
+                return 0;
+            }
+            worst = Math.max(worst, status);
+        }
+        return worst;
+    }
+}
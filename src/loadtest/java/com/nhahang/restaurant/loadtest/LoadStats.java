@@ -0,0 +1,126 @@
+package com.nhahang.restaurant.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thống kê đo tải theo từng endpoint/kịch bản: histogram độ trễ (micro giây) và đếm kết quả.
+ * Kịch bản đo từ thời điểm lẽ ra phải bắt đầu (lịch phát của driver) nên đã tính cả thời gian
+ * xếp hàng phía client; endpoint đo từ lúc thực sự gửi request.
+ */
+class LoadStats {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    static final class Entry {
+        private final Histogram latency = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        void record(long startNanos, long endNanos, int status) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos);
+            latency.recordValue(Math.max(0, Math.min(micros, MAX_TRACKABLE_MICROS)));
+            if (status >= 200 && status < 300) {
+                ok.increment();
+            } else if (status >= 400 && status < 500) {
+                clientErrors.increment();
+            } else {
+                // 5xx hoặc lỗi kết nối/timeout (status = 0)
+                failures.increment();
+            }
+        }
+    }
+
+    private final Map<String, Entry> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Entry> scenarios = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    void recordEndpoint(String name, long startNanos, long endNanos, int status) {
+        endpoints.computeIfAbsent(name, key -> new Entry()).record(startNanos, endNanos, status);
+    }
+
+    void recordScenario(String name, long intendedStartNanos, long endNanos, int status) {
+        scenarios.computeIfAbsent(name, key -> new Entry()).record(intendedStartNanos, endNanos, status);
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    long failures() {
+        return endpoints.values().stream().mapToLong(entry -> entry.failures.sum()).sum();
+    }
+
+    long requests() {
+        return endpoints.values().stream().mapToLong(entry -> entry.latency.getTotalCount()).sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    /** Histogram độ trễ (micro giây) của một kịch bản, rỗng nếu kịch bản chưa chạy lần nào */
+    Histogram scenarioLatency(String name) {
+        Entry entry = scenarios.get(name);
+        return entry != null ? entry.latency : new Histogram(3);
+    }
+
+    /** Histogram độ trễ (micro giây) của một endpoint, rỗng nếu endpoint chưa được gọi */
+    Histogram endpointLatency(String name) {
+        Entry entry = endpoints.get(name);
+        return entry != null ? entry.latency : new Histogram(3);
+    }
+
+    long endpointOk(String name) {
+        Entry entry = endpoints.get(name);
+        return entry != null ? entry.ok.sum() : 0;
+    }
+
+    long endpointClientErrors(String name) {
+        Entry entry = endpoints.get(name);
+        return entry != null ? entry.clientErrors.sum() : 0;
+    }
+
+    long scenarioFailures(String name) {
+        Entry entry = scenarios.get(name);
+        return entry != null ? entry.failures.sum() : 0;
+    }
+
+    void print(PrintStream out, double measuredSeconds) {
+        out.println();
+        out.println("== Kịch bản (độ trễ tính từ thời điểm lên lịch, ms) ==");
+        printTable(out, scenarios, measuredSeconds);
+        out.println();
+        out.println("== Endpoint (độ trễ tính từ lúc gửi, ms) ==");
+        printTable(out, endpoints, measuredSeconds);
+        out.println();
+        out.printf("Tổng: %d request trong %.1f s (%.1f req/s), lỗi 5xx/IO: %d, kịch bản bị bỏ (quá max-in-flight): %d%n",
+                requests(), measuredSeconds, requests() / measuredSeconds, failures(), dropped());
+    }
+
+    private static void printTable(PrintStream out, Map<String, Entry> entries, double seconds) {
+        out.printf("%-36s %8s %8s %8s %8s %8s %8s %9s %6s %6s%n",
+                "tên", "count", "rps", "p50", "p90", "p99", "p99.9", "max", "4xx", "lỗi");
+        for (Map.Entry<String, Entry> item : new TreeMap<>(entries).entrySet()) {
+            Histogram h = item.getValue().latency;
+            out.printf("%-36s %8d %8.1f %8.2f %8.2f %8.2f %8.2f %9.2f %6d %6d%n",
+                    item.getKey(), h.getTotalCount(), h.getTotalCount() / seconds,
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                    millis(h.getMaxValue()),
+                    item.getValue().clientErrors.sum(), item.getValue().failures.sum());
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
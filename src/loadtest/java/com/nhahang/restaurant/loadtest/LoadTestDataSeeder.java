@@ -0,0 +1,79 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.nhahang.restaurant.service.RoleAuthorityTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nạp dữ liệu cho đo tải vào H2 (schema do Hibernate tạo) bằng {@link DatasetGenerator}, chạy trước
+ * ApplicationReadyEvent nên các chỉ mục/bucket dựng lúc khởi động đã thấy dữ liệu này.
+ * Id gán tường minh để nối khóa ngoại, xong thì đặt lại bộ đếm IDENTITY.
+ */
+@Component
+@Profile("loadtest")
+public class LoadTestDataSeeder implements ApplicationRunner {
+
+    private static final int ROWS_PER_STATEMENT = 500;
+    private static final int FLUSH_EVERY_ORDERS = 2000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final RoleAuthorityTable roleAuthorityTable;
+    private final DatasetGenerator.Spec spec;
+    private volatile DatasetGenerator.Summary summary;
+
+    public LoadTestDataSeeder(DataSource dataSource,
+                              JdbcTemplate jdbcTemplate,
+                              RoleAuthorityTable roleAuthorityTable,
+                              @Value("${loadtest.seed.users:5000}") int customers,
+                              @Value("${loadtest.seed.menu-items:200}") int menuItems,
+                              @Value("${loadtest.seed.tables:60}") int tables,
+                              @Value("${loadtest.seed.orders:100000}") long orders,
+                              @Value("${loadtest.seed.days:180}") int days) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.roleAuthorityTable = roleAuthorityTable;
+        DatasetGenerator.Spec defaults = DatasetGenerator.Spec.defaults(orders);
+        this.spec = new DatasetGenerator.Spec(defaults.seed(), customers, menuItems, tables, orders, days,
+                defaults.zipfExponent(), defaults.cashShare(), defaults.dineInShare(),
+                defaults.futureBookingsPerTable());
+    }
+
+    /** Chỉ có sau khi nạp xong (trước ApplicationReadyEvent) */
+    DatasetGenerator.Summary summary() {
+        return summary;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             JdbcRowSink sink = new JdbcRowSink(connection, ROWS_PER_STATEMENT)) {
+            summary = new DatasetGenerator(spec, FLUSH_EVERY_ORDERS).generate(sink, orders -> {
+            });
+        }
+        resetIdentity("permissions", "roles", "users", "categories", "menu_items", "tables",
+                "orders", "order_items", "payments", "bookings");
+        // Bảng quyền có thể đã nạp (rỗng) trước khi seed xong
+        roleAuthorityTable.reload();
+        System.out.printf("Đã nạp dữ liệu đo tải: %d khách, %d món, %d bàn, %d đơn, %d booking trong %d ms%n",
+                summary.customers(), summary.menuItems(), summary.tables(), summary.orders(), summary.bookings(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void resetIdentity(String... tables) {
+        for (String table : tables) {
+            Long next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+        }
+    }
+}
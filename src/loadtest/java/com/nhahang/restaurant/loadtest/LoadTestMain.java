@@ -0,0 +1,58 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nhahang.restaurant.RestaurantApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Đo tải end-to-end: khởi động ứng dụng thật (profile loadtest, cổng ngẫu nhiên), nạp dữ liệu,
+ * phát tải HTTP theo mix kịch bản rồi in độ trễ p50/p90/p99/p99.9 theo endpoint.
+ * Tham số dạng --loadtest.rate=200 ghi đè application-loadtest.properties.
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        SpringApplication application = new SpringApplication(RestaurantApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        ConfigurableApplicationContext context = application.run(args);
+
+        int exitCode;
+        try {
+            exitCode = runLoad(context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        int finalExitCode = exitCode;
+        System.exit(SpringApplication.exit(context, () -> finalExitCode));
+    }
+
+    private static int runLoad(ConfigurableApplicationContext context) throws InterruptedException {
+        Environment env = context.getEnvironment();
+        LoadDriver.Settings settings = LoadDriver.Settings.from(env);
+        double maxFailureRatio = env.getRequiredProperty("loadtest.max-failure-ratio", Double.class);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        LoadStats stats = new LoadStats();
+        LoadClient client = new LoadClient("http://localhost:" + port,
+                context.getBean(ObjectMapper.class), stats);
+        LoadScenarios scenarios = new LoadScenarios(client, context.getBean(LoadTestDataSeeder.class).summary());
+        ThreadPoolExecutor workers = LoadDriver.newWorkerPool(settings.maxInFlight());
+
+        double measuredSeconds = new LoadDriver(settings, scenarios, stats, workers).run();
+        stats.print(System.out, measuredSeconds);
+
+        long requests = stats.requests();
+        double failureRatio = requests == 0 ? 1.0 : (double) stats.failures() / requests;
+        if (failureRatio > maxFailureRatio) {
+            System.err.printf("Tỉ lệ lỗi %.4f vượt ngưỡng %.4f%n", failureRatio, maxFailureRatio);
+            return 1;
+        }
+        return 0;
+    }
+}
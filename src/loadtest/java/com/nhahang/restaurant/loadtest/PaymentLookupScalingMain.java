@@ -0,0 +1,107 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nhahang.restaurant.RestaurantApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Đo độ trễ GET /api/payments/order/{orderId} khi bảng payments lớn dần (profile paymentscale):
+ * với mỗi quy mô, nạp dữ liệu bằng {@link DatasetGenerator} vào H2 dạng file (để nhiều triệu dòng
+ * không phải nằm trên heap), phát cùng một tải tra cứu rồi in p50/p99 theo số dòng payments.
+ * Tham số: số thanh toán mục tiêu (mặc định 10000 1000000 5000000); tham số dạng --loadtest.rate=500
+ * ghi đè cấu hình. Số đơn được chọn để số thanh toán sinh ra xấp xỉ mục tiêu.
+ */
+public class PaymentLookupScalingMain {
+
+    private static final String SCENARIO = "paymentlookup";
+    private static final String ENDPOINT = "GET /api/payments/order/{orderId}";
+    // Tỉ lệ đơn có thanh toán trong DatasetGenerator (đơn hoàn thành + một phần đơn hủy/đang xử lý)
+    private static final double PAYMENTS_PER_ORDER = 0.94;
+    private static final Path DATA_DIR = Path.of("target", "paymentscale");
+
+    private record Result(long payments, long seedMillis, double seconds, Histogram latency, long found,
+                          long notFound, long failures) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Long> sizes = Stream.of(args).filter(arg -> !arg.startsWith("--")).map(Long::parseLong).toList();
+        String[] overrides = Stream.of(args).filter(arg -> arg.startsWith("--")).toArray(String[]::new);
+        if (sizes.isEmpty()) {
+            sizes = List.of(10_000L, 1_000_000L, 5_000_000L);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (long size : sizes) {
+            results.add(run(size, overrides));
+        }
+
+        System.out.println();
+        System.out.println("== " + ENDPOINT + " theo số dòng payments (độ trễ tính từ lúc gửi, ms) ==");
+        System.out.printf("%12s %10s %8s %8s %8s %8s %9s %8s %8s %6s%n",
+                "payments", "khởi động", "req/s", "p50", "p90", "p99", "p99.9", "có", "404", "lỗi");
+        for (Result r : results) {
+            Histogram h = r.latency();
+            System.out.printf("%,12d %10.1f %8.1f %8.2f %8.2f %8.2f %8.2f %8d %8d %6d%n",
+                    r.payments(), r.seedMillis() / 1000.0, h.getTotalCount() / r.seconds(),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                    millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                    r.found(), r.notFound(), r.failures());
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Logic: Mỗi quy mô một ApplicationContext và một file H2 mới để các lần đo độc lập nhau
+     */
+    private static Result run(long targetPayments, String[] overrides) throws InterruptedException, IOException {
+        long orders = (long) Math.ceil(targetPayments / PAYMENTS_PER_ORDER);
+        System.out.printf("== %,d thanh toán (%,d đơn) ==%n", targetPayments, orders);
+        Path dbDir = DATA_DIR.resolve(String.valueOf(targetPayments));
+        FileSystemUtils.deleteRecursively(dbDir);
+
+        String[] args = Stream.concat(Stream.of(
+                        "--loadtest.seed.orders=" + orders,
+                        "--loadtest.paymentscale.db=" + dbDir.toAbsolutePath().resolve("db")),
+                Stream.of(overrides)).toArray(String[]::new);
+        SpringApplication application = new SpringApplication(RestaurantApplication.class);
+        application.setAdditionalProfiles("loadtest", "paymentscale");
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = application.run(args);
+        long seedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        try {
+            DatasetGenerator.Summary summary = context.getBean(LoadTestDataSeeder.class).summary();
+            LoadDriver.Settings settings = LoadDriver.Settings.from(context.getEnvironment());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadStats stats = new LoadStats();
+            LoadClient client = new LoadClient("http://localhost:" + port, context.getBean(ObjectMapper.class), stats);
+            LoadScenarios scenarios = new LoadScenarios(client, summary);
+
+            double seconds = new LoadDriver(settings, scenarios, stats,
+                    LoadDriver.newWorkerPool(settings.maxInFlight())).run();
+            stats.print(System.out, seconds);
+
+            Histogram latency = stats.endpointLatency(ENDPOINT);
+            return new Result(summary.payments(), seedMillis, seconds, latency,
+                    stats.endpointOk(ENDPOINT), stats.endpointClientErrors(ENDPOINT),
+                    stats.scenarioFailures(SCENARIO));
+        } finally {
+            SpringApplication.exit(context);
+            FileSystemUtils.deleteRecursively(dbDir);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
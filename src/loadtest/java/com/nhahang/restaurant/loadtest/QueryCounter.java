@@ -0,0 +1,79 @@
+package com.nhahang.restaurant.loadtest;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bọc DataSource bằng datasource-proxy để đếm số câu lệnh SQL chạy trên thread xử lý request
+ * (Tomcat), gồm cả JPA lẫn JdbcTemplate. Việc nền (@Scheduled, executor) không bị tính.
+ * Một batch JDBC tính là một câu lệnh (một lượt gửi xuống DB).
+ */
+@Component
+@ConditionalOnProperty(name = "loadtest.query-count.enabled", havingValue = "true")
+public class QueryCounter implements BeanPostProcessor {
+
+    private static final String REQUEST_THREAD_PREFIX = "http-nio-";
+
+    private final LongAdder statements = new LongAdder();
+    private final Map<String, AtomicInteger> bySql = new ConcurrentHashMap<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name("query-counter")
+                    .listener(new QueryExecutionListener() {
+                        @Override
+                        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                        }
+
+                        @Override
+                        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                            record(queryInfoList);
+                        }
+                    })
+                    .build();
+        }
+        return bean;
+    }
+
+    private void record(List<QueryInfo> queries) {
+        if (!Thread.currentThread().getName().startsWith(REQUEST_THREAD_PREFIX)) {
+            return;
+        }
+        statements.increment();
+        String sql = queries.isEmpty() ? "?" : queries.get(0).getQuery();
+        bySql.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /** Bắt đầu một cửa sổ đếm mới */
+    void reset() {
+        statements.reset();
+        bySql.clear();
+    }
+
+    long count() {
+        return statements.sum();
+    }
+
+    /** Câu lệnh lặp nhiều nhất trong cửa sổ hiện tại (dấu hiệu N+1) */
+    Map.Entry<String, Integer> mostRepeated() {
+        return bySql.entrySet().stream()
+                .max(Map.Entry.comparingByValue((a, b) -> Integer.compare(a.get(), b.get())))
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().get()))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,18 @@
+package com.nhahang.restaurant.loadtest;
+
+/**
+ * Nơi ghi dòng của {@link DatasetGenerator}. Bảng khai báo theo thứ tự khóa ngoại (cha trước con);
+ * dòng có thể xen kẽ giữa các bảng, {@link #flush()} ghi theo đúng thứ tự khai báo.
+ */
+interface RowSink extends AutoCloseable {
+
+    void table(String name, String... columns);
+
+    /** Giá trị: Integer/Long/String/LocalDateTime hoặc null */
+    void row(String table, Object... values);
+
+    void flush();
+
+    @Override
+    void close();
+}
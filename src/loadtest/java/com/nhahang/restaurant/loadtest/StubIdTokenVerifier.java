@@ -0,0 +1,34 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.nhahang.restaurant.service.IdTokenVerifier;
+import com.nhahang.restaurant.service.VerifiedIdToken;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Xác thực giả cho đo tải: token có dạng "loadtest:&lt;email&gt;", không kiểm tra chữ ký.
+ * Chỉ được tạo khi auth.token-verifier=stub (profile loadtest).
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token-verifier", havingValue = "stub")
+public class StubIdTokenVerifier implements IdTokenVerifier {
+
+    static final String TOKEN_PREFIX = "loadtest:";
+
+    static String tokenFor(String email) {
+        return TOKEN_PREFIX + email;
+    }
+
+    @Override
+    public VerifiedIdToken verify(String idToken) {
+        if (!idToken.startsWith(TOKEN_PREFIX)) {
+            throw new RuntimeException("Token đo tải không hợp lệ");
+        }
+        String email = idToken.substring(TOKEN_PREFIX.length());
+        return new VerifiedIdToken(email, email,
+                System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1), Map.of("email", email));
+    }
+}
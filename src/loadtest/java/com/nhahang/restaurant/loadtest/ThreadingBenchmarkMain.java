@@ -0,0 +1,94 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nhahang.restaurant.RestaurantApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * So sánh pool thread Tomcat với virtual thread khi cổng thanh toán chậm (profile slowgateway):
+ * lần lượt khởi động ứng dụng ở từng chế độ, phát cùng một tải checkout (tạo đơn + link PayOS ~2 s)
+ * rồi in bảng thông lượng/độ trễ cạnh nhau.
+ * Tham số: "platform", "virtual" (mặc định cả hai); tham số dạng --loadtest.rate=300 ghi đè cấu hình.
+ */
+public class ThreadingBenchmarkMain {
+
+    private static final String SCENARIO = "checkout";
+
+    private record Result(String mode, double seconds, long completed, Histogram latency, long failures,
+                          long dropped, long pinnedEvents) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Stream.of(args).filter(arg -> !arg.startsWith("--")).toList();
+        String[] overrides = Stream.of(args).filter(arg -> arg.startsWith("--")).toArray(String[]::new);
+        if (modes.isEmpty()) {
+            modes = List.of("platform", "virtual");
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (String mode : modes) {
+            if (!mode.equals("platform") && !mode.equals("virtual")) {
+                throw new IllegalArgumentException("Chế độ phải là platform hoặc virtual: " + mode);
+            }
+            results.add(run(mode, overrides));
+        }
+
+        System.out.println();
+        System.out.println("== Kịch bản " + SCENARIO + " dưới cổng PayOS chậm (độ trễ tính từ thời điểm lên lịch, ms) ==");
+        System.out.printf("%-10s %10s %8s %8s %8s %9s %6s %8s %8s%n",
+                "chế độ", "xong/s", "p50", "p99", "p99.9", "max", "lỗi", "bị bỏ", "bị ghim");
+        for (Result r : results) {
+            System.out.printf("%-10s %10.1f %8.0f %8.0f %8.0f %9.0f %6d %8d %8s%n",
+                    r.mode(), r.completed() / r.seconds(),
+                    millis(r.latency().getValueAtPercentile(50)), millis(r.latency().getValueAtPercentile(99)),
+                    millis(r.latency().getValueAtPercentile(99.9)), millis(r.latency().getMaxValue()),
+                    r.failures(), r.dropped(), r.mode().equals("virtual") ? String.valueOf(r.pinnedEvents()) : "-");
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Logic: Mỗi chế độ một ApplicationContext riêng (ddl-auto=create dựng lại schema, seeder nạp lại dữ liệu)
+     * để hai lần đo xuất phát từ cùng trạng thái
+     */
+    private static Result run(String mode, String[] overrides) throws InterruptedException {
+        System.out.println("== Chế độ " + mode + " ==");
+        String[] args = Stream.concat(Stream.of("--spring.threads.virtual.enabled=" + mode.equals("virtual")),
+                Stream.of(overrides)).toArray(String[]::new);
+        SpringApplication application = new SpringApplication(RestaurantApplication.class);
+        application.setAdditionalProfiles("loadtest", "slowgateway");
+        ConfigurableApplicationContext context = application.run(args);
+        try {
+            LoadDriver.Settings settings = LoadDriver.Settings.from(context.getEnvironment());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadStats stats = new LoadStats();
+            LoadClient client = new LoadClient("http://localhost:" + port, context.getBean(ObjectMapper.class), stats);
+            LoadScenarios scenarios = new LoadScenarios(client, context.getBean(LoadTestDataSeeder.class).summary());
+
+            double seconds = new LoadDriver(settings, scenarios, stats,
+                    LoadDriver.newWorkerPool(settings.maxInFlight())).run();
+            stats.print(System.out, seconds);
+
+            Histogram latency = stats.scenarioLatency(SCENARIO);
+            long pinned = context.getBean(MeterRegistry.class).find("jvm.threads.virtual.pinned").timers().stream()
+                    .mapToLong(Timer::count).sum();
+            return new Result(mode, seconds, latency.getTotalCount(), latency, stats.scenarioFailures(SCENARIO),
+                    stats.dropped(), pinned);
+        } finally {
+            SpringApplication.exit(context);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
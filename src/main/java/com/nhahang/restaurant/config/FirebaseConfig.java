@@ -1,9 +1,11 @@
 package com.nhahang.restaurant.config;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import org.springframework.beans.factory.annotation.Value; // Thêm import này
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,6 +15,8 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets; // Thêm import này
 
 @Configuration
+// Tắt (firebase.enabled=false) khi chạy không có service account, vd. profile đo tải
+@ConditionalOnProperty(name = "firebase.enabled", havingValue = "true", matchIfMissing = true)
 public class FirebaseConfig {
 
     @Value("${FIREBASE_SERVICE_ACCOUNT}")
@@ -23,9 +27,14 @@ public class FirebaseConfig {
             firebaseServiceAccountJson.getBytes(StandardCharsets.UTF_8)
         );
 
-        FirebaseOptions options = new FirebaseOptions.Builder()
-            .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-            .build();
+        GoogleCredentials credentials = GoogleCredentials.fromStream(serviceAccount);
+        FirebaseOptions.Builder builder = new FirebaseOptions.Builder()
+            .setCredentials(credentials);
+        // Project ID dùng để kiểm tra aud/iss khi tự xác thực ID token
+        if (credentials instanceof ServiceAccountCredentials serviceAccountCredentials) {
+            builder.setProjectId(serviceAccountCredentials.getProjectId());
+        }
+        FirebaseOptions options = builder.build();
 
         if (FirebaseApp.getApps().isEmpty()) {
             return FirebaseApp.initializeApp(options);
@@ -1,10 +1,13 @@
 package com.nhahang.restaurant.config;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseToken;
-import com.nhahang.restaurant.model.entity.Role;
 import com.nhahang.restaurant.model.entity.User;
 import com.nhahang.restaurant.repository.UserRepository;
+import com.nhahang.restaurant.service.AuthPrincipalCache;
+import com.nhahang.restaurant.service.IdTokenVerifier;
+import com.nhahang.restaurant.service.RoleAuthorityTable;
+import com.nhahang.restaurant.service.VerifiedIdToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,15 +15,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class FirebaseTokenFilter extends OncePerRequestFilter {
@@ -28,6 +30,18 @@ public class FirebaseTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AuthPrincipalCache authPrincipalCache;
+
+    @Autowired
+    private IdTokenVerifier idTokenVerifier;
+
+    @Autowired
+    private RoleAuthorityTable roleAuthorityTable;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -40,41 +54,61 @@ public class FirebaseTokenFilter extends OncePerRequestFilter {
         }
 
         String tokenString = header.substring(7); 
+        long start = System.nanoTime();
+        String result = "cache_hit";
 
         try {
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(tokenString);
-            String email = decodedToken.getEmail();
-            
-            if (email != null) {
-                
-                User user = userRepository.findByEmail(email).orElse(null);
-
-                // 2. KIỂM TRA USER VÀ ROLE
-                if (user != null && user.getRole() != null) { 
-                    Role userRole = user.getRole(); //
+            // 1. TOKEN ĐÃ XÁC THỰC TRƯỚC ĐÓ (CÒN HẠN) THÌ DÙNG LẠI, KHÔNG VERIFY/QUERY LẠI
+            String cacheKey = authPrincipalCache.key(tokenString);
+            AuthPrincipalCache.CachedPrincipal cached = authPrincipalCache.get(cacheKey);
 
-                    // 3. LẤY TẤT CẢ PERMISSIONS TỪ ROLE ĐÓ
-                    // (Hibernate tự tải 'permissions' vì chúng ta đặt FetchType.EAGER)
-                    Collection<? extends GrantedAuthority> authorities = userRole.getPermissions().stream()
-                        .map(permission -> new SimpleGrantedAuthority(permission.getName()))
-                        .collect(Collectors.toList());
-                    
-                    // 4. TẠO AUTHENTICATION VÀ ĐẶT VÀO SECURITYCONTEXT
-                    UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(user, null, authorities); 
+            if (cached == null) {
+                result = "unknown_user";
+                VerifiedIdToken decodedToken = idTokenVerifier.verify(tokenString);
+                String email = decodedToken.email();
+                
+                if (email != null) {
                     
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    User user = userRepository.findByEmail(email).orElse(null);
+
+                    // 2. KIỂM TRA USER VÀ ROLE
+                    if (user != null && user.getRole() != null) { 
+                        cached = new AuthPrincipalCache.CachedPrincipal(user, user.getRole().getRoleName());
+                        authPrincipalCache.put(cacheKey, cached, decodedToken.expiresAtMillis());
+                        result = "verified";
+                    }
                 }
             }
+
+            if (cached != null) {
+                // 3. LẤY PERMISSIONS CỦA ROLE TỪ BẢNG DỰNG SẴN (KHÔNG QUERY)
+                List<GrantedAuthority> authorities = roleAuthorityTable.authoritiesOf(cached.roleName());
+
+                // 4. TẠO AUTHENTICATION VÀ ĐẶT VÀO SECURITYCONTEXT
+                UsernamePasswordAuthenticationToken authentication = 
+                    new UsernamePasswordAuthenticationToken(cached.user(), null, authorities); 
+                
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
         } catch (Exception e) {
             // Token không hợp lệ hoặc hết hạn
             logger.error("Firebase token verification failed", e);
+            recordLatency("rejected", start);
             SecurityContextHolder.clearContext();
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid Firebase Token");
             return;
         }
+        recordLatency(result, start);
 
         filterChain.doFilter(request, response);
     }
+
+    private void recordLatency(String result, long start) {
+        Timer.builder("auth.token.latency")
+                .description("Thời gian xác thực token trong FirebaseTokenFilter")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
 }
\ No newline at end of file
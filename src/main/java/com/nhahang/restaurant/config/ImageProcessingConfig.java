@@ -0,0 +1,31 @@
+package com.nhahang.restaurant.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImageProcessingConfig {
+
+    @Value("${image.processing.pool-size:4}")
+    private int poolSize;
+
+    @Value("${image.processing.queue-capacity:64}")
+    private int queueCapacity;
+
+    /**
+     * Pool riêng cho việc resize/encode/upload ảnh món ăn,
+     * tách khỏi thread xử lý request của Tomcat
+     */
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -2,7 +2,12 @@ package com.nhahang.restaurant.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import vn.payos.PayOS;
+import vn.payos.core.ClientOptions;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 public class PayOSConfig {
 
@@ -15,8 +20,81 @@ public class PayOSConfig {
     @Value("${payos.checksum-key}")
     private String checksumKey;
 
+    @Value("${payos.webhook.worker-threads:4}")
+    private int webhookWorkerThreads;
+
+    @Value("${payos.client.timeout-ms:3000}")
+    private int clientTimeoutMs;
+
+    @Value("${payos.client.max-retries:1}")
+    private int clientMaxRetries;
+
+    @Value("${payos.client.max-concurrent:8}")
+    private int clientMaxConcurrent;
+
+    @Value("${payos.client.queue-capacity:16}")
+    private int clientQueueCapacity;
+
+    @Value("${payos.reconcile.concurrency:4}")
+    private int reconcileConcurrency;
+
+    @Value("${payos.reconcile.chunk-size:100}")
+    private int reconcileChunkSize;
+
     @Bean
     public PayOS payOS() {
-        return new PayOS(clientId, apiKey, checksumKey);
+        return new PayOS(ClientOptions.builder()
+                .clientId(clientId)
+                .apiKey(apiKey)
+                .checksumKey(checksumKey)
+                .timeoutMs(clientTimeoutMs)
+                .maxRetries(clientMaxRetries)
+                .build());
+    }
+
+    /**
+     * Bulkhead cho các lời gọi HTTP tới PayOS: số luồng và hàng đợi có giới hạn,
+     * đầy thì từ chối ngay thay vì giữ thread của Tomcat
+     */
+    @Bean(name = "payOSClientExecutor")
+    public ThreadPoolTaskExecutor payOSClientExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(clientMaxConcurrent);
+        executor.setMaxPoolSize(clientMaxConcurrent);
+        executor.setQueueCapacity(clientQueueCapacity);
+        executor.setThreadNamePrefix("payos-client-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool xử lý webhook PayOS từ inbox, tách khỏi thread request
+     */
+    @Bean(name = "webhookExecutor")
+    public ThreadPoolTaskExecutor webhookExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(webhookWorkerThreads);
+        executor.setMaxPoolSize(webhookWorkerThreads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("payos-webhook-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool của job đối soát: giới hạn số lời gọi PayOS song song của job,
+     * để phần còn lại của bulkhead dành cho khách đang thanh toán
+     */
+    @Bean(name = "payOSReconcileExecutor")
+    public ThreadPoolTaskExecutor payOSReconcileExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(reconcileConcurrency);
+        executor.setMaxPoolSize(reconcileConcurrency);
+        executor.setQueueCapacity(reconcileChunkSize);
+        executor.setThreadNamePrefix("payos-reconcile-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
     }
-}
\ No newline at end of file
+}
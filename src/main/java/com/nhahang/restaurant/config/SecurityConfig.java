@@ -5,6 +5,7 @@ import java.util.Arrays;
 import org.springframework.beans.factory.annotation.Autowired; 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity; 
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -16,6 +17,8 @@ import org.springframework.web.cors.CorsConfiguration;
 
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+
+import jakarta.servlet.http.HttpServletRequest;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true) 
@@ -24,6 +27,9 @@ public class SecurityConfig {
     @Autowired
     private FirebaseTokenFilter firebaseTokenFilter; 
 
+    @Autowired
+    private Environment environment;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -32,6 +38,8 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/users").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/payments/payos/webhook").permitAll()
+                // Prometheus scrape không có Firebase token: chỉ mở trên cổng quản trị nội bộ
+                .requestMatchers(this::isManagementScrape).permitAll()
                 .anyRequest().authenticated()  
             )
             .csrf(csrf -> csrf.disable())  
@@ -41,6 +49,20 @@ public class SecurityConfig {
         
         return http.build();
     }
+
+    /**
+     * GET /actuator/health hoặc /actuator/prometheus đi vào cổng quản trị (management.server.port).
+     * Cổng thật lấy từ local.management.port sau khi server quản trị khởi động (hỗ trợ cả cổng 0)
+     */
+    private boolean isManagementScrape(HttpServletRequest request) {
+        Integer managementPort = environment.getProperty("local.management.port", Integer.class);
+        if (managementPort == null || request.getLocalPort() != managementPort) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return HttpMethod.GET.matches(request.getMethod())
+                && (path.equals("/actuator/health") || path.equals("/actuator/prometheus"));
+    }
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -0,0 +1,97 @@
+package com.nhahang.restaurant.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phát hiện virtual thread bị "ghim" vào carrier thread (block I/O bên trong synchronized hoặc
+ * native frame, ví dụ driver JDBC, Firebase Admin, Cloudinary): nghe sự kiện JFR jdk.VirtualThreadPinned
+ * ngay trong tiến trình, đếm thành metric jvm.threads.virtual.pinned{source} và in stack trace
+ * lần đầu gặp mỗi nguồn. Chỉ bật khi chạy virtual thread (spring.threads.virtual.enabled=true).
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 15;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> reportedSources = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${threads.virtual.pinned-threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Đang theo dõi virtual thread bị ghim lâu hơn {}ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Logic: Quy sự kiện về frame đầu tiên ngoài JDK (code của mình hoặc thư viện giữ lock),
+     * ghi thời gian bị ghim theo nguồn đó; stack đầy đủ chỉ in một lần cho mỗi nguồn
+     */
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String source = sourceOf(frames);
+
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Thời gian virtual thread bị ghim vào carrier thread")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (reportedSources.add(source)) {
+            StringBuilder message = new StringBuilder("Virtual thread bị ghim ")
+                    .append(event.getDuration().toMillis()).append("ms tại ").append(source).append(':');
+            frames.stream().limit(LOGGED_FRAMES).forEach(frame -> message.append("\n    at ")
+                    .append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()));
+            log.warn(message.toString());
+        }
+    }
+
+    private static String sourceOf(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String className = frame.getMethod().getType().getName();
+            if (!className.startsWith("java.") && !className.startsWith("jdk.") && !className.startsWith("sun.")) {
+                return className;
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0).getMethod().getType().getName();
+    }
+}
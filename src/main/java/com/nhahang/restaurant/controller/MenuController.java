@@ -2,14 +2,25 @@ package com.nhahang.restaurant.controller;
 
 import com.nhahang.restaurant.dto.BestSellingItemDTO;
 import com.nhahang.restaurant.dto.MenuItemDTO; // Import DTO ta đã tạo
+import com.nhahang.restaurant.dto.MenuPriceReportDTO;
+import com.nhahang.restaurant.dto.MenuStatusBulkRequest;
+import com.nhahang.restaurant.dto.PriceHistoryEntryDTO;
+import com.nhahang.restaurant.dto.TrendingItemDTO;
 import com.nhahang.restaurant.model.entity.MenuItem;
+import com.nhahang.restaurant.service.MenuPriceHistoryService;
 import com.nhahang.restaurant.service.MenuService;
+import com.nhahang.restaurant.service.TrendingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -24,6 +35,8 @@ import org.springframework.web.multipart.MultipartFile;
 public class MenuController {
 
     private final MenuService menuService;
+    private final TrendingService trendingService;
+    private final MenuPriceHistoryService menuPriceHistoryService;
 
     // --- API 0: LẤY TỔNG SỐ TRANG ---
     @GetMapping("/page-count")
@@ -113,6 +126,21 @@ public class MenuController {
             return ResponseEntity.notFound().build();
         }
     }
+    // --- API 4b: ĐỔI TRẠNG THÁI HÀNG LOẠT (hết nguyên liệu, mở bán lại...) ---
+    @PatchMapping("/status")
+     @PreAuthorize("hasAuthority('UPDATE_MENU')")
+    public ResponseEntity<Map<String, Object>> updateMenuItemStatusBulk(@RequestBody MenuStatusBulkRequest request) {
+        try {
+            int updated = menuService.updateMenuItemStatusBulk(request);
+            Map<String, Object> result = new HashMap<>();
+            result.put("updated", updated);
+            result.put("status", request.getStatus());
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            System.err.println("Error updating menu item status: " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
     // --- API 5: XÓA MỘT MÓN ĂN (Dùng cho Admin) ---
     @DeleteMapping("/{id}")
      @PreAuthorize("hasAuthority('DELETE_MENU')")
@@ -141,4 +169,65 @@ public class MenuController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    // --- API 7: LẤY DANH SÁCH MÓN ĂN ĐANG HOT THEO KHUNG THỜI GIAN (2h, 24h, 7d) ---
+    @GetMapping("/trending")
+     @PreAuthorize("hasAuthority('READ_MENU')")
+    public ResponseEntity<List<TrendingItemDTO>> getTrendingItems(
+            @RequestParam(value = "window", defaultValue = "2h") String window,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            if (limit <= 0) limit = 10;
+            if (limit > 100) limit = 100;
+
+            List<TrendingItemDTO> trendingItems = trendingService.getTrendingItems(window, limit);
+            return ResponseEntity.ok(trendingItems);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // --- API 8: LỊCH SỬ GIÁ CỦA MỘT MÓN ĂN ---
+    @GetMapping("/{id}/price-history")
+     @PreAuthorize("hasAuthority('READ_MENU')")
+    public ResponseEntity<List<PriceHistoryEntryDTO>> getPriceHistory(@PathVariable Integer id) {
+        try {
+            return ResponseEntity.ok(menuPriceHistoryService.getPriceHistory(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // --- API 9: GIÁ CỦA MỘT MÓN ĂN TẠI MỘT THỜI ĐIỂM ---
+    @GetMapping("/{id}/price")
+     @PreAuthorize("hasAuthority('READ_MENU')")
+    public ResponseEntity<BigDecimal> getPriceAt(
+            @PathVariable Integer id,
+            @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return menuPriceHistoryService.getPriceAt(id, at)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // --- API 10: BÁO CÁO DOANH THU THEO MÓN SO VỚI GIÁ NIÊM YẾT ---
+    @GetMapping("/price-report")
+     @PreAuthorize("hasAuthority('READ_PAYMENT')")
+    public ResponseEntity<List<MenuPriceReportDTO>> getPriceReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            LocalDateTime fromDate = (from != null) ? from.atStartOfDay() : LocalDate.now().withDayOfMonth(1).atStartOfDay();
+            LocalDateTime toDate = (to != null) ? to.atTime(LocalTime.MAX) : LocalDate.now().atTime(LocalTime.MAX);
+
+            if (fromDate.isAfter(toDate)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            }
+
+            return ResponseEntity.ok(menuPriceHistoryService.getPriceReport(fromDate, toDate));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 }
\ No newline at end of file
@@ -4,9 +4,16 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.nhahang.restaurant.dto.PaymentCreateRequest;
 import com.nhahang.restaurant.dto.PaymentDTO;
 import com.nhahang.restaurant.dto.PaymentMethodDistributionDTO;
+import com.nhahang.restaurant.dto.ReconciliationResultDTO;
+import com.nhahang.restaurant.dto.RevenueSeriesPointDTO;
 import com.nhahang.restaurant.dto.RevenueReportDTO;
+import com.nhahang.restaurant.service.PayOSUnavailableException;
+import com.nhahang.restaurant.service.PayOSWebhookInboxService;
+import com.nhahang.restaurant.service.PaymentReconciliationService;
 import com.nhahang.restaurant.service.PaymentService;
+import com.nhahang.restaurant.service.RevenueSeriesService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +26,7 @@ import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +36,9 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PayOSWebhookInboxService payOSWebhookInboxService;
+    private final PaymentReconciliationService paymentReconciliationService;
+    private final RevenueSeriesService revenueSeriesService;
 
     /**
      * API 1: TẠO LINK THANH TOÁN PAYOS
@@ -40,6 +51,9 @@ public class PaymentController {
         try {
             CreatePaymentLinkResponse data = paymentService.createPayOSLink(orderId);
             return ResponseEntity.ok(data);
+        } catch (PayOSUnavailableException e) {
+            // PayOS chậm/lỗi hoặc quá tải: báo client thử lại sau, không coi là lỗi dữ liệu
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             // QUAN TRỌNG: Trả về message lỗi thay vì null
@@ -49,12 +63,13 @@ public class PaymentController {
 
     /**
      * API 2: WEBHOOK
-     * PayOS gọi vào đây khi thanh toán thành công
+     * PayOS gọi vào đây khi thanh toán thành công (xử lý bất đồng bộ qua inbox)
      */
     @PostMapping("/payos/webhook")
     public ResponseEntity<String> handlePayOSWebhook(@RequestBody ObjectNode webhookBody) {
         try {
-            paymentService.handlePayOSWebhook(webhookBody);
+            // Chỉ xác thực chữ ký + ghi inbox rồi trả lời ngay, phần cập nhật chạy nền
+            payOSWebhookInboxService.receive(webhookBody);
             return ResponseEntity.ok("Webhook received");
         } catch (Exception e) {
             e.printStackTrace();
@@ -127,6 +142,44 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Tìm kiếm thanh toán có phân trang, các bộ lọc có thể kết hợp
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAuthority('READ_PAYMENT')")
+    public ResponseEntity<Map<String, Object>> searchPayments(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String method,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            if (page < 0) page = 0;
+            if (size <= 0) size = 20;
+            if (size > 100) size = 100;
+
+            LocalDateTime fromDate = (from != null) ? from.atStartOfDay() : null;
+            LocalDateTime toDate = (to != null) ? to.atTime(LocalTime.MAX) : null;
+            if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            }
+
+            Page<PaymentDTO> result = paymentService.searchPayments(status, method, fromDate, toDate, page, size);
+            Map<String, Object> body = new HashMap<>();
+            body.put("content", result.getContent());
+            body.put("page", page);
+            body.put("pageSize", size);
+            body.put("totalItems", result.getTotalElements());
+            body.put("totalPages", result.getTotalPages());
+            return ResponseEntity.ok(body);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping
     @PreAuthorize("hasAuthority('CREATE_PAYMENT')")
     public ResponseEntity<PaymentDTO> createPayment(@RequestBody PaymentCreateRequest request) {
@@ -166,6 +219,23 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Chạy ngay một lượt đối soát các thanh toán PayOS còn Pending với PayOS
+     */
+    @PostMapping("/payos/reconcile")
+    @PreAuthorize("hasAuthority('UPDATE_PAYMENT')")
+    public ResponseEntity<ReconciliationResultDTO> reconcilePayOSPayments() {
+        try {
+            ReconciliationResultDTO result = paymentReconciliationService.reconcile();
+            if (result == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build(); // đang có lượt khác chạy
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PatchMapping("/{id}/status")
     @PreAuthorize("hasAuthority('UPDATE_PAYMENT')")
     public ResponseEntity<PaymentDTO> updatePaymentStatus(@PathVariable Integer id, @RequestBody Map<String, String> request) {
@@ -216,6 +286,29 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Chuỗi doanh thu cho biểu đồ: granularity = hour | day | week | month.
+     * Mặc định: theo giờ của ngày hôm nay.
+     */
+    @GetMapping("/revenue-series")
+    @PreAuthorize("hasAuthority('READ_PAYMENT')")
+    public ResponseEntity<List<RevenueSeriesPointDTO>> getRevenueSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "hour") String granularity) {
+        try {
+            LocalDateTime fromDate = (from != null) ? from : LocalDate.now().atStartOfDay();
+            LocalDateTime toDate = (to != null) ? to : LocalDate.now().atTime(LocalTime.MAX);
+
+            List<RevenueSeriesPointDTO> series = revenueSeriesService.getRevenueSeries(fromDate, toDate, granularity);
+            return ResponseEntity.ok(series);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/payment-method-distribution")
     @PreAuthorize("hasAuthority('READ_PAYMENT')")
     public ResponseEntity<List<PaymentMethodDistributionDTO>> getPaymentMethodDistribution(
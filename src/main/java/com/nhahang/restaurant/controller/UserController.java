@@ -1,21 +1,34 @@
 package com.nhahang.restaurant.controller;
 import com.nhahang.restaurant.dto.UserCreateRequest;
 import com.nhahang.restaurant.dto.UserDTO;
+import com.nhahang.restaurant.dto.UserImportResultDTO;
 import com.nhahang.restaurant.dto.UserUpdateRequest;
+import com.nhahang.restaurant.service.UserImportService;
 import com.nhahang.restaurant.service.UserService;
+import com.nhahang.restaurant.service.UserTypeaheadService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final UserTypeaheadService userTypeaheadService;
+    private final UserImportService userImportService;
     
     // --- API 0: LẤY THÔNG TIN NGƯỜI DÙNG HIỆN TẠI ---
     @GetMapping("/me")
@@ -111,6 +124,100 @@ public class UserController {
         }
     }
 
+    // --- API 6b: TÌM NGƯỜI DÙNG CÓ PHÂN TRANG (THEO ROLE / NGÀY TẠO) ---
+    @GetMapping("/search")
+     @PreAuthorize("hasAuthority('READ_USER')")
+    public ResponseEntity<Map<String, Object>> searchUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            if (page < 0) page = 0;
+            if (size <= 0) size = 20;
+            if (size > 100) size = 100;
+
+            LocalDateTime fromDate = (from != null) ? from.atStartOfDay() : null;
+            LocalDateTime toDate = (to != null) ? to.atTime(LocalTime.MAX) : null;
+            if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            }
+
+            Page<UserDTO> result = userService.searchUsers(role, fromDate, toDate, page, size);
+            Map<String, Object> body = new HashMap<>();
+            body.put("content", result.getContent());
+            body.put("page", page);
+            body.put("pageSize", size);
+            body.put("totalItems", result.getTotalElements());
+            body.put("totalPages", result.getTotalPages());
+            return ResponseEntity.ok(body);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // --- API 6c: GỢI Ý NGƯỜI DÙNG THEO TIỀN TỐ SỐ ĐIỆN THOẠI / EMAIL ---
+    @GetMapping("/typeahead")
+     @PreAuthorize("hasAuthority('READ_USER')")
+    public ResponseEntity<List<UserDTO>> typeahead(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(userTypeaheadService.search(query, limit));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // --- API 6d: KÍCH THƯỚC / BỘ NHỚ CỦA CHỈ MỤC GỢI Ý ---
+    @GetMapping("/typeahead/stats")
+     @PreAuthorize("hasAuthority('READ_USER')")
+    public ResponseEntity<Map<String, Object>> typeaheadStats() {
+        return ResponseEntity.ok(userTypeaheadService.getStats());
+    }
+
+    // --- API 6e: IMPORT KHÁCH HÀNG HÀNG LOẠT (CSV / NDJSON) ---
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "text/plain"})
+     @PreAuthorize("hasAuthority('UPDATE_USER')")
+    public ResponseEntity<?> importUsers(
+            HttpServletRequest request,
+            @RequestParam(value = "format", required = false) String format) {
+        try {
+            UserImportService.Format importFormat = format != null
+                    ? UserImportService.Format.fromString(format)
+                    : (request.getContentType() != null && request.getContentType().contains("ndjson")
+                            ? UserImportService.Format.NDJSON : UserImportService.Format.CSV);
+            UserImportResultDTO result = userImportService.importUsers(request.getInputStream(), importFormat);
+            return "FAILED".equals(result.getStatus())
+                    ? ResponseEntity.badRequest().body(result)
+                    : ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // --- API 6f: TIẾN ĐỘ CÁC LƯỢT IMPORT ---
+    @GetMapping("/import")
+     @PreAuthorize("hasAuthority('UPDATE_USER')")
+    public ResponseEntity<List<UserImportResultDTO>> getRecentImports() {
+        return ResponseEntity.ok(userImportService.getRecentImports());
+    }
+
+    @GetMapping("/import/{importId}")
+     @PreAuthorize("hasAuthority('UPDATE_USER')")
+    public ResponseEntity<UserImportResultDTO> getImport(@PathVariable String importId) {
+        try {
+            return ResponseEntity.ok(userImportService.getImport(importId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     // --- API 7: TẠO NGƯỜI DÙNG MỚI ---
     @PostMapping
     public ResponseEntity<?> createUser(@RequestBody UserCreateRequest request) {
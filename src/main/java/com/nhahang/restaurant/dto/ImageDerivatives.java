@@ -0,0 +1,16 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageDerivatives {
+    private String contentHash;
+    private String imageUrl;       // Bản lớn nhất (thay cho ảnh gốc)
+    private String imageSmallUrl;  // Thumbnail cho danh sách
+    private String imageMediumUrl; // Ảnh cho trang chi tiết trên mobile
+    private String imageLargeUrl;
+}
@@ -0,0 +1,21 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuPriceReportDTO {
+    private Integer menuItemId;
+    private String menuItemName;
+    private Long quantitySold;
+    private BigDecimal actualRevenue;     // Theo priceAtOrder
+    private BigDecimal priceAtStart;      // Giá niêm yết tại thời điểm đầu kỳ
+    private BigDecimal priceAtEnd;        // Giá niêm yết tại thời điểm cuối kỳ
+    private BigDecimal revenueAtEndPrice; // Doanh thu nếu bán cả kỳ với giá cuối kỳ
+    private Integer priceChanges;         // Số lần đổi giá trong kỳ
+}
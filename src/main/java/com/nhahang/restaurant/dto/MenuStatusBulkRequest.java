@@ -0,0 +1,16 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuStatusBulkRequest {
+    private List<Integer> ids;  // Danh sách món cần đổi trạng thái
+    private Integer categoryId; // Hoặc đổi cả một Category (dùng khi không có ids)
+    private String status;      // "Available", "Unavailable"
+}
@@ -1,5 +1,7 @@
 package com.nhahang.restaurant.dto;
 
+import com.nhahang.restaurant.model.PaymentMethod;
+import com.nhahang.restaurant.model.PaymentStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,4 +20,13 @@ public class PaymentDTO {
     private String status;
     private String transactionId;
     private LocalDateTime paymentTime;
+
+    // Dùng cho JPQL constructor expression (đọc thẳng DTO, không tải entity)
+    public PaymentDTO(Integer id, Integer orderId, BigDecimal amount, PaymentMethod paymentMethod,
+                      PaymentStatus status, String transactionId, LocalDateTime paymentTime) {
+        this(id, orderId, amount,
+                paymentMethod != null ? paymentMethod.name() : null,
+                status != null ? status.name() : null,
+                transactionId, paymentTime);
+    }
 }
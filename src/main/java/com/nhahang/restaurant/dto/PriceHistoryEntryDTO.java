@@ -0,0 +1,17 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceHistoryEntryDTO {
+    private Integer menuItemId;
+    private BigDecimal price;
+    private LocalDateTime effectiveFrom;
+}
@@ -0,0 +1,25 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationResultDTO {
+    private LocalDateTime startedAt;
+    private Long durationMs;
+
+    // Số thanh toán Pending đã đối soát và kết quả
+    private Integer scanned;
+    private Integer confirmed;
+    private Integer failed;
+    private Integer stillPending;
+    private Integer errors;
+
+    private Double throughputPerSecond;
+    private Boolean aborted; // dừng sớm vì PayOS không khả dụng
+}
@@ -0,0 +1,17 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueSeriesPointDTO {
+    private LocalDateTime bucketStart;
+    private Long transactionCount;
+    private BigDecimal revenue;
+}
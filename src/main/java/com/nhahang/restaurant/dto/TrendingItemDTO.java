@@ -0,0 +1,20 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingItemDTO {
+    private Integer menuItemId;
+    private String menuItemName;
+    private String imageUrl;
+    private BigDecimal price;
+    private String categoryName;
+    private String window;
+    private Long estimatedQuantity; // Ước lượng từ sketch, có thể cao hơn thực tế một chút
+}
@@ -1,5 +1,6 @@
 package com.nhahang.restaurant.dto;
 
+import com.nhahang.restaurant.model.RoleName;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,4 +19,12 @@ public class UserDTO {
     private String roleName;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    // Dùng cho JPQL constructor expression (đọc thẳng DTO, không tải entity)
+    public UserDTO(Integer id, String uid, String fullName, String email, String phoneNumber,
+                   RoleName roleName, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, uid, fullName, email, phoneNumber,
+                roleName != null ? roleName.name() : null,
+                createdAt, updatedAt);
+    }
 }
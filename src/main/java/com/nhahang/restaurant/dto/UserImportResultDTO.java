@@ -0,0 +1,37 @@
+package com.nhahang.restaurant.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDTO {
+    private String importId;
+    private String status; // RUNNING, COMPLETED, FAILED
+    private LocalDateTime startedAt;
+    private Long durationMs;
+
+    private Integer processedRows;
+    private Integer imported;
+    private Integer failed;
+    private Double rowsPerSecond;
+
+    // Chỉ giữ tối đa một số lỗi đầu tiên, errorsTruncated = true nếu còn lỗi bị lược bớt
+    private List<RowError> errors;
+    private Boolean errorsTruncated;
+    private String message;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private Integer line;
+        private String uid;
+        private String message;
+    }
+}
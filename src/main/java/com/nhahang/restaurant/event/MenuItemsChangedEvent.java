@@ -0,0 +1,11 @@
+package com.nhahang.restaurant.event;
+
+import java.util.Collection;
+
+/**
+ * Phát ra một lần cho mỗi thao tác cập nhật hàng loạt món ăn, để các cache menu
+ * và phần kiểm tra món khi tạo đơn làm mới dữ liệu.
+ * {@code menuItemIds} rỗng và {@code categoryId} khác null nghĩa là cả Category.
+ */
+public record MenuItemsChangedEvent(Collection<Integer> menuItemIds, Integer categoryId) {
+}
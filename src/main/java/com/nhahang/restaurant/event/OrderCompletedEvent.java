@@ -0,0 +1,7 @@
+package com.nhahang.restaurant.event;
+
+/**
+ * Phát ra (trong transaction) khi một đơn hàng chuyển sang trạng thái Completed
+ */
+public record OrderCompletedEvent(Integer orderId) {
+}
@@ -0,0 +1,5 @@
+package com.nhahang.restaurant.model;
+
+public enum WebhookInboxStatus {
+    Pending, Processed, Failed
+}
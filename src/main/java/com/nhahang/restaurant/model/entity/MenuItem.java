@@ -1,4 +1,5 @@
 package com.nhahang.restaurant.model.entity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.nhahang.restaurant.model.MenuItemStatus;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -21,6 +22,21 @@ public class MenuItem {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Các bản ảnh đã resize sẵn (thumbnail/medium/large)
+    @Column(name = "image_small_url")
+    private String imageSmallUrl;
+
+    @Column(name = "image_medium_url")
+    private String imageMediumUrl;
+
+    @Column(name = "image_large_url")
+    private String imageLargeUrl;
+
+    // SHA-256 của ảnh gốc, dùng để bỏ qua upload lại cùng một ảnh
+    @Column(name = "image_hash", length = 64)
+    @JsonIgnore
+    private String imageHash;
+
     @Column(nullable = false)
     private BigDecimal price; // Dùng BigDecimal cho tiền tệ
 
@@ -0,0 +1,30 @@
+package com.nhahang.restaurant.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lịch sử giá món ăn, chỉ ghi thêm (append-only), không sửa/xóa
+ */
+@Entity
+@Table(name = "menu_item_price_history",
+       indexes = @Index(name = "idx_price_history_item_time", columnList = "menu_item_id, effective_from"))
+@Data
+public class MenuItemPriceHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "menu_item_id", nullable = false, updatable = false)
+    private Integer menuItemId;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal price;
+
+    @Column(name = "effective_from", nullable = false, updatable = false)
+    private LocalDateTime effectiveFrom;
+}
@@ -0,0 +1,28 @@
+package com.nhahang.restaurant.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "menu_item_sales_stats")
+@Data
+public class MenuItemSalesStat {
+
+    @Id
+    @Column(name = "menu_item_id")
+    private Integer menuItemId;
+
+    @Column(name = "total_quantity", nullable = false)
+    private long totalQuantity;
+
+    @Column(name = "total_revenue", nullable = false)
+    private BigDecimal totalRevenue;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -5,6 +5,7 @@ import com.nhahang.restaurant.model.OrderType;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,6 +14,15 @@ import java.util.List;
 @Entity
 @Table(name = "orders")
 @Data
+// Chỉ ghi các cột đã đổi: trạng thái Completed được ghi bằng UPDATE có điều kiện, object cũ không ghi đè cả dòng
+@DynamicUpdate
+// Đủ dữ liệu dựng OrderDTO (user, bàn, thanh toán, món) trong một câu select, dùng cho các API trả danh sách đơn
+@NamedEntityGraph(name = "Order.details", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("table"),
+        @NamedAttributeNode("payment"),
+        @NamedAttributeNode(value = "orderItems", subgraph = "orderItems")
+}, subgraphs = @NamedSubgraph(name = "orderItems", attributeNodes = @NamedAttributeNode("menuItem")))
 public class Order {
 
     @Id
@@ -6,13 +6,19 @@ import com.nhahang.restaurant.model.PaymentStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payments_status_time", columnList = "status, payment_time"),
+    @Index(name = "idx_payments_method_time", columnList = "payment_method, payment_time")
+})
 @Data
+// Chỉ ghi các cột đã đổi: object nạp trước khi luồng khác xác nhận không ghi đè transaction_id mới bằng giá trị cũ
+@DynamicUpdate
 public class Payment {
 
     @Id
@@ -41,4 +47,8 @@ public class Payment {
     @CreationTimestamp
     @Column(name = "payment_time", updatable = false)
     private LocalDateTime paymentTime;
+
+    // Lần gần nhất dựng link PayOS mới cho thanh toán này; đối soát tính "treo" từ mốc này
+    @Column(name = "link_created_at")
+    private LocalDateTime linkCreatedAt;
 }
\ No newline at end of file
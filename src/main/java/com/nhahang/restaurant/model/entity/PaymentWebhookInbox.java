@@ -0,0 +1,55 @@
+package com.nhahang.restaurant.model.entity;
+
+import com.nhahang.restaurant.model.WebhookInboxStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hộp thư webhook PayOS: webhook đã xác thực chữ ký được lưu tại đây
+ * rồi mới xử lý bất đồng bộ. Cặp (order_code, transaction_id) là duy nhất để chống trùng.
+ */
+@Entity
+@Table(name = "payment_webhook_inbox",
+       uniqueConstraints = @UniqueConstraint(name = "uk_webhook_inbox_order_txn", columnNames = {"order_code", "transaction_id"}),
+       indexes = @Index(name = "idx_webhook_inbox_status", columnList = "status, next_attempt_at"))
+@Data
+public class PaymentWebhookInbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_code", nullable = false)
+    private Long orderCode;
+
+    @Column(name = "transaction_id", nullable = false)
+    private String transactionId;
+
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookInboxStatus status; // ENUM('Pending', 'Processed', 'Failed')
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "received_at", updatable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    // Lần thử lại sớm nhất sau khi xử lý lỗi; null nghĩa là xử lý được ngay
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+}
@@ -0,0 +1,26 @@
+package com.nhahang.restaurant.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Doanh thu đã cộng dồn theo từng giờ (theo payment_time của thanh toán thành công)
+ */
+@Entity
+@Table(name = "revenue_hourly_buckets")
+@Data
+public class RevenueHourlyBucket {
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+}
@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.util.Set;
 
 @Entity
@@ -22,12 +24,15 @@ public class Role {
     @Column(name = "role_name", nullable = false)
     private RoleName roleName; 
 
-    @ManyToMany(fetch = FetchType.EAGER) 
+    // Quyền của role được nạp sẵn vào RoleAuthorityTable, không cần tải kèm mỗi lần đọc User
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "role_permissions", 
         joinColumns = @JoinColumn(name = "role_id"), 
         inverseJoinColumns = @JoinColumn(name = "permission_id")
     )
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<Permission> permissions;
 }
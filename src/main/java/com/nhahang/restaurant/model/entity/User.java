@@ -10,7 +10,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_role_created", columnList = "role_id, created_at"),
+    @Index(name = "idx_users_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 public class User {
@@ -2,18 +2,27 @@ package com.nhahang.restaurant.repository;
 
 import com.nhahang.restaurant.model.BookingStatus;
 import com.nhahang.restaurant.model.entity.Booking;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Integer> {
+    // API trả thẳng entity Booking (kèm user, role, bàn): nạp cùng lúc thay vì mỗi user/bàn một câu select
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.role", "table"})
+    List<Booking> findAll();
+    @EntityGraph(attributePaths = {"user", "user.role", "table"})
     List<Booking> findByUserId(Integer userId);
+    @EntityGraph(attributePaths = {"user", "user.role", "table"})
     List<Booking> findByTableId(Integer tableId);
+    @EntityGraph(attributePaths = {"user", "user.role", "table"})
     List<Booking> findByUserPhoneNumber(String phoneNumber);
 
     @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b " +
@@ -27,11 +36,12 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
             @Param("endTime") LocalDateTime endTime
     );
 
-    @Query("SELECT b FROM Booking b " +
+    // Chỉ cần id bàn: không nạp Booking (và user/bàn EAGER của từng booking)
+    @Query("SELECT DISTINCT b.table.id FROM Booking b " +
            "WHERE b.status IN (com.nhahang.restaurant.model.BookingStatus.Confirmed, com.nhahang.restaurant.model.BookingStatus.Pending) " +
            "AND b.bookingTime > :startTime " +
            "AND b.bookingTime < :endTime")
-    List<Booking> findConflictingBookings(
+    List<Integer> findConflictingTableIds(
             @Param("startTime") LocalDateTime startTime, 
             @Param("endTime") LocalDateTime endTime
     );
@@ -48,6 +58,18 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
             @Param("endTime") LocalDateTime endTime
     );
 
+    // [orderId, bookingTime]: booking muộn nhất của cùng khách tại cùng bàn trong ±hours giờ quanh lúc tạo từng đơn.
+    // Ghép theo từng cặp (bàn, giờ đơn) ngay trong DB nên chỉ đọc booking của đúng các đơn được hỏi
+    @Query("SELECT o.id, MAX(b.bookingTime) FROM Order o JOIN Booking b " +
+           "ON b.user = o.user AND b.table = o.table " +
+           "WHERE o.id IN (:orderIds) " +
+           "AND b.bookingTime BETWEEN o.createdAt - (:hours) hour AND o.createdAt + (:hours) hour " +
+           "GROUP BY o.id")
+    List<Object[]> findLatestBookingTimesForOrders(
+            @Param("orderIds") Collection<Integer> orderIds,
+            @Param("hours") long hours
+    );
+
     @Query("SELECT b FROM Booking b WHERE b.status IN (:statuses) AND b.bookingTime < :threshold")
     List<Booking> findOverdueBookings(
         @Param("statuses") List<BookingStatus> statuses, 
@@ -0,0 +1,15 @@
+package com.nhahang.restaurant.repository;
+
+import com.nhahang.restaurant.model.entity.MenuItemPriceHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MenuItemPriceHistoryRepository extends JpaRepository<MenuItemPriceHistory, Long> {
+
+    @Query("SELECT h FROM MenuItemPriceHistory h ORDER BY h.menuItemId, h.effectiveFrom, h.id")
+    List<MenuItemPriceHistory> findAllOrdered();
+}
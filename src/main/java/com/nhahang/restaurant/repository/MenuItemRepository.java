@@ -2,21 +2,60 @@ package com.nhahang.restaurant.repository;
 import com.nhahang.restaurant.model.entity.MenuItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MenuItemRepository extends JpaRepository<MenuItem, Integer> {
 
+    // Món được trả kèm danh mục: nạp cùng câu select thay vì mỗi danh mục một câu
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<MenuItem> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<MenuItem> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<MenuItem> findAllById(Iterable<Integer> ids);
+
+    @EntityGraph(attributePaths = "category")
     List<MenuItem> findByCategoryId(Integer categoryId);
 
+    @EntityGraph(attributePaths = "category")
     List<MenuItem> findByStatus(com.nhahang.restaurant.model.MenuItemStatus status);
 
+    @EntityGraph(attributePaths = "category")
     Page<MenuItem> findByStatus(com.nhahang.restaurant.model.MenuItemStatus status, Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
     Page<MenuItem> findByCategoryId(Integer categoryId, Pageable pageable);
     
     long countByStatus(com.nhahang.restaurant.model.MenuItemStatus status);
+
+    Optional<MenuItem> findFirstByImageHashAndImageSmallUrlIsNotNull(String imageHash);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MenuItem m SET m.status = :status WHERE m.id IN :ids")
+    int updateStatusByIds(
+            @Param("ids") Collection<Integer> ids,
+            @Param("status") com.nhahang.restaurant.model.MenuItemStatus status
+    );
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MenuItem m SET m.status = :status WHERE m.category.id = :categoryId")
+    int updateStatusByCategoryId(
+            @Param("categoryId") Integer categoryId,
+            @Param("status") com.nhahang.restaurant.model.MenuItemStatus status
+    );
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.nhahang.restaurant.repository;
+
+import com.nhahang.restaurant.model.entity.MenuItemSalesStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface MenuItemSalesStatRepository extends JpaRepository<MenuItemSalesStat, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT INTO menu_item_sales_stats (menu_item_id, total_quantity, total_revenue, updated_at) " +
+                   "VALUES (:menuItemId, :quantity, :revenue, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE total_quantity = total_quantity + :quantity, " +
+                   "total_revenue = total_revenue + :revenue, updated_at = NOW()",
+           nativeQuery = true)
+    void increment(
+            @Param("menuItemId") Integer menuItemId,
+            @Param("quantity") long quantity,
+            @Param("revenue") BigDecimal revenue
+    );
+
+    /**
+     * Dựng bộ đếm từ order_items của các đơn Completed ngay trong DB (một câu INSERT ... SELECT ... GROUP BY)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO menu_item_sales_stats (menu_item_id, total_quantity, total_revenue, updated_at) " +
+                   "SELECT oi.menu_item_id, SUM(oi.quantity), SUM(oi.quantity * oi.price_at_order), NOW() " +
+                   "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                   "WHERE o.status = 'Completed' AND oi.menu_item_id IS NOT NULL " +
+                   "GROUP BY oi.menu_item_id",
+           nativeQuery = true)
+    int insertFromCompletedOrders();
+}
@@ -4,8 +4,10 @@ import com.nhahang.restaurant.model.entity.OrderItem;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -25,4 +27,20 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
            "oi.menuItem.imageUrl, oi.menuItem.price, oi.menuItem.category.name " +
            "ORDER BY SUM(oi.quantity) DESC")
     List<Object[]> findBestSellingItems(Pageable pageable);
+
+    // [menuItemId, quantity, createdAt] của các đơn Completed từ thời điểm since, dùng để dựng lại trending
+    @Query("SELECT oi.menuItem.id, oi.quantity, oi.order.createdAt " +
+           "FROM OrderItem oi " +
+           "WHERE oi.order.status = 'Completed' AND oi.order.createdAt >= :since")
+    List<Object[]> findCompletedSalesSince(@Param("since") LocalDateTime since);
+
+    // [menuItemId, menuItemName, totalQuantity, totalRevenue] của các đơn Completed trong khoảng thời gian
+    @Query("SELECT oi.menuItem.id, oi.menuItem.name, SUM(oi.quantity), SUM(oi.quantity * oi.priceAtOrder) " +
+           "FROM OrderItem oi " +
+           "WHERE oi.order.status = 'Completed' AND oi.order.createdAt BETWEEN :fromDate AND :toDate " +
+           "GROUP BY oi.menuItem.id, oi.menuItem.name")
+    List<Object[]> sumCompletedSalesByMenuItemBetween(
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate
+    );
 }
\ No newline at end of file
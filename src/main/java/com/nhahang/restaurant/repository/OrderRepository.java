@@ -2,20 +2,44 @@ package com.nhahang.restaurant.repository;
 
 import com.nhahang.restaurant.model.OrderStatus;
 import com.nhahang.restaurant.model.entity.Order;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
 
+    // Các truy vấn danh sách đơn nạp kèm graph "Order.details" để dựng DTO không phát sinh N+1
+    @EntityGraph("Order.details")
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithDetails();
+
+    @EntityGraph("Order.details")
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findWithDetailsById(@Param("id") Integer id);
+
+    /**
+     * Chuyển đơn sang Completed có điều kiện: xác nhận thanh toán và cập nhật trạng thái tay có thể chạy
+     * song song trên cùng đơn, chỉ một bên nhận 1 và được phát OrderCompletedEvent
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.nhahang.restaurant.model.OrderStatus.Completed " +
+           "WHERE o.id = :id AND o.status <> com.nhahang.restaurant.model.OrderStatus.Completed")
+    int markCompletedIfNot(@Param("id") Integer id);
+
+    @EntityGraph("Order.details")
     List<Order> findByStatus(OrderStatus status);
+    @EntityGraph("Order.details")
     List<Order> findByUserId(Integer userId);
     List<Order> findByStatus(String status);
+    @EntityGraph("Order.details")
     List<Order> findByTableId(Integer tableId);
 
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
@@ -24,9 +48,19 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
             @Param("endDate") LocalDateTime endDate
     );
 
+    // [status, COUNT, SUM(totalAmount)] của các đơn tạo trong khoảng, một câu GROUP BY
+    @Query("SELECT o.status, COUNT(o), SUM(o.totalAmount) FROM Order o " +
+           "WHERE o.createdAt BETWEEN :startDate AND :endDate GROUP BY o.status")
+    List<Object[]> countAndSumByStatus(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate
+    );
+
+    @EntityGraph("Order.details")
     @Query("SELECT o FROM Order o WHERE o.user.email = :email")
     List<Order> findByUserEmail(@Param("email") String email);
 
+    @EntityGraph("Order.details")
     @Query("SELECT o FROM Order o WHERE o.user.phoneNumber = :phoneNumber")
     List<Order> findByUserPhoneNumber(@Param("phoneNumber") String phoneNumber);
 
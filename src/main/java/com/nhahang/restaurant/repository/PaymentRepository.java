@@ -1,8 +1,13 @@
 package com.nhahang.restaurant.repository;
 
+import com.nhahang.restaurant.dto.PaymentDTO;
+import com.nhahang.restaurant.model.PaymentMethod;
 import com.nhahang.restaurant.model.PaymentStatus;
 import com.nhahang.restaurant.model.entity.Payment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,11 +20,85 @@ import java.util.Optional;
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     
     Optional<Payment> findByOrderId(Integer orderId);
+
+    boolean existsByOrderId(Integer orderId);
+
+    /**
+     * Chuyển thanh toán sang Successful có điều kiện: khi nhiều luồng (webhook, đối soát, xác nhận tay)
+     * cùng đổi một thanh toán, câu UPDATE sau chờ khóa dòng rồi thấy đã Successful và trả về 0.
+     * transactionId null thì giữ mã giao dịch cũ.
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.nhahang.restaurant.model.PaymentStatus.Successful, " +
+           "p.transactionId = COALESCE(:transactionId, p.transactionId) " +
+           "WHERE p.id = :id AND p.status <> com.nhahang.restaurant.model.PaymentStatus.Successful")
+    int markSuccessfulIfNot(@Param("id") Integer id, @Param("transactionId") String transactionId);
+
+    @Query("SELECT new com.nhahang.restaurant.dto.PaymentDTO(p.id, p.order.id, p.amount, p.paymentMethod, " +
+           "p.status, p.transactionId, p.paymentTime) FROM Payment p WHERE p.order.id = :orderId")
+    Optional<PaymentDTO> findDtoByOrderId(@Param("orderId") Integer orderId);
     
+    // [paymentMethod, COUNT, SUM(amount)] theo từng phương thức, một lần quét index (status, payment_time)
+    @Query("SELECT p.paymentMethod, COUNT(p), SUM(p.amount) FROM Payment p " +
+           "WHERE p.status = :status AND p.paymentTime BETWEEN :fromDate AND :toDate " +
+           "GROUP BY p.paymentMethod")
+    List<Object[]> sumByPaymentMethod(
+            @Param("status") PaymentStatus status,
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate
+    );
+
     @Query("SELECT p FROM Payment p WHERE p.status = :status AND p.paymentTime BETWEEN :fromDate AND :toDate")
     List<Payment> findByStatusAndPaymentTimeBetween(
             @Param("status") PaymentStatus status,
             @Param("fromDate") LocalDateTime fromDate,
             @Param("toDate") LocalDateTime toDate
     );
-}
\ No newline at end of file
+
+    // Lọc kết hợp (tham số null = bỏ qua điều kiện), chạy trên index (status|method, payment_time)
+    @Query(value = "SELECT new com.nhahang.restaurant.dto.PaymentDTO(p.id, p.order.id, p.amount, p.paymentMethod, " +
+                   "p.status, p.transactionId, p.paymentTime) FROM Payment p " +
+                   "WHERE (:status IS NULL OR p.status = :status) " +
+                   "AND (:method IS NULL OR p.paymentMethod = :method) " +
+                   "AND (:fromDate IS NULL OR p.paymentTime >= :fromDate) " +
+                   "AND (:toDate IS NULL OR p.paymentTime <= :toDate)",
+           countQuery = "SELECT COUNT(p) FROM Payment p " +
+                   "WHERE (:status IS NULL OR p.status = :status) " +
+                   "AND (:method IS NULL OR p.paymentMethod = :method) " +
+                   "AND (:fromDate IS NULL OR p.paymentTime >= :fromDate) " +
+                   "AND (:toDate IS NULL OR p.paymentTime <= :toDate)")
+    Page<PaymentDTO> searchDtos(
+            @Param("status") PaymentStatus status,
+            @Param("method") PaymentMethod method,
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate,
+            Pageable pageable
+    );
+
+    // Danh sách đầy đủ dựng thẳng DTO: không nạp Payment rồi kéo theo Order của từng dòng
+    @Query("SELECT new com.nhahang.restaurant.dto.PaymentDTO(p.id, p.order.id, p.amount, p.paymentMethod, " +
+           "p.status, p.transactionId, p.paymentTime) FROM Payment p ORDER BY p.id")
+    List<PaymentDTO> findAllDtos();
+
+    @Query("SELECT new com.nhahang.restaurant.dto.PaymentDTO(p.id, p.order.id, p.amount, p.paymentMethod, " +
+           "p.status, p.transactionId, p.paymentTime) FROM Payment p WHERE p.status = :status ORDER BY p.paymentTime DESC")
+    List<PaymentDTO> findDtosByStatus(@Param("status") PaymentStatus status);
+
+    @Query("SELECT new com.nhahang.restaurant.dto.PaymentDTO(p.id, p.order.id, p.amount, p.paymentMethod, " +
+           "p.status, p.transactionId, p.paymentTime) FROM Payment p WHERE p.paymentMethod = :method ORDER BY p.paymentTime DESC")
+    List<PaymentDTO> findDtosByPaymentMethod(@Param("method") PaymentMethod method);
+
+    // Keyset theo id: lấy lô kế tiếp sau lastId, không dùng OFFSET nên mỗi lô đều rẻ như nhau.
+    // "Treo" tính từ lần dựng link gần nhất; dòng cũ chưa có link_created_at thì dùng payment_time
+    @Query("SELECT new com.nhahang.restaurant.dto.PaymentDTO(p.id, p.order.id, p.amount, p.paymentMethod, " +
+           "p.status, p.transactionId, p.paymentTime) FROM Payment p " +
+           "WHERE p.status = :status AND p.paymentMethod = :method " +
+           "AND COALESCE(p.linkCreatedAt, p.paymentTime) < :before AND p.id > :lastId ORDER BY p.id")
+    List<PaymentDTO> findDtosForReconciliation(
+            @Param("status") PaymentStatus status,
+            @Param("method") PaymentMethod method,
+            @Param("before") LocalDateTime before,
+            @Param("lastId") Integer lastId,
+            Pageable pageable
+    );
+}
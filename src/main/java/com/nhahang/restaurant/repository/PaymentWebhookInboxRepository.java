@@ -0,0 +1,27 @@
+package com.nhahang.restaurant.repository;
+
+import com.nhahang.restaurant.model.WebhookInboxStatus;
+import com.nhahang.restaurant.model.entity.PaymentWebhookInbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaymentWebhookInboxRepository extends JpaRepository<PaymentWebhookInbox, Long> {
+
+    boolean existsByOrderCodeAndTransactionId(Long orderCode, String transactionId);
+
+    // Chỉ lấy các dòng đã tới hạn thử lại, dòng đang chờ backoff để lượt quét sau
+    @Query("SELECT e FROM PaymentWebhookInbox e WHERE e.status = :status " +
+           "AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now) ORDER BY e.id")
+    List<PaymentWebhookInbox> findDueByStatus(@Param("status") WebhookInboxStatus status,
+                                              @Param("now") LocalDateTime now,
+                                              Pageable pageable);
+
+    long countByStatus(WebhookInboxStatus status);
+}
@@ -0,0 +1,45 @@
+package com.nhahang.restaurant.repository;
+
+import com.nhahang.restaurant.model.entity.RevenueHourlyBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevenueHourlyBucketRepository extends JpaRepository<RevenueHourlyBucket, LocalDateTime> {
+
+    @Modifying
+    @Query(value = "INSERT INTO revenue_hourly_buckets (bucket_start, transaction_count, total_amount) " +
+                   "VALUES (:bucketStart, :count, :amount) " +
+                   "ON DUPLICATE KEY UPDATE transaction_count = transaction_count + :count, " +
+                   "total_amount = total_amount + :amount",
+           nativeQuery = true)
+    void increment(
+            @Param("bucketStart") LocalDateTime bucketStart,
+            @Param("count") long count,
+            @Param("amount") BigDecimal amount
+    );
+
+    /**
+     * Dựng bucket từ các thanh toán sẵn có ngay trong DB (một câu INSERT ... SELECT ... GROUP BY giờ).
+     * Giờ được tính bằng TIMESTAMPADD/TIMESTAMPDIFF từ mốc 1970 để chạy được cả trên MySQL lẫn H2.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revenue_hourly_buckets (bucket_start, transaction_count, total_amount) " +
+                   "SELECT h.bucket_start, COUNT(*), SUM(h.amount) FROM (" +
+                   "SELECT TIMESTAMPADD(HOUR, TIMESTAMPDIFF(HOUR, TIMESTAMP '1970-01-01 00:00:00', payment_time), " +
+                   "TIMESTAMP '1970-01-01 00:00:00') AS bucket_start, amount " +
+                   "FROM payments WHERE status = :status AND payment_time IS NOT NULL) h " +
+                   "GROUP BY h.bucket_start",
+           nativeQuery = true)
+    int insertFromPayments(@Param("status") String status);
+
+    // Quét theo khóa chính bucket_start, 90 ngày chỉ khoảng 2160 dòng
+    List<RevenueHourlyBucket> findByBucketStartBetweenOrderByBucketStartAsc(LocalDateTime from, LocalDateTime to);
+}
@@ -1,8 +1,17 @@
 package com.nhahang.restaurant.repository;
+import com.nhahang.restaurant.dto.UserDTO;
+import com.nhahang.restaurant.model.RoleName;
 import com.nhahang.restaurant.model.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +26,41 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     Boolean existsByEmail(String email);
 
     Boolean existsByPhoneNumber(String phoneNumber);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.nhahang.restaurant.dto.UserDTO(u.id, u.uid, u.fullName, u.email, u.phoneNumber, " +
+           "r.roleName, u.createdAt, u.updatedAt) FROM User u LEFT JOIN u.role r ORDER BY u.id")
+    List<UserDTO> findAllDtos();
+
+    @Query("SELECT new com.nhahang.restaurant.dto.UserDTO(u.id, u.uid, u.fullName, u.email, u.phoneNumber, " +
+           "r.roleName, u.createdAt, u.updatedAt) FROM User u JOIN u.role r WHERE r.roleName = :roleName ORDER BY u.id")
+    List<UserDTO> findDtosByRoleName(@Param("roleName") RoleName roleName);
+
+    // Lọc kết hợp (tham số null = bỏ qua điều kiện), chạy trên index (role_id, created_at) / (created_at)
+    @Query(value = "SELECT new com.nhahang.restaurant.dto.UserDTO(u.id, u.uid, u.fullName, u.email, u.phoneNumber, " +
+                   "r.roleName, u.createdAt, u.updatedAt) FROM User u LEFT JOIN u.role r " +
+                   "WHERE (:roleName IS NULL OR r.roleName = :roleName) " +
+                   "AND (:fromDate IS NULL OR u.createdAt >= :fromDate) " +
+                   "AND (:toDate IS NULL OR u.createdAt <= :toDate)",
+           countQuery = "SELECT COUNT(u) FROM User u LEFT JOIN u.role r " +
+                   "WHERE (:roleName IS NULL OR r.roleName = :roleName) " +
+                   "AND (:fromDate IS NULL OR u.createdAt >= :fromDate) " +
+                   "AND (:toDate IS NULL OR u.createdAt <= :toDate)")
+    Page<UserDTO> searchDtos(
+            @Param("roleName") RoleName roleName,
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate,
+            Pageable pageable
+    );
+
+    @Query("SELECT new com.nhahang.restaurant.dto.UserDTO(u.id, u.uid, u.fullName, u.email, u.phoneNumber, " +
+           "r.roleName, u.createdAt, u.updatedAt) FROM User u LEFT JOIN u.role r WHERE u.id IN :ids")
+    List<UserDTO> findDtosByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // [id, phoneNumber, email] của mọi user, chỉ dùng để dựng chỉ mục tìm kiếm
+    @Query("SELECT u.id, u.phoneNumber, u.email FROM User u")
+    List<Object[]> findAllContactKeys();
+
+    // Các khóa duy nhất (uid, email, phone) để kiểm tra trùng khi import hàng loạt
+    @Query("SELECT u.uid, u.email, u.phoneNumber FROM User u")
+    List<Object[]> findAllUniqueKeys();
+}
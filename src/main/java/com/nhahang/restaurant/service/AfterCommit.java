@@ -0,0 +1,28 @@
+package com.nhahang.restaurant.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Chạy một tác vụ sau khi transaction hiện tại commit thành công
+ * (hoặc chạy ngay nếu không có transaction). Dùng để cập nhật các cấu trúc
+ * trong bộ nhớ chỉ khi dữ liệu đã thực sự được ghi xuống DB.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
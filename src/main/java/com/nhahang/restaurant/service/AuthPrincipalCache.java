@@ -0,0 +1,63 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.model.RoleName;
+import com.nhahang.restaurant.model.entity.User;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache kết quả xác thực ID token: khóa là SHA-256 của token (không giữ token gốc),
+ * giá trị là user và role đã nạp, hết hạn đúng thời điểm exp của token.
+ * Danh sách quyền lấy từ {@link RoleAuthorityTable} ở mỗi request.
+ */
+@Service
+public class AuthPrincipalCache {
+
+    public record CachedPrincipal(User user, RoleName roleName) {
+    }
+
+    private static final int MAX_SIZE = 10_000;
+    // Giữ tối đa 1 giờ dù exp của token có xa hơn
+    private static final long MAX_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final TtlCache<String, CachedPrincipal> cache = new TtlCache<>(MAX_TTL_MILLIS, MAX_SIZE);
+
+    public String key(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public CachedPrincipal get(String key) {
+        return cache.get(key);
+    }
+
+    public void put(String key, CachedPrincipal principal, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        cache.put(key, principal, Math.min(expiresAtMillis, now + MAX_TTL_MILLIS));
+    }
+
+    /**
+     * Logic: Bỏ mọi token đã cache của một user. Gọi cả ngay lúc đổi và sau khi commit,
+     * để request chen giữa không nạp lại dữ liệu cũ vào cache.
+     */
+    public void invalidateUser(Integer userId) {
+        cache.invalidateIf(principal -> userId.equals(principal.user().getId()));
+        AfterCommit.run(() -> cache.invalidateIf(principal -> userId.equals(principal.user().getId())));
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
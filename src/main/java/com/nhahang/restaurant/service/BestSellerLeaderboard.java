@@ -0,0 +1,127 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.event.OrderCompletedEvent;
+import com.nhahang.restaurant.model.entity.MenuItemSalesStat;
+import com.nhahang.restaurant.model.entity.Order;
+import com.nhahang.restaurant.model.entity.OrderItem;
+import com.nhahang.restaurant.repository.MenuItemSalesStatRepository;
+import com.nhahang.restaurant.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bảng xếp hạng món bán chạy được cập nhật dần khi đơn hàng Completed.
+ * Bộ đếm được lưu ở bảng menu_item_sales_stats, bản sao trong bộ nhớ
+ * được sắp xếp sẵn nên lấy top-K chỉ tốn O(K).
+ */
+@Service
+@RequiredArgsConstructor
+public class BestSellerLeaderboard {
+
+    /** Bộ đếm bất biến của một món, thay thế nguyên khối mỗi lần cập nhật */
+    public record Entry(Integer menuItemId, long totalQuantity, BigDecimal totalRevenue) {
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong(Entry::totalQuantity).reversed()
+            .thenComparing(Entry::menuItemId);
+
+    private final MenuItemSalesStatRepository salesStatRepository;
+    private final OrderRepository orderRepository;
+
+    private final Map<Integer, Entry> byMenuItem = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(RANKING);
+
+    /**
+     * Logic: Nạp bộ đếm khi khởi động; lần đầu thì gom order_items ngay trong DB
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void load() {
+        if (salesStatRepository.count() == 0) {
+            salesStatRepository.insertFromCompletedOrders();
+        }
+
+        List<MenuItemSalesStat> stats = salesStatRepository.findAll();
+        synchronized (this) {
+            byMenuItem.clear();
+            ranking.clear();
+            for (MenuItemSalesStat stat : stats) {
+                put(new Entry(stat.getMenuItemId(), stat.getTotalQuantity(), stat.getTotalRevenue()));
+            }
+        }
+    }
+
+    /**
+     * Logic: Cộng dồn số lượng/doanh thu của đơn vừa Completed.
+     * Ghi DB trong cùng transaction, chỉ cập nhật bộ nhớ sau khi commit.
+     */
+    @EventListener
+    public void onOrderCompleted(OrderCompletedEvent event) {
+        Order order = orderRepository.findById(event.orderId()).orElse(null);
+        if (order == null || order.getOrderItems() == null) {
+            return;
+        }
+
+        Map<Integer, Entry> deltas = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getMenuItem() == null) {
+                continue;
+            }
+            Integer menuItemId = item.getMenuItem().getId();
+            BigDecimal revenue = item.getPriceAtOrder().multiply(BigDecimal.valueOf(item.getQuantity()));
+            deltas.merge(menuItemId, new Entry(menuItemId, item.getQuantity(), revenue), BestSellerLeaderboard::add);
+        }
+        for (Entry delta : deltas.values()) {
+            salesStatRepository.increment(delta.menuItemId(), delta.totalQuantity(), delta.totalRevenue());
+        }
+
+        AfterCommit.run(() -> apply(deltas.values()));
+    }
+
+    /**
+     * Logic: Lấy top-K món bán chạy theo số lượng
+     */
+    public synchronized List<Entry> top(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, ranking.size()));
+        Iterator<Entry> it = ranking.iterator();
+        while (it.hasNext() && result.size() < limit) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    private synchronized void apply(Iterable<Entry> deltas) {
+        for (Entry delta : deltas) {
+            Entry current = byMenuItem.get(delta.menuItemId());
+            if (current != null) {
+                ranking.remove(current);
+                put(add(current, delta));
+            } else {
+                put(delta);
+            }
+        }
+    }
+
+    private void put(Entry entry) {
+        byMenuItem.put(entry.menuItemId(), entry);
+        ranking.add(entry);
+    }
+
+    private static Entry add(Entry a, Entry b) {
+        return new Entry(a.menuItemId(), a.totalQuantity() + b.totalQuantity(),
+                a.totalRevenue().add(b.totalRevenue()));
+    }
+}
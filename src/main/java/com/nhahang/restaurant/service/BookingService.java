@@ -11,6 +11,8 @@ import com.nhahang.restaurant.repository.BookingRepository;
 import com.nhahang.restaurant.repository.OrderRepository;
 import com.nhahang.restaurant.repository.RestaurantTableRepository;
 import com.nhahang.restaurant.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -21,6 +23,7 @@ import java.util.Arrays;
 import java.util.List;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 @RequiredArgsConstructor
 public class BookingService {
 
@@ -28,6 +31,7 @@ public class BookingService {
     private final UserRepository userRepository;
     private final RestaurantTableRepository restaurantTableRepository;
     private final OrderRepository orderRepository;
+    private final MeterRegistry meterRegistry;
 
     @Transactional
     public Booking createBooking(BookingCreateRequest request) {
@@ -242,6 +246,7 @@ public class BookingService {
         );
 
         List<Booking> overdueBookings = bookingRepository.findOverdueBookings(targetStatuses, threshold);
+        int cancelled = 0;
 
         for (Booking booking : overdueBookings) {
             RestaurantTable table = booking.getTable();
@@ -255,6 +260,7 @@ public class BookingService {
                 booking.setStatus(BookingStatus.Completed);
             } else {
                 booking.setStatus(BookingStatus.Cancelled);
+                cancelled++;
                 if (table != null && table.getStatus() != TableStatus.Used) {
                     table.setStatus(TableStatus.Available);
                     restaurantTableRepository.save(table);
@@ -263,5 +269,11 @@ public class BookingService {
         }
         
         bookingRepository.saveAll(overdueBookings);
+        int cancelledCount = cancelled;
+        int completedCount = overdueBookings.size() - cancelled;
+        AfterCommit.run(() -> {
+            meterRegistry.counter("bookings.auto_closed", "result", "cancelled").increment(cancelledCount);
+            meterRegistry.counter("bookings.auto_closed", "result", "completed").increment(completedCount);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.nhahang.restaurant.service;
+
+/**
+ * Circuit breaker tối giản: mở mạch sau {@code failureThreshold} lỗi liên tiếp,
+ * giữ mở trong {@code openMillis} rồi cho đúng một lời gọi thử (half-open).
+ * Lời gọi thử thành công thì đóng mạch, thất bại thì mở lại.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /** Có được phép gọi ra ngoài không; false nghĩa là fail-fast */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /** Lời gọi không diễn ra (bị hủy/từ chối trước khi gọi): chỉ trả lại lượt thử */
+    synchronized void release() {
+        probeInFlight = false;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
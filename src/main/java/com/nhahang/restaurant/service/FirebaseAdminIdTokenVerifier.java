@@ -0,0 +1,29 @@
+package com.nhahang.restaurant.service;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Xác thực qua Firebase Admin SDK (cách cũ), bật bằng auth.token-verifier=firebase
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token-verifier", havingValue = "firebase")
+public class FirebaseAdminIdTokenVerifier implements IdTokenVerifier {
+
+    @Override
+    public VerifiedIdToken verify(String idToken) {
+        try {
+            FirebaseToken token = FirebaseAuth.getInstance().verifyIdToken(idToken);
+            Object exp = token.getClaims().get("exp");
+            long expiresAt = exp instanceof Number number ? TimeUnit.SECONDS.toMillis(number.longValue()) : 0L;
+            return new VerifiedIdToken(token.getUid(), token.getEmail(), expiresAt, token.getClaims());
+        } catch (FirebaseAuthException e) {
+            throw new RuntimeException("ID token không hợp lệ: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.nhahang.restaurant.service;
+
+/**
+ * Xác thực ID token của người dùng (Firebase Authentication).
+ * Ném RuntimeException nếu token sai chữ ký, sai claim hoặc đã hết hạn.
+ */
+public interface IdTokenVerifier {
+
+    VerifiedIdToken verify(String idToken);
+}
@@ -0,0 +1,279 @@
+package com.nhahang.restaurant.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.ImageProcessingException;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataException;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.nhahang.restaurant.dto.ImageDerivatives;
+import com.nhahang.restaurant.repository.MenuItemRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Xử lý ảnh món ăn trước khi upload: decode một lần, tạo các bản JPEG
+ * theo nhiều chiều rộng trên pool riêng, cache theo hash nội dung ảnh.
+ */
+@Service
+public class ImageDerivativeService {
+
+    static final int SMALL_WIDTH = 320;
+    static final int MEDIUM_WIDTH = 640;
+    static final int LARGE_WIDTH = 1280;
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final int CACHE_SIZE = 256;
+
+    private final Cloudinary cloudinary;
+    private final MenuItemRepository menuItemRepository;
+    private final ThreadPoolTaskExecutor executor;
+
+    // hash -> kết quả đã upload (LRU nhỏ, phần còn lại tra trong DB)
+    private final Map<String, ImageDerivatives> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImageDerivatives> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    // Tránh xử lý song song cùng một ảnh khi bấm upload hai lần
+    private final Map<String, CompletableFuture<ImageDerivatives>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageDerivativeService(Cloudinary cloudinary,
+                                  MenuItemRepository menuItemRepository,
+                                  @Qualifier("imageProcessingExecutor") ThreadPoolTaskExecutor executor) {
+        this.cloudinary = cloudinary;
+        this.menuItemRepository = menuItemRepository;
+        this.executor = executor;
+    }
+
+    /**
+     * Logic: Tạo (hoặc lấy lại từ cache) các bản ảnh đã resize cho file upload
+     */
+    public ImageDerivatives process(MultipartFile file) {
+        byte[] bytes;
+        try {
+            bytes = file.getBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Không đọc được file ảnh: " + e.getMessage());
+        }
+        String hash = sha256(bytes);
+
+        ImageDerivatives cached = getCached(hash);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<ImageDerivatives> future = new CompletableFuture<>();
+        CompletableFuture<ImageDerivatives> existing = inFlight.putIfAbsent(hash, future);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            ImageDerivatives result = menuItemRepository.findFirstByImageHashAndImageSmallUrlIsNotNull(hash)
+                    .map(item -> new ImageDerivatives(hash, item.getImageUrl(),
+                            item.getImageSmallUrl(), item.getImageMediumUrl(), item.getImageLargeUrl()))
+                    .orElseGet(() -> generateAndUpload(hash, bytes));
+            synchronized (cache) {
+                cache.put(hash, result);
+            }
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(hash);
+        }
+    }
+
+    private ImageDerivatives getCached(String hash) {
+        synchronized (cache) {
+            return cache.get(hash);
+        }
+    }
+
+    private ImageDerivatives generateAndUpload(String hash, byte[] bytes) {
+        BufferedImage source = decode(bytes);
+        if (source == null) {
+            // Định dạng ImageIO không đọc được (HEIC, ...): upload ảnh gốc như trước
+            String url = upload(bytes, hash);
+            return new ImageDerivatives(hash, url, url, url, url);
+        }
+
+        CompletableFuture<String> small = CompletableFuture.supplyAsync(
+                () -> upload(encodeJpeg(resize(source, SMALL_WIDTH)), hash + "_" + SMALL_WIDTH), executor);
+        CompletableFuture<String> medium = CompletableFuture.supplyAsync(
+                () -> upload(encodeJpeg(resize(source, MEDIUM_WIDTH)), hash + "_" + MEDIUM_WIDTH), executor);
+        CompletableFuture<String> large = CompletableFuture.supplyAsync(
+                () -> upload(encodeJpeg(resize(source, LARGE_WIDTH)), hash + "_" + LARGE_WIDTH), executor);
+
+        String largeUrl = join(large);
+        return new ImageDerivatives(hash, largeUrl, join(small), join(medium), largeUrl);
+    }
+
+    /**
+     * Decode ảnh và xoay/lật theo tag EXIF Orientation (ảnh chụp từ điện thoại
+     * thường lưu pixel theo hướng cảm biến, hướng hiển thị nằm trong tag này)
+     */
+    static BufferedImage decode(byte[] bytes) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            return null;
+        }
+        if (image == null) {
+            return null;
+        }
+        return applyOrientation(image, readOrientation(bytes));
+    }
+
+    /**
+     * Đọc tag EXIF Orientation (1..8), không có tag hoặc metadata lỗi thì coi như 1 (giữ nguyên)
+     */
+    static int readOrientation(byte[] bytes) {
+        try {
+            Metadata metadata = ImageMetadataReader.readMetadata(new ByteArrayInputStream(bytes));
+            ExifIFD0Directory exif = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+            if (exif != null && exif.containsTag(ExifIFD0Directory.TAG_ORIENTATION)) {
+                return exif.getInt(ExifIFD0Directory.TAG_ORIENTATION);
+            }
+        } catch (ImageProcessingException | IOException | MetadataException e) {
+            // Metadata hỏng không được làm hỏng upload: dùng ảnh như ImageIO đã decode
+        }
+        return 1;
+    }
+
+    /**
+     * Đưa ảnh về hướng hiển thị theo giá trị EXIF Orientation:
+     * 2/4 lật ngang/dọc, 3 xoay 180°, 6/8 xoay 90° thuận/ngược chiều kim đồng hồ,
+     * 5/7 xoay 90° kèm lật (transpose/transverse)
+     */
+    static BufferedImage applyOrientation(BufferedImage source, int orientation) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> null;
+        };
+        if (transform == null) {
+            return source;
+        }
+        boolean swap = orientation >= 5;
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage target = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.drawImage(source, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Resize giữ tỉ lệ, không phóng to ảnh nhỏ hơn chiều rộng đích.
+     * Luôn trả về ảnh RGB vì JPEG không có kênh alpha.
+     */
+    static BufferedImage resize(BufferedImage source, int targetWidth) {
+        int width = Math.min(targetWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(java.awt.Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new RuntimeException("Lỗi khi nén ảnh JPEG: " + e.getMessage());
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private String upload(byte[] bytes, String publicId) {
+        try {
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(
+                bytes,
+                ObjectUtils.asMap(
+                    "resource_type", "image",
+                    "folder", "restaurant_menu",
+                    "public_id", publicId,
+                    "overwrite", false
+                )
+            );
+            return (String) uploadResult.get("secure_url");
+        } catch (IOException e) {
+            throw new RuntimeException("Lỗi khi upload ảnh lên Cloudinary: " + e.getMessage());
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
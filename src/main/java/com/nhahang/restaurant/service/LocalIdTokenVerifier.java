@@ -0,0 +1,274 @@
+package com.nhahang.restaurant.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.FirebaseApp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tự xác thực Firebase ID token (RS256) hoàn toàn trong bộ nhớ: khóa công khai của Google
+ * được tải sẵn và làm mới nền trước khi hết hạn theo Cache-Control, nên mỗi request
+ * chỉ tốn một lần kiểm tra chữ ký RSA, không có lời gọi mạng.
+ * Lượt tải khóa không giữ monitor nào: các luồng cần khóa mới chờ chung một lượt tải đang chạy.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.token-verifier", havingValue = "local", matchIfMissing = true)
+public class LocalIdTokenVerifier implements IdTokenVerifier {
+
+    /** Bộ khóa đang dùng, thay nguyên khối mỗi lần làm mới */
+    record SigningKeys(Map<String, PublicKey> keys, long fetchedAt, long expiresAt) {
+        static final SigningKeys EMPTY = new SigningKeys(Map.of(), 0, 0);
+    }
+
+    private static final String ISSUER_PREFIX = "https://securetoken.google.com/";
+    private static final long CLOCK_SKEW_SECONDS = 60;
+    // Làm mới trước khi khóa hết hạn; Google thường trả max-age vài giờ
+    private static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String keysUrl;
+    private final String projectId;
+    // Khoảng cách tối thiểu giữa hai lần tải khóa, chặn token kid bịa đặt gây tải liên tục
+    private final long minRefreshIntervalMillis;
+
+    private volatile SigningKeys signingKeys = SigningKeys.EMPTY;
+    // Lượt tải khóa đang chạy (null nếu không có), các luồng đến sau chờ kết quả của lượt này
+    private final AtomicReference<CompletableFuture<SigningKeys>> inFlight = new AtomicReference<>();
+    // Lần gần nhất tải lại vì kid lạ (kể cả khi thất bại)
+    private final AtomicLong lastUnknownKidRefreshAt = new AtomicLong();
+
+    public LocalIdTokenVerifier(ObjectMapper objectMapper,
+                                FirebaseApp firebaseApp,
+                                @Value("${auth.firebase.keys-url}") String keysUrl,
+                                @Value("${auth.firebase.project-id:}") String projectId,
+                                @Value("${auth.firebase.keys-min-refresh-interval-ms:10000}") long minRefreshIntervalMillis) {
+        this.objectMapper = objectMapper;
+        this.keysUrl = keysUrl;
+        this.minRefreshIntervalMillis = minRefreshIntervalMillis;
+        this.projectId = !projectId.isBlank() ? projectId : firebaseApp.getOptions().getProjectId();
+        if (this.projectId == null) {
+            throw new IllegalStateException("Không xác định được Firebase project ID để xác thực token");
+        }
+    }
+
+    @Override
+    public VerifiedIdToken verify(String idToken) {
+        String[] parts = idToken.split("\\.");
+        if (parts.length != 3) {
+            throw new RuntimeException("ID token không đúng định dạng JWT");
+        }
+        Map<String, Object> header = decodeJson(parts[0]);
+        if (!"RS256".equals(header.get("alg"))) {
+            throw new RuntimeException("ID token dùng thuật toán không hợp lệ: " + header.get("alg"));
+        }
+
+        String kid = String.valueOf(header.get("kid"));
+        PublicKey key = currentKeys().keys().get(kid);
+        if (key == null) {
+            // Google có thể vừa xoay khóa: tải lại ngay (có giới hạn tần suất) rồi thử đúng một lần nữa
+            key = refreshForUnknownKid().keys().get(kid);
+        }
+        if (key == null) {
+            throw new RuntimeException("ID token ký bằng khóa không xác định: " + kid);
+        }
+        if (!verifySignature(key, parts)) {
+            throw new RuntimeException("Chữ ký ID token không hợp lệ");
+        }
+
+        Map<String, Object> claims = decodeJson(parts[1]);
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long exp = longClaim(claims, "exp");
+        if (exp + CLOCK_SKEW_SECONDS <= now) {
+            throw new RuntimeException("ID token đã hết hạn");
+        }
+        if (longClaim(claims, "iat") > now + CLOCK_SKEW_SECONDS
+                || (claims.containsKey("auth_time") && longClaim(claims, "auth_time") > now + CLOCK_SKEW_SECONDS)) {
+            throw new RuntimeException("ID token phát hành ở thời điểm tương lai");
+        }
+        if (!projectId.equals(claims.get("aud")) || !(ISSUER_PREFIX + projectId).equals(claims.get("iss"))) {
+            throw new RuntimeException("ID token không thuộc project " + projectId);
+        }
+        Object sub = claims.get("sub");
+        if (!(sub instanceof String uid) || uid.isEmpty() || uid.length() > 128) {
+            throw new RuntimeException("ID token có sub không hợp lệ");
+        }
+
+        Object email = claims.get("email");
+        return new VerifiedIdToken(uid, email instanceof String value ? value : null,
+                TimeUnit.SECONDS.toMillis(exp), claims);
+    }
+
+    /**
+     * Logic: Kiểm tra định kỳ, tải lại khóa khi sắp hết hạn
+     */
+    @Scheduled(fixedDelayString = "${auth.firebase.keys-check-interval-ms:30000}")
+    public void refreshIfNeeded() {
+        SigningKeys current = signingKeys;
+        if (System.currentTimeMillis() < current.expiresAt() - REFRESH_AHEAD_MILLIS) {
+            return;
+        }
+        try {
+            refresh(current);
+        } catch (Exception e) {
+            // Giữ bộ khóa cũ, lần kiểm tra sau thử lại
+            log.warn("Không tải được khóa công khai Firebase: {}", e.getMessage());
+        }
+    }
+
+    private SigningKeys currentKeys() {
+        SigningKeys current = signingKeys;
+        if (current.keys().isEmpty()) {
+            // Chỉ xảy ra ở request đầu tiên sau khi khởi động nếu lượt nạp nền chưa chạy;
+            // các request đồng thời dùng chung một lượt tải
+            try {
+                current = refresh(current);
+            } catch (Exception e) {
+                throw new RuntimeException("Không tải được khóa công khai Firebase", e);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Logic: Gặp kid lạ thì tải lại khóa ngay trong request, nhưng không quá một lần mỗi
+     * minRefreshIntervalMillis; các request cùng kid mới chờ lượt tải đang chạy rồi dùng kết quả
+     */
+    private SigningKeys refreshForUnknownKid() {
+        SigningKeys current = signingKeys;
+        long now = System.currentTimeMillis();
+        long last = lastUnknownKidRefreshAt.get();
+        boolean due = now - Math.max(current.fetchedAt(), last) >= minRefreshIntervalMillis;
+        try {
+            if (due && lastUnknownKidRefreshAt.compareAndSet(last, now)) {
+                return refresh(current);
+            }
+            CompletableFuture<SigningKeys> running = inFlight.get();
+            if (running != null) {
+                return running.join();
+            }
+        } catch (Exception e) {
+            log.warn("Không tải được khóa công khai Firebase: {}", e.getMessage());
+        }
+        return signingKeys;
+    }
+
+    /**
+     * Logic: Tải lại khóa không giữ khóa đồng bộ nào trong lúc gọi mạng. Luồng đặt được
+     * future vào inFlight sẽ tải rồi thay cả bộ khóa một lần; luồng khác chờ future đó.
+     * seen là bộ khóa người gọi đã thấy: nếu đã có lượt khác thay xong thì dùng luôn, không tải lại
+     */
+    private SigningKeys refresh(SigningKeys seen) throws Exception {
+        CompletableFuture<SigningKeys> mine = new CompletableFuture<>();
+        CompletableFuture<SigningKeys> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        try {
+            if (signingKeys != seen) {
+                mine.complete(signingKeys);
+                return signingKeys;
+            }
+            SigningKeys fetched = fetchKeys();
+            signingKeys = fetched;
+            mine.complete(fetched);
+            return fetched;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private SigningKeys fetchKeys() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(keysUrl))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " khi tải " + keysUrl);
+        }
+
+        Map<String, String> certificates = objectMapper.readValue(response.body(), new TypeReference<>() {
+        });
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        Map<String, PublicKey> keys = new HashMap<>();
+        for (Map.Entry<String, String> entry : certificates.entrySet()) {
+            byte[] pem = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            keys.put(entry.getKey(), factory.generateCertificate(new ByteArrayInputStream(pem)).getPublicKey());
+        }
+
+        long now = System.currentTimeMillis();
+        long maxAge = response.headers().firstValue("Cache-Control")
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(m -> TimeUnit.SECONDS.toMillis(Long.parseLong(m.group(1))))
+                .orElse(DEFAULT_MAX_AGE_MILLIS);
+        return new SigningKeys(Map.copyOf(keys), now, now + maxAge);
+    }
+
+    private static boolean verifySignature(PublicKey key, String[] parts) {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return signature.verify(Base64.getUrlDecoder().decode(parts[2]));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private Map<String, Object> decodeJson(String part) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(part), new TypeReference<>() {
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("ID token không đúng định dạng JWT", e);
+        }
+    }
+
+    private static long longClaim(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        if (!(value instanceof Number number)) {
+            throw new RuntimeException("ID token thiếu claim " + name);
+        }
+        return number.longValue();
+    }
+}
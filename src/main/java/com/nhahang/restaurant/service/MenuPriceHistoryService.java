@@ -0,0 +1,223 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.MenuPriceReportDTO;
+import com.nhahang.restaurant.dto.PriceHistoryEntryDTO;
+import com.nhahang.restaurant.model.entity.MenuItem;
+import com.nhahang.restaurant.model.entity.MenuItemPriceHistory;
+import com.nhahang.restaurant.repository.MenuItemPriceHistoryRepository;
+import com.nhahang.restaurant.repository.MenuItemRepository;
+import com.nhahang.restaurant.repository.OrderItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lịch sử giá món ăn: ghi thêm vào bảng menu_item_price_history mỗi lần đổi giá,
+ * và giữ trong bộ nhớ một mảng (effectiveFrom, price) đã sắp xếp cho mỗi món
+ * để tra "giá tại thời điểm t" bằng tìm kiếm nhị phân.
+ */
+@Service
+@RequiredArgsConstructor
+public class MenuPriceHistoryService {
+
+    // Mốc cho giá của các món đã tồn tại trước khi có bảng lịch sử
+    static final LocalDateTime BASELINE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /** Dòng thời gian giá bất biến của một món; mỗi lần đổi giá tạo bản mới */
+    static final class PriceTimeline {
+        final long[] effectiveFrom;
+        final BigDecimal[] prices;
+
+        PriceTimeline(long[] effectiveFrom, BigDecimal[] prices) {
+            this.effectiveFrom = effectiveFrom;
+            this.prices = prices;
+        }
+
+        PriceTimeline append(long at, BigDecimal price) {
+            int n = effectiveFrom.length;
+            long[] times = Arrays.copyOf(effectiveFrom, n + 1);
+            BigDecimal[] values = Arrays.copyOf(prices, n + 1);
+            times[n] = at;
+            values[n] = price;
+            return new PriceTimeline(times, values);
+        }
+
+        BigDecimal latest() {
+            return prices[prices.length - 1];
+        }
+
+        /** Giá có hiệu lực tại thời điểm {@code at}, null nếu trước bản ghi đầu tiên */
+        BigDecimal priceAt(long at) {
+            int idx = Arrays.binarySearch(effectiveFrom, at);
+            if (idx < 0) {
+                idx = -idx - 2; // bản ghi cuối cùng có effectiveFrom <= at
+            } else {
+                // Nhiều bản ghi cùng mốc: lấy bản ghi sau cùng
+                while (idx + 1 < effectiveFrom.length && effectiveFrom[idx + 1] == at) {
+                    idx++;
+                }
+            }
+            return idx >= 0 ? prices[idx] : null;
+        }
+
+        /** Số lần đổi giá có hiệu lực trong khoảng (from, to] */
+        int changesBetween(long from, long to) {
+            int start = upperBound(from);
+            int end = upperBound(to);
+            return Math.max(0, end - start);
+        }
+
+        private int upperBound(long at) {
+            int lo = 0;
+            int hi = effectiveFrom.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (effectiveFrom[mid] <= at) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private final MenuItemPriceHistoryRepository priceHistoryRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    private final Map<Integer, PriceTimeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Logic: Nạp lịch sử giá khi khởi động, bổ sung mốc giá gốc cho món chưa có lịch sử
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void load() {
+        Map<Integer, List<MenuItemPriceHistory>> grouped = new HashMap<>();
+        for (MenuItemPriceHistory row : priceHistoryRepository.findAllOrdered()) {
+            grouped.computeIfAbsent(row.getMenuItemId(), id -> new ArrayList<>()).add(row);
+        }
+
+        List<MenuItemPriceHistory> baselines = new ArrayList<>();
+        for (MenuItem item : menuItemRepository.findAll()) {
+            if (!grouped.containsKey(item.getId()) && item.getPrice() != null) {
+                MenuItemPriceHistory row = newRow(item.getId(), item.getPrice(), BASELINE);
+                baselines.add(row);
+                grouped.put(item.getId(), List.of(row));
+            }
+        }
+        priceHistoryRepository.saveAll(baselines);
+
+        timelines.clear();
+        grouped.forEach((menuItemId, rows) -> {
+            long[] times = new long[rows.size()];
+            BigDecimal[] prices = new BigDecimal[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                times[i] = toMillis(rows.get(i).getEffectiveFrom());
+                prices[i] = rows.get(i).getPrice();
+            }
+            timelines.put(menuItemId, new PriceTimeline(times, prices));
+        });
+    }
+
+    /**
+     * Logic: Ghi nhận giá mới của món (bỏ qua nếu giá không đổi)
+     */
+    @Transactional
+    public void recordPrice(Integer menuItemId, BigDecimal price) {
+        PriceTimeline current = timelines.get(menuItemId);
+        if (price == null || (current != null && current.latest().compareTo(price) == 0)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        priceHistoryRepository.save(newRow(menuItemId, price, now));
+
+        long at = toMillis(now);
+        AfterCommit.run(() -> timelines.compute(menuItemId, (id, timeline) -> timeline == null
+                ? new PriceTimeline(new long[]{at}, new BigDecimal[]{price})
+                : timeline.append(at, price)));
+    }
+
+    /**
+     * Logic: Lấy giá niêm yết của món tại một thời điểm
+     */
+    public Optional<BigDecimal> getPriceAt(Integer menuItemId, LocalDateTime at) {
+        PriceTimeline timeline = timelines.get(menuItemId);
+        return timeline == null ? Optional.empty() : Optional.ofNullable(timeline.priceAt(toMillis(at)));
+    }
+
+    /**
+     * Logic: Lấy toàn bộ lịch sử giá của một món
+     */
+    public List<PriceHistoryEntryDTO> getPriceHistory(Integer menuItemId) {
+        PriceTimeline timeline = timelines.get(menuItemId);
+        if (timeline == null) {
+            throw new RuntimeException("Không có lịch sử giá cho MenuItem với ID: " + menuItemId);
+        }
+        List<PriceHistoryEntryDTO> result = new ArrayList<>(timeline.prices.length);
+        for (int i = 0; i < timeline.prices.length; i++) {
+            result.add(new PriceHistoryEntryDTO(menuItemId, timeline.prices[i],
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(timeline.effectiveFrom[i]), ZONE)));
+        }
+        return result;
+    }
+
+    /**
+     * Logic: Báo cáo doanh thu theo món trong kỳ, so sánh với giá niêm yết đầu/cuối kỳ.
+     * Chỉ một truy vấn GROUP BY, phần tra giá làm trong bộ nhớ.
+     */
+    @Transactional(readOnly = true)
+    public List<MenuPriceReportDTO> getPriceReport(LocalDateTime fromDate, LocalDateTime toDate) {
+        long from = toMillis(fromDate);
+        long to = toMillis(toDate);
+        List<MenuPriceReportDTO> report = new ArrayList<>();
+        for (Object[] row : orderItemRepository.sumCompletedSalesByMenuItemBetween(fromDate, toDate)) {
+            Integer menuItemId = (Integer) row[0];
+            long quantity = ((Number) row[2]).longValue();
+            PriceTimeline timeline = timelines.get(menuItemId);
+
+            MenuPriceReportDTO dto = new MenuPriceReportDTO();
+            dto.setMenuItemId(menuItemId);
+            dto.setMenuItemName((String) row[1]);
+            dto.setQuantitySold(quantity);
+            dto.setActualRevenue((BigDecimal) row[3]);
+            if (timeline != null) {
+                BigDecimal priceAtEnd = timeline.priceAt(to);
+                dto.setPriceAtStart(timeline.priceAt(from));
+                dto.setPriceAtEnd(priceAtEnd);
+                dto.setRevenueAtEndPrice(priceAtEnd != null ? priceAtEnd.multiply(BigDecimal.valueOf(quantity)) : null);
+                dto.setPriceChanges(timeline.changesBetween(from, to));
+            }
+            report.add(dto);
+        }
+        return report;
+    }
+
+    private static MenuItemPriceHistory newRow(Integer menuItemId, BigDecimal price, LocalDateTime effectiveFrom) {
+        MenuItemPriceHistory row = new MenuItemPriceHistory();
+        row.setMenuItemId(menuItemId);
+        row.setPrice(price);
+        row.setEffectiveFrom(effectiveFrom);
+        return row;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -1,35 +1,43 @@
 package com.nhahang.restaurant.service;
 
 import com.nhahang.restaurant.dto.BestSellingItemDTO;
+import com.nhahang.restaurant.dto.ImageDerivatives;
 import com.nhahang.restaurant.dto.MenuItemDTO;
+import com.nhahang.restaurant.dto.MenuStatusBulkRequest;
+import com.nhahang.restaurant.event.MenuItemsChangedEvent;
 import com.nhahang.restaurant.model.MenuItemStatus;
 import com.nhahang.restaurant.model.entity.MenuItem;
 import com.nhahang.restaurant.repository.MenuItemRepository;
 import com.nhahang.restaurant.repository.CategoryRepository;
-import com.nhahang.restaurant.repository.OrderItemRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
 import java.util.Map;
 
-import java.math.BigDecimal;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.io.IOException;
 import org.springframework.web.multipart.MultipartFile;
 
-@Service 
+@Service
+@Timed(value = "service.method", histogram = true)
 @RequiredArgsConstructor 
 public class MenuService {
     private final MenuItemRepository menuItemRepository;
     private final CategoryRepository categoryRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final Cloudinary cloudinary;
+    private final BestSellerLeaderboard bestSellerLeaderboard;
+    private final MenuPriceHistoryService menuPriceHistoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageDerivativeService imageDerivativeService;
+    private final TransactionTemplate transactionTemplate;
 
 
     /**
@@ -119,39 +127,41 @@ public class MenuService {
     }
 
     /**
-     * Logic: Tạo món ăn mới
+     * Logic: Tạo món ăn mới. Upload ảnh trước, ngoài transaction (không giữ connection DB trong lúc
+     * chờ Cloudinary), rồi lưu món và mốc giá đầu tiên trong cùng một transaction ngắn
     */
     public MenuItem createMenuItem(MenuItemDTO menuItemDTO, MultipartFile file) {
         // 1. Upload ảnh LÊN TRƯỚC
         if (file == null || file.isEmpty()) {
             throw new RuntimeException("Ảnh món ăn là bắt buộc khi tạo mới");
         }
-        String imageUrl = uploadToCloudinary(file);
-        menuItemDTO.setImageUrl(imageUrl); 
+        ImageDerivatives images = imageDerivativeService.process(file);
+        menuItemDTO.setImageUrl(images.getImageUrl()); 
+        return transactionTemplate.execute(status -> saveNewMenuItem(menuItemDTO, images));
+    }
+
+    private MenuItem saveNewMenuItem(MenuItemDTO menuItemDTO, ImageDerivatives images) {
         var category = categoryRepository.findById(menuItemDTO.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy Category với ID: " + menuItemDTO.getCategoryId()));
 
         MenuItem newMenuItem = new MenuItem();
         newMenuItem.setName(menuItemDTO.getName());
         newMenuItem.setDescription(menuItemDTO.getDescription());
-        newMenuItem.setImageUrl(menuItemDTO.getImageUrl()); 
+        applyImages(newMenuItem, images);
         newMenuItem.setPrice(menuItemDTO.getPrice());
         newMenuItem.setStatus(MenuItemStatus.valueOf(menuItemDTO.getStatus()));
         newMenuItem.setCategory(category); 
 
-        return menuItemRepository.save(newMenuItem);
+        MenuItem savedItem = menuItemRepository.save(newMenuItem);
+        menuPriceHistoryService.recordPrice(savedItem.getId(), savedItem.getPrice());
+        return savedItem;
     }
 
     /**
-     * Logic: Cập nhật một món ăn 
+     * Logic: Cập nhật một món ăn. Ảnh mới (nếu có) được xử lý trước, ngoài transaction;
+     * giá mới và dòng lịch sử giá commit cùng nhau, chỉ ghi lịch sử khi giá thực sự đổi
     */
     public MenuItem updateMenuItem(Integer id, MenuItemDTO menuItemDTO, MultipartFile file) {
-        MenuItem existingMenuItem = menuItemRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy MenuItem với ID: " + id));
-
-        var category = categoryRepository.findById(menuItemDTO.getCategoryId())
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy Category với ID: " + menuItemDTO.getCategoryId()));
-
         MenuItemStatus status;
         try {
             status = MenuItemStatus.valueOf(menuItemDTO.getStatus());
@@ -159,17 +169,66 @@ public class MenuService {
             throw new RuntimeException("Status không hợp lệ: " + menuItemDTO.getStatus());
         }
 
-        if (file != null && !file.isEmpty()) {
-            String newImageUrl = uploadToCloudinary(file);
-            existingMenuItem.setImageUrl(newImageUrl); 
+        ImageDerivatives images = file != null && !file.isEmpty() ? imageDerivativeService.process(file) : null;
+        return transactionTemplate.execute(tx -> saveMenuItem(id, menuItemDTO, status, images));
+    }
+
+    private MenuItem saveMenuItem(Integer id, MenuItemDTO menuItemDTO, MenuItemStatus status, ImageDerivatives images) {
+        MenuItem existingMenuItem = menuItemRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy MenuItem với ID: " + id));
+
+        var category = categoryRepository.findById(menuItemDTO.getCategoryId())
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy Category với ID: " + menuItemDTO.getCategoryId()));
+
+        if (images != null) {
+            applyImages(existingMenuItem, images);
         }
+        BigDecimal previousPrice = existingMenuItem.getPrice();
         existingMenuItem.setName(menuItemDTO.getName());
         existingMenuItem.setDescription(menuItemDTO.getDescription());
         existingMenuItem.setPrice(menuItemDTO.getPrice());
         existingMenuItem.setStatus(status);
         existingMenuItem.setCategory(category);
-        return menuItemRepository.save(existingMenuItem);
+        MenuItem savedItem = menuItemRepository.save(existingMenuItem);
+        if (previousPrice == null || savedItem.getPrice() == null
+                || previousPrice.compareTo(savedItem.getPrice()) != 0) {
+            menuPriceHistoryService.recordPrice(savedItem.getId(), savedItem.getPrice());
+        }
+        return savedItem;
     }
+    /**
+     * Logic: Đổi trạng thái hàng loạt (theo danh sách ID hoặc cả Category)
+     * bằng một câu UPDATE, không tải entity
+     */
+    @Transactional
+    public int updateMenuItemStatusBulk(MenuStatusBulkRequest request) {
+        MenuItemStatus status;
+        try {
+            status = MenuItemStatus.valueOf(request.getStatus());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Status không hợp lệ: " + request.getStatus());
+        }
+
+        int updated;
+        MenuItemsChangedEvent event;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            var ids = new LinkedHashSet<>(request.getIds());
+            updated = menuItemRepository.updateStatusByIds(ids, status);
+            event = new MenuItemsChangedEvent(ids, null);
+        } else if (request.getCategoryId() != null) {
+            if (!categoryRepository.existsById(request.getCategoryId())) {
+                throw new RuntimeException("Không tìm thấy Category với ID: " + request.getCategoryId());
+            }
+            updated = menuItemRepository.updateStatusByCategoryId(request.getCategoryId(), status);
+            event = new MenuItemsChangedEvent(List.of(), request.getCategoryId());
+        } else {
+            throw new RuntimeException("Cần truyền danh sách ids hoặc categoryId");
+        }
+
+        eventPublisher.publishEvent(event);
+        return updated;
+    }
+
     /** 
      * Logic: Xóa một món ăn theo ID 
     */
@@ -180,40 +239,39 @@ public class MenuService {
     }
 
     /**
-     * Phương thức private để xử lý upload (TÁI SỬ DỤNG)
+     * Gán URL ảnh gốc và các bản resize vào món ăn (TÁI SỬ DỤNG)
      */
-    private String uploadToCloudinary(MultipartFile file) {
-        try {
-            Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                file.getBytes(), 
-                ObjectUtils.asMap(
-                    "resource_type", "auto",
-                    "folder", "restaurant_menu" // Thư mục trên Cloudinary
-                )
-            );
-            return (String) uploadResult.get("secure_url");
-        } catch (IOException e) {
-            throw new RuntimeException("Lỗi khi upload ảnh lên Cloudinary: " + e.getMessage());
-        }
+    private void applyImages(MenuItem menuItem, ImageDerivatives images) {
+        menuItem.setImageUrl(images.getImageUrl());
+        menuItem.setImageSmallUrl(images.getImageSmallUrl());
+        menuItem.setImageMediumUrl(images.getImageMediumUrl());
+        menuItem.setImageLargeUrl(images.getImageLargeUrl());
+        menuItem.setImageHash(images.getContentHash());
     }
     /**
-     * Logic: Lấy danh sách món ăn bán chạy nhất
+     * Logic: Lấy danh sách món ăn bán chạy nhất (từ leaderboard trong bộ nhớ)
      */
     public List<BestSellingItemDTO> getBestSellingItems(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        List<Object[]> results = orderItemRepository.findBestSellingItems(pageable);
-        
-        return results.stream().map(row -> {
-            BestSellingItemDTO dto = new BestSellingItemDTO();
-            dto.setMenuItemId((Integer) row[0]);
-            dto.setMenuItemName((String) row[1]);
-            dto.setDescription((String) row[2]);
-            dto.setImageUrl((String) row[3]);
-            dto.setPrice((BigDecimal) row[4]);
-            dto.setCategoryName((String) row[5]);
-            dto.setTotalQuantitySold((Long) row[6]);
-            dto.setTotalRevenue((BigDecimal) row[7]);
-            return dto;
-        }).collect(Collectors.toList());
+        List<BestSellerLeaderboard.Entry> top = bestSellerLeaderboard.top(limit);
+        Map<Integer, MenuItem> menuItems = menuItemRepository.findAllById(
+                top.stream().map(BestSellerLeaderboard.Entry::menuItemId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(MenuItem::getId, item -> item));
+
+        return top.stream()
+                .filter(entry -> menuItems.containsKey(entry.menuItemId()))
+                .map(entry -> {
+                    MenuItem item = menuItems.get(entry.menuItemId());
+                    BestSellingItemDTO dto = new BestSellingItemDTO();
+                    dto.setMenuItemId(item.getId());
+                    dto.setMenuItemName(item.getName());
+                    dto.setDescription(item.getDescription());
+                    dto.setImageUrl(item.getImageUrl());
+                    dto.setPrice(item.getPrice());
+                    dto.setCategoryName(item.getCategory() != null ? item.getCategory().getName() : null);
+                    dto.setTotalQuantitySold(entry.totalQuantity());
+                    dto.setTotalRevenue(entry.totalRevenue());
+                    return dto;
+                }).collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.nhahang.restaurant.service;
 
 import com.nhahang.restaurant.dto.*;
+import com.nhahang.restaurant.event.OrderCompletedEvent;
 import com.nhahang.restaurant.model.MenuItemStatus;
 import com.nhahang.restaurant.model.OrderStatus;
 import com.nhahang.restaurant.model.OrderType;
 import com.nhahang.restaurant.model.entity.*;
 import com.nhahang.restaurant.repository.*;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -18,10 +23,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 @RequiredArgsConstructor
 public class OrderService {
 
@@ -30,72 +39,59 @@ public class OrderService {
     private final RestaurantTableRepository restaurantTableRepository;
     private final MenuItemRepository menuItemRepository;
     private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    // Booking được coi là của đơn nếu giờ đặt nằm trong khoảng này quanh lúc tạo đơn
+    private static final long BOOKING_MATCH_HOURS = 12;
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findAllWithDetails());
     }
 
     @Transactional(readOnly = true)
     public OrderDTO getOrderById(Integer id) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + id));
         return convertToDTO(order);
     }
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserId(Integer userId) {
-        List<Order> orders = orderRepository.findAll().stream()
-                .filter(order -> order.getUser() != null && order.getUser().getId().equals(userId))
-                .collect(Collectors.toList());
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByUserId(userId));
     }
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserEmail(String email) {
-        List<Order> orders = orderRepository.findByUserEmail(email);
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByUserEmail(email));
     }
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserPhoneNumber(String phoneNumber) {
-        List<Order> orders = orderRepository.findByUserPhoneNumber(phoneNumber);
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByUserPhoneNumber(phoneNumber));
     }
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByTableId(Integer tableId) {
-        List<Order> orders = orderRepository.findAll().stream()
-                .filter(order -> order.getTable() != null && order.getTable().getId().equals(tableId))
-                .collect(Collectors.toList());
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByTableId(tableId));
     }
 
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByStatus(String status) {
+        OrderStatus orderStatus;
         try {
-            OrderStatus orderStatus = OrderStatus.valueOf(status);
-            List<Order> orders = orderRepository.findByStatus(orderStatus);
-            return orders.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            orderStatus = OrderStatus.valueOf(status);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Trạng thái đơn hàng không hợp lệ: " + status);
         }
+        return convertToDTOs(orderRepository.findByStatus(orderStatus));
     }
 
     @Transactional
     public OrderDTO createOrder(OrderCreateRequest request) {
+        // Đo riêng từng bước để biết tạo đơn chậm ở đâu (order.create.phase{phase})
+        Timer.Sample phase = Timer.start(meterRegistry);
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng với ID: " + request.getUserId()));
 
@@ -111,12 +107,14 @@ public class OrderService {
             if (request.getTableId() != null) {
                 throw new RuntimeException("Đơn hàng mang đi không cần bàn");
             }
+            phase = nextPhase(phase, "user_table_lookup");
         } else {
             if (request.getTableId() == null) {
                 throw new RuntimeException("Đơn hàng tại chỗ phải có bàn");
             }
             table = restaurantTableRepository.findById(request.getTableId())
                     .orElseThrow(() -> new RuntimeException("Không tìm thấy bàn với ID: " + request.getTableId()));
+            phase = nextPhase(phase, "user_table_lookup");
 
             LocalDateTime now = LocalDateTime.now();
             List<Booking> bookings = bookingRepository.findByTableId(table.getId());
@@ -130,6 +128,7 @@ public class OrderService {
             if (!hasValidBooking) {
                 throw new RuntimeException("Đơn tại chỗ phải có booking bàn hợp lệ và đúng thời gian đặt!");
             }
+            phase = nextPhase(phase, "booking_validation");
         }
 
         if (request.getOrderItems() == null || request.getOrderItems().isEmpty()) {
@@ -178,8 +177,10 @@ public class OrderService {
 
         order.setTotalAmount(totalAmount);
         order.setOrderItems(orderItems);
+        phase = nextPhase(phase, "menu_lookup");
 
         Order savedOrder = orderRepository.save(order);
+        phase = nextPhase(phase, "save");
 
         if (orderType == OrderType.Dinein && table != null && user != null) {
             List<Booking> bookings = bookingRepository.findByTableId(table.getId());
@@ -198,10 +199,17 @@ public class OrderService {
                 bookingRepository.save(matched);
             }
         }
+        phase.stop(meterRegistry.timer("order.create.phase", "phase", "booking_complete"));
 
+        AfterCommit.run(() -> meterRegistry.counter("orders.created", "type", orderType.name()).increment());
         return convertToDTO(savedOrder);
     }
 
+    private Timer.Sample nextPhase(Timer.Sample phase, String name) {
+        phase.stop(meterRegistry.timer("order.create.phase", "phase", name));
+        return Timer.start(meterRegistry);
+    }
+
     @Transactional
     public OrderDTO updateOrder(Integer id, OrderCreateRequest request) {
         Order order = orderRepository.findById(id)
@@ -299,6 +307,16 @@ public class OrderService {
                 throw new RuntimeException("Không thể cập nhật đơn hàng đã hoàn thành");
             }
 
+            if (newStatus == OrderStatus.Completed) {
+                // Trạng thái đọc ở trên có thể đã cũ: luồng xác nhận thanh toán có thể vừa hoàn thành đơn
+                if (orderRepository.markCompletedIfNot(id) == 0) {
+                    throw new RuntimeException("Không thể cập nhật đơn hàng đã hoàn thành");
+                }
+                order.setStatus(newStatus);
+                eventPublisher.publishEvent(new OrderCompletedEvent(id));
+                return convertToDTO(order);
+            }
+
             order.setStatus(newStatus);
             Order updatedOrder = orderRepository.save(order);
             return convertToDTO(updatedOrder);
@@ -356,6 +374,40 @@ public class OrderService {
     }
 
     private OrderDTO convertToDTO(Order order) {
+        return convertToDTOs(List.of(order)).get(0);
+    }
+
+    /**
+     * Logic: Dựng DTO cho cả danh sách đơn; giờ đặt bàn của mọi đơn tại bàn lấy bằng một câu
+     * truy vấn chung thay vì mỗi đơn một câu (danh sách đơn nên được nạp kèm graph "Order.details")
+     */
+    private List<OrderDTO> convertToDTOs(List<Order> orders) {
+        Map<Integer, LocalDateTime> bookingTimes = findBookingTimes(orders);
+        return orders.stream()
+                .map(order -> convertToDTO(order, bookingTimes))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Giờ đặt bàn ghép được cho từng đơn tại bàn trong danh sách (id đơn -> giờ đặt).
+     * DB chỉ ghép theo đúng cặp (khách, bàn, giờ tạo đơn) của các đơn này, không quét cả khoảng thời gian
+     */
+    private Map<Integer, LocalDateTime> findBookingTimes(List<Order> orders) {
+        List<Integer> dineInOrderIds = orders.stream()
+                .filter(order -> order.getOrderType() == OrderType.Dinein && order.getTable() != null && order.getUser() != null)
+                .map(Order::getId)
+                .toList();
+        if (dineInOrderIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, LocalDateTime> bookingTimes = new HashMap<>();
+        for (Object[] row : bookingRepository.findLatestBookingTimesForOrders(dineInOrderIds, BOOKING_MATCH_HOURS)) {
+            bookingTimes.put((Integer) row[0], (LocalDateTime) row[1]);
+        }
+        return bookingTimes;
+    }
+
+    private OrderDTO convertToDTO(Order order, Map<Integer, LocalDateTime> bookingTimes) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setUserId(order.getUser() != null ? order.getUser().getId() : null);
@@ -374,21 +426,8 @@ public class OrderService {
             dto.setOrderItems(orderItemDTOs);
         }
 
-        if (order.getOrderType() == OrderType.Dinein && order.getTable() != null && order.getUser() != null) {
-            LocalDateTime startSearch = order.getCreatedAt().minusHours(12);
-            LocalDateTime endSearch = order.getCreatedAt().plusHours(12);
-
-            List<Booking> foundBookings = bookingRepository.findBookingsForOrder(
-                order.getUser().getId(),
-                order.getTable().getId(),
-                startSearch,
-                endSearch
-            );
-
-            if (!foundBookings.isEmpty()) {
-                dto.setBookingTime(foundBookings.get(0).getBookingTime());
-            }
-        }
+        // Booking muộn nhất của khách tại bàn trong khoảng ±12 giờ quanh lúc tạo đơn
+        dto.setBookingTime(bookingTimes.get(order.getId()));
 
         if (order.getPayment() != null) {
             dto.setPaymentStatus(order.getPayment().getStatus().name());
@@ -416,33 +455,22 @@ public class OrderService {
         LocalDateTime startDate = yearMonth.atDay(1).atStartOfDay();
         LocalDateTime endDate = yearMonth.atEndOfMonth().atTime(23, 59, 59);
 
-        List<Order> orders = orderRepository.findByCreatedAtBetween(startDate, endDate);
+        // Đếm và cộng tiền theo trạng thái ngay trong DB, không nạp từng đơn (và user/bàn của đơn) lên
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        Map<OrderStatus, BigDecimal> amounts = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : orderRepository.countAndSumByStatus(startDate, endDate)) {
+            counts.put((OrderStatus) row[0], ((Number) row[1]).longValue());
+            amounts.put((OrderStatus) row[0], (BigDecimal) row[2]);
+        }
 
         MonthlyOrderStatsDTO stats = new MonthlyOrderStatsDTO();
         stats.setYear(year);
         stats.setMonth(month);
-        stats.setTotalOrders((long) orders.size());
-
-        long completedOrders = orders.stream()
-                .filter(order -> order.getStatus() == OrderStatus.Completed)
-                .count();
-        stats.setCompletedOrders(completedOrders);
-
-        long cancelledOrders = orders.stream()
-                .filter(order -> order.getStatus() == OrderStatus.Cancelled)
-                .count();
-        stats.setCancelledOrders(cancelledOrders);
-
-        long pendingOrders = orders.stream()
-                .filter(order -> order.getStatus() == OrderStatus.Pending)
-                .count();
-        stats.setPendingOrders(pendingOrders);
-
-        BigDecimal totalRevenue = orders.stream()
-                .filter(order -> order.getStatus() == OrderStatus.Completed)
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.setTotalRevenue(totalRevenue);
+        stats.setTotalOrders(counts.values().stream().mapToLong(Long::longValue).sum());
+        stats.setCompletedOrders(counts.getOrDefault(OrderStatus.Completed, 0L));
+        stats.setCancelledOrders(counts.getOrDefault(OrderStatus.Cancelled, 0L));
+        stats.setPendingOrders(counts.getOrDefault(OrderStatus.Pending, 0L));
+        stats.setTotalRevenue(amounts.getOrDefault(OrderStatus.Completed, BigDecimal.ZERO));
 
         return stats;
     }
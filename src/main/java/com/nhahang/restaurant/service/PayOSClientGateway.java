@@ -0,0 +1,38 @@
+package com.nhahang.restaurant.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import vn.payos.PayOS;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+/**
+ * Cài đặt mặc định của {@link PayOSGateway}, gọi thẳng SDK PayOS.
+ * Đặt payos.gateway khác "payos" để thay bằng một bean "payOSClientGateway" khác (vd. bản giả lập khi đo tải).
+ */
+@Component
+@ConditionalOnProperty(name = "payos.gateway", havingValue = "payos", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PayOSClientGateway implements PayOSGateway {
+
+    private final PayOS payOS;
+
+    @Override
+    public CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequest request) {
+        return payOS.paymentRequests().create(request);
+    }
+
+    @Override
+    public PaymentLink getPaymentLink(long orderCode) {
+        return payOS.paymentRequests().get(orderCode);
+    }
+
+    @Override
+    public WebhookData verifyWebhook(Webhook webhook) {
+        return payOS.webhooks().verify(webhook);
+    }
+}
@@ -0,0 +1,20 @@
+package com.nhahang.restaurant.service;
+
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+/**
+ * Các lời gọi ra PayOS mà ứng dụng dùng, tách thành interface để có thể
+ * thay bằng bản giả lập khi chạy cục bộ hoặc đo tải.
+ */
+public interface PayOSGateway {
+
+    CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequest request);
+
+    PaymentLink getPaymentLink(long orderCode);
+
+    WebhookData verifyWebhook(Webhook webhook);
+}
@@ -0,0 +1,15 @@
+package com.nhahang.restaurant.service;
+
+/**
+ * PayOS không phản hồi kịp, bulkhead đầy hoặc circuit breaker đang mở
+ */
+public class PayOSUnavailableException extends RuntimeException {
+
+    public PayOSUnavailableException(String message) {
+        super(message);
+    }
+
+    public PayOSUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
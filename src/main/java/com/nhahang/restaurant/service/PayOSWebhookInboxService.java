@@ -0,0 +1,214 @@
+package com.nhahang.restaurant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nhahang.restaurant.model.WebhookInboxStatus;
+import com.nhahang.restaurant.model.entity.PaymentWebhookInbox;
+import com.nhahang.restaurant.repository.PaymentWebhookInboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nhận webhook PayOS theo kiểu "xác thực - ghi inbox - trả lời ngay",
+ * phần cập nhật payment/order/booking/bàn chạy trên pool riêng.
+ */
+@Slf4j
+@Service
+public class PayOSWebhookInboxService {
+
+    private static final int BATCH_SIZE = 50;
+
+    private final PaymentWebhookInboxRepository inboxRepository;
+    private final PaymentService paymentService;
+    private final PayOSGateway payOSGateway;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${payos.webhook.max-attempts:5}")
+    private int maxAttempts;
+    @Value("${payos.webhook.retry-base-delay-ms:10000}")
+    private long retryBaseDelayMs;
+    @Value("${payos.webhook.retry-max-delay-ms:600000}")
+    private long retryMaxDelayMs;
+
+    // Các dòng inbox đang được xử lý, tránh poller và dispatch ngay lập tức chạy trùng
+    private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+    private final AtomicLong backlog = new AtomicLong();
+
+    private final Counter enqueuedCounter;
+    private final Counter duplicateCounter;
+    private final Counter processedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+
+    public PayOSWebhookInboxService(PaymentWebhookInboxRepository inboxRepository,
+                                    PaymentService paymentService,
+                                    PayOSGateway payOSGateway,
+                                    ObjectMapper objectMapper,
+                                    TransactionTemplate transactionTemplate,
+                                    @Qualifier("webhookExecutor") ThreadPoolTaskExecutor executor,
+                                    MeterRegistry meterRegistry) {
+        this.inboxRepository = inboxRepository;
+        this.paymentService = paymentService;
+        this.payOSGateway = payOSGateway;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+
+        Gauge.builder("payos.webhook.inbox.backlog", backlog, AtomicLong::get)
+                .description("Số webhook đang chờ xử lý trong inbox")
+                .register(meterRegistry);
+        Gauge.builder("payos.webhook.inbox.in_progress", inProgress, Set::size)
+                .register(meterRegistry);
+        this.enqueuedCounter = meterRegistry.counter("payos.webhook.inbox.received", "result", "enqueued");
+        this.duplicateCounter = meterRegistry.counter("payos.webhook.inbox.received", "result", "duplicate");
+        this.processedCounter = meterRegistry.counter("payos.webhook.inbox.processed", "result", "success");
+        this.retriedCounter = meterRegistry.counter("payos.webhook.inbox.processed", "result", "retry");
+        this.failedCounter = meterRegistry.counter("payos.webhook.inbox.processed", "result", "failed");
+        this.lagTimer = Timer.builder("payos.webhook.inbox.lag")
+                .description("Thời gian từ lúc nhận webhook tới khi xử lý xong")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Logic: Xác thực chữ ký và ghi webhook vào inbox. Webhook trùng
+     * (cùng orderCode + mã giao dịch) được bỏ qua nhưng vẫn trả lời thành công.
+     */
+    public void receive(ObjectNode webhookBody) throws Exception {
+        Webhook webhook = objectMapper.treeToValue(webhookBody, Webhook.class);
+        WebhookData data = payOSGateway.verifyWebhook(webhook);
+
+        Long orderCode = data.getOrderCode();
+        String transactionId = data.getReference() != null ? data.getReference() : "";
+        if (inboxRepository.existsByOrderCodeAndTransactionId(orderCode, transactionId)) {
+            duplicateCounter.increment();
+            return;
+        }
+
+        PaymentWebhookInbox entry = new PaymentWebhookInbox();
+        entry.setOrderCode(orderCode);
+        entry.setTransactionId(transactionId);
+        entry.setPayload(webhookBody.toString());
+        entry.setStatus(WebhookInboxStatus.Pending);
+        entry.setAttempts(0);
+        try {
+            entry = inboxRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            duplicateCounter.increment(); // PayOS gửi lại đồng thời
+            return;
+        }
+        enqueuedCounter.increment();
+        backlog.incrementAndGet();
+        dispatch(entry.getId());
+    }
+
+    /**
+     * Logic: Quét định kỳ các webhook còn Pending đã tới hạn (sau khi restart, bị từ chối khỏi
+     * hàng đợi hoặc hết thời gian chờ thử lại) và cập nhật số liệu backlog
+     */
+    @Scheduled(fixedDelayString = "${payos.webhook.poll-interval-ms:2000}")
+    public void pollPending() {
+        backlog.set(inboxRepository.countByStatus(WebhookInboxStatus.Pending));
+        List<PaymentWebhookInbox> pending = inboxRepository.findDueByStatus(
+                WebhookInboxStatus.Pending, LocalDateTime.now(), PageRequest.of(0, BATCH_SIZE));
+        for (PaymentWebhookInbox entry : pending) {
+            dispatch(entry.getId());
+        }
+    }
+
+    private void dispatch(Long inboxId) {
+        if (!inProgress.add(inboxId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(inboxId);
+                } finally {
+                    inProgress.remove(inboxId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(inboxId); // hàng đợi đầy, để poller lấy lại sau
+        }
+    }
+
+    private void process(Long inboxId) {
+        PaymentWebhookInbox entry = inboxRepository.findById(inboxId).orElse(null);
+        if (entry == null || entry.getStatus() != WebhookInboxStatus.Pending
+                || (entry.getNextAttemptAt() != null && entry.getNextAttemptAt().isAfter(LocalDateTime.now()))) {
+            return;
+        }
+        int attempts = entry.getAttempts() + 1;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                paymentService.applyPayOSPayment((int) entry.getOrderCode().longValue(), entry.getTransactionId());
+                entry.setStatus(WebhookInboxStatus.Processed);
+                entry.setAttempts(attempts);
+                entry.setLastError(null);
+                entry.setNextAttemptAt(null);
+                entry.setProcessedAt(LocalDateTime.now());
+                inboxRepository.save(entry);
+            });
+            processedCounter.increment();
+            backlog.updateAndGet(v -> Math.max(0, v - 1));
+            if (entry.getReceivedAt() != null) {
+                lagTimer.record(Duration.between(entry.getReceivedAt(), entry.getProcessedAt()));
+            }
+        } catch (RuntimeException e) {
+            entry.setStatus(WebhookInboxStatus.Pending);
+            entry.setProcessedAt(null);
+            entry.setAttempts(attempts);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            entry.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            if (attempts >= maxAttempts) {
+                entry.setStatus(WebhookInboxStatus.Failed);
+                entry.setNextAttemptAt(null);
+                entry.setProcessedAt(LocalDateTime.now());
+                failedCounter.increment();
+                backlog.updateAndGet(v -> Math.max(0, v - 1));
+                log.error("Webhook PayOS (orderCode {}, giao dịch {}) thất bại sau {} lần: {}",
+                        entry.getOrderCode(), entry.getTransactionId(), attempts, message, e);
+            } else {
+                long delayMs = retryDelayMs(attempts);
+                entry.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(delayMs)));
+                retriedCounter.increment();
+                log.warn("Webhook PayOS (orderCode {}) lỗi lần {}, thử lại sau {}ms: {}",
+                        entry.getOrderCode(), attempts, delayMs, message);
+            }
+            inboxRepository.save(entry);
+        }
+    }
+
+    /**
+     * Logic: Backoff luỹ thừa theo số lần đã thử (base, 2*base, 4*base...), chặn trên bởi retryMaxDelayMs,
+     * để lỗi tạm thời của DB không đốt hết số lần thử trong vài chu kỳ quét
+     */
+    long retryDelayMs(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        return Math.min(retryMaxDelayMs, retryBaseDelayMs << shift);
+    }
+}
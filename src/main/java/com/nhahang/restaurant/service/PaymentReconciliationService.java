@@ -0,0 +1,204 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.PaymentDTO;
+import com.nhahang.restaurant.dto.ReconciliationResultDTO;
+import com.nhahang.restaurant.model.PaymentMethod;
+import com.nhahang.restaurant.model.PaymentStatus;
+import com.nhahang.restaurant.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import vn.payos.exception.APIException;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Đối soát các thanh toán PayOS bị treo ở Pending (thường do mất webhook):
+ * quét theo lô keyset trên id, hỏi trạng thái link trên PayOS song song có giới hạn,
+ * rồi áp kết quả qua đúng luồng xác nhận của PaymentService.
+ */
+@Slf4j
+@Service
+public class PaymentReconciliationService {
+
+    // Kết quả tra cứu một thanh toán; link == null nghĩa là không lấy được từ PayOS
+    private record Lookup(PaymentDTO payment, PaymentLink link, RuntimeException error) {
+    }
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final PayOSGateway payOSGateway;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${payos.reconcile.stale-after-minutes:20}")
+    private long staleAfterMinutes;
+    @Value("${payos.reconcile.chunk-size:100}")
+    private int chunkSize;
+    @Value("${payos.reconcile.max-per-run:2000}")
+    private int maxPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter confirmedCounter;
+    private final Counter failedCounter;
+    private final Counter pendingCounter;
+    private final Counter errorCounter;
+    private final Timer runTimer;
+
+    public PaymentReconciliationService(PaymentRepository paymentRepository,
+                                        PaymentService paymentService,
+                                        PayOSGateway payOSGateway,
+                                        @Qualifier("payOSReconcileExecutor") ThreadPoolTaskExecutor executor,
+                                        MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        this.payOSGateway = payOSGateway;
+        this.executor = executor;
+
+        this.confirmedCounter = meterRegistry.counter("payos.reconcile.checked", "result", "confirmed");
+        this.failedCounter = meterRegistry.counter("payos.reconcile.checked", "result", "failed");
+        this.pendingCounter = meterRegistry.counter("payos.reconcile.checked", "result", "pending");
+        this.errorCounter = meterRegistry.counter("payos.reconcile.checked", "result", "error");
+        this.runTimer = Timer.builder("payos.reconcile.run")
+                .description("Thời gian một lượt đối soát PayOS")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${payos.reconcile.interval-ms:300000}",
+               fixedDelayString = "${payos.reconcile.interval-ms:300000}")
+    public void scheduledReconcile() {
+        ReconciliationResultDTO result = reconcile();
+        if (result != null && result.getScanned() > 0) {
+            log.info("Đối soát PayOS: {} thanh toán, {} xác nhận, {} hủy/hết hạn, {} lỗi trong {}ms ({}/s)",
+                    result.getScanned(), result.getConfirmed(), result.getFailed(), result.getErrors(),
+                    result.getDurationMs(), String.format("%.1f", result.getThroughputPerSecond()));
+        }
+    }
+
+    /**
+     * Logic: Chạy một lượt đối soát. Trả về null nếu đang có lượt khác chạy.
+     */
+    public ReconciliationResultDTO reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return runTimer.record(this::doReconcile);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReconciliationResultDTO doReconcile() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        LocalDateTime before = startedAt.minusMinutes(staleAfterMinutes);
+
+        int scanned = 0, confirmed = 0, failed = 0, stillPending = 0, errors = 0;
+        boolean aborted = false;
+        Integer lastId = 0;
+
+        while (scanned < maxPerRun && !aborted) {
+            List<PaymentDTO> chunk = paymentRepository.findDtosForReconciliation(
+                    PaymentStatus.Pending, PaymentMethod.PayOS, before, lastId,
+                    PageRequest.of(0, Math.min(chunkSize, maxPerRun - scanned)));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+            scanned += chunk.size();
+
+            // 1. Hỏi PayOS song song (giới hạn bởi pool đối soát)
+            List<CompletableFuture<Lookup>> lookups = new ArrayList<>(chunk.size());
+            for (PaymentDTO payment : chunk) {
+                lookups.add(CompletableFuture.supplyAsync(() -> lookup(payment), executor));
+            }
+
+            // 2. Áp kết quả tuần tự trên thread của job, mỗi thanh toán một transaction
+            for (CompletableFuture<Lookup> future : lookups) {
+                Lookup lookup = future.join();
+                if (lookup.error() != null) {
+                    errors++;
+                    errorCounter.increment();
+                    if (lookup.error() instanceof PayOSUnavailableException) {
+                        aborted = true; // PayOS đang lỗi/quá tải, để lượt sau
+                    }
+                    continue;
+                }
+                try {
+                    switch (apply(lookup)) {
+                        case PAID -> {
+                            confirmed++;
+                            confirmedCounter.increment();
+                        }
+                        case CANCELLED, EXPIRED, FAILED -> {
+                            failed++;
+                            failedCounter.increment();
+                        }
+                        default -> {
+                            stillPending++;
+                            pendingCounter.increment();
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    errors++;
+                    errorCounter.increment();
+                    log.warn("Đối soát thanh toán {} lỗi: {}", lookup.payment().getId(), e.getMessage());
+                }
+            }
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        double throughput = durationMs == 0 ? scanned : scanned * 1000.0 / durationMs;
+        return new ReconciliationResultDTO(startedAt, durationMs, scanned, confirmed, failed,
+                stillPending, errors, throughput, aborted);
+    }
+
+    private Lookup lookup(PaymentDTO payment) {
+        try {
+            return new Lookup(payment, payOSGateway.getPaymentLink(payment.getOrderId()), null);
+        } catch (APIException e) {
+            if (e.getStatusCode().map(status -> status == 404).orElse(false)) {
+                // Chưa từng tạo link trên PayOS: coi như vẫn Pending
+                return new Lookup(payment, null, null);
+            }
+            return new Lookup(payment, null, e);
+        } catch (RuntimeException e) {
+            return new Lookup(payment, null, e);
+        }
+    }
+
+    private PaymentLinkStatus apply(Lookup lookup) {
+        PaymentLink link = lookup.link();
+        if (link == null || link.getStatus() == null) {
+            return PaymentLinkStatus.PENDING;
+        }
+        switch (link.getStatus()) {
+            case PAID -> {
+                String reference = link.getTransactions() != null && !link.getTransactions().isEmpty()
+                        ? link.getTransactions().get(link.getTransactions().size() - 1).getReference()
+                        : null;
+                paymentService.applyPayOSPayment(lookup.payment().getOrderId(), reference);
+            }
+            case CANCELLED, EXPIRED, FAILED -> paymentService.failPayment(lookup.payment().getId());
+            default -> {
+                // PENDING / PROCESSING / UNDERPAID: chờ lượt sau
+            }
+        }
+        return link.getStatus();
+    }
+}
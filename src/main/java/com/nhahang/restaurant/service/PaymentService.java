@@ -1,11 +1,10 @@
 package com.nhahang.restaurant.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.nhahang.restaurant.dto.PaymentCreateRequest;
 import com.nhahang.restaurant.dto.PaymentDTO;
 import com.nhahang.restaurant.dto.PaymentMethodDistributionDTO;
 import com.nhahang.restaurant.dto.RevenueReportDTO;
+import com.nhahang.restaurant.event.OrderCompletedEvent;
 import com.nhahang.restaurant.model.OrderStatus;
 import com.nhahang.restaurant.model.PaymentMethod;
 import com.nhahang.restaurant.model.PaymentStatus;
@@ -16,28 +15,36 @@ import com.nhahang.restaurant.repository.BookingRepository;
 import com.nhahang.restaurant.repository.OrderRepository;
 import com.nhahang.restaurant.repository.PaymentRepository;
 import com.nhahang.restaurant.repository.RestaurantTableRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import vn.payos.PayOS;
 import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
 import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
 import vn.payos.model.v2.paymentRequests.PaymentLink;
 import vn.payos.model.v2.paymentRequests.PaymentLinkItem;
-import vn.payos.model.webhooks.Webhook;
-import vn.payos.model.webhooks.WebhookData;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 @RequiredArgsConstructor
 public class PaymentService {
 
@@ -45,7 +52,39 @@ public class PaymentService {
     private final OrderRepository orderRepository;
     private final BookingRepository bookingRepository;
     private final RestaurantTableRepository restaurantTableRepository;
-    private final PayOS payOS;
+    private final PayOSGateway payOSGateway;
+    private final RevenueSeriesService revenueSeriesService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    // Kết quả tổng hợp doanh thu theo khoảng thời gian, dùng chung cho báo cáo và phân bố phương thức
+    private record RevenueRange(LocalDateTime from, LocalDateTime to) {
+    }
+
+    private record MethodTotal(long count, BigDecimal amount) {
+        static final MethodTotal EMPTY = new MethodTotal(0, BigDecimal.ZERO);
+    }
+
+    private final TtlCache<RevenueRange, Map<PaymentMethod, MethodTotal>> revenueCache =
+            new TtlCache<>(TimeUnit.SECONDS.toMillis(30), 128);
+
+    // Link thanh toán PayOS còn hiệu lực theo đơn hàng, kèm số tiền lúc tạo link
+    private record CachedLink(BigDecimal amount, CreatePaymentLinkResponse response) {
+    }
+
+    // Kết quả pha DB của việc tạo link: link còn hạn trong cache, hoặc request cần gửi PayOS
+    private record PreparedLink(BigDecimal amount, CreatePaymentLinkRequest request, CreatePaymentLinkResponse cached) {
+    }
+
+    private static final long LINK_TTL_SECONDS = 15 * 60;
+    // Bỏ link khỏi cache sớm hơn hạn thật một chút để khách không mở phải link vừa hết hạn
+    private static final long LINK_EXPIRY_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    // Link lấy lại qua API get không có expiredAt, chỉ giữ ngắn hạn
+    private static final long RECOVERED_LINK_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final TtlCache<Integer, CachedLink> payOSLinkCache =
+            new TtlCache<>(RECOVERED_LINK_TTL_MILLIS, 1024);
 
     @Value("${payos.return-url}")
     private String returnUrl;
@@ -54,9 +93,66 @@ public class PaymentService {
 
     /**
      * TẠO LINK THANH TOÁN PAYOS (V2)
+     * Logic: Đọc đơn + ghi Payment trong một transaction ngắn rồi mới gọi PayOS, để không giữ
+     * connection DB trong lúc chờ cổng thanh toán (khi chạy virtual thread, pool connection
+     * chứ không phải pool thread mới là giới hạn số request đồng thời)
      */
-    @Transactional
     public CreatePaymentLinkResponse createPayOSLink(Integer orderId) throws Exception {
+        PreparedLink prepared = transactionTemplate.execute(status -> prepareLink(orderId));
+        if (prepared.cached() != null) {
+            return prepared.cached();
+        }
+        CreatePaymentLinkRequest request = prepared.request();
+        BigDecimal amount = prepared.amount();
+
+        // 4. Gọi PayOS - XỬ LÝ TRƯỜNG HỢP TRÙNG MÃ ĐƠN HÀNG
+        try {
+            CreatePaymentLinkResponse response = payOSGateway.createPaymentLink(request);
+            long linkExpiresAt = (response.getExpiredAt() != null ? response.getExpiredAt() : request.getExpiredAt()) * 1000;
+            cacheLink(orderId, new CachedLink(amount, response), linkExpiresAt - LINK_EXPIRY_MARGIN_MILLIS);
+            return response;
+        } catch (Exception e) {
+            if (e.getMessage() != null && (e.getMessage().contains("already exists") || e.getMessage().contains("231"))) {
+                System.out.println("Link đã tồn tại, đang lấy lại thông tin...");
+                
+                // Gọi API lấy thông tin link thanh toán (trả về PaymentLink, KHÔNG phải CreatePaymentLinkResponse)
+                PaymentLink existingLink = payOSGateway.getPaymentLink(orderId);
+                
+                // Map thủ công từ PaymentLink sang CreatePaymentLinkResponse
+                CreatePaymentLinkResponse response = CreatePaymentLinkResponse.builder()
+                        // Tự construct checkoutUrl từ ID
+                        .checkoutUrl("https://pay.payos.vn/web/" + existingLink.getId()) 
+                        .paymentLinkId(existingLink.getId())
+                        .orderCode(existingLink.getOrderCode())
+                        .amount(existingLink.getAmount())
+                        .currency("VND")
+                        .status(existingLink.getStatus())
+                        // Các trường dưới đây PaymentLink không có, điền rỗng để tránh lỗi null
+                        .qrCode("") 
+                        .accountName("")
+                        .accountNumber("")
+                        .bin("")
+                        .description(existingLink.getTransactions() != null && !existingLink.getTransactions().isEmpty() 
+                                ? existingLink.getTransactions().get(0).getDescription() : "")
+                        .build();
+
+                if (existingLink.getStatus() == PaymentLinkStatus.PENDING
+                        && existingLink.getAmount() != null
+                        && existingLink.getAmount() == amount.longValue()) {
+                    cacheLink(orderId, new CachedLink(amount, response),
+                            System.currentTimeMillis() + RECOVERED_LINK_TTL_MILLIS);
+                }
+                return response;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Pha DB của createPayOSLink: kiểm tra đơn, trả link còn hạn trong cache nếu đúng số tiền,
+     * nếu không thì cập nhật/tạo Payment Pending và dựng request gửi PayOS
+     */
+    private PreparedLink prepareLink(Integer orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng: " + orderId));
 
@@ -64,7 +160,16 @@ public class PaymentService {
             throw new RuntimeException("Số tiền thanh toán không hợp lệ.");
         }
 
-        // 1. Cập nhật hoặc tạo Payment trong Database
+        // 0. Link còn hạn cho đúng số tiền hiện tại thì trả lại luôn, không gọi PayOS
+        CachedLink cached = payOSLinkCache.get(orderId);
+        if (cached != null) {
+            if (cached.amount().compareTo(order.getTotalAmount()) == 0) {
+                return new PreparedLink(order.getTotalAmount(), null, cached.response());
+            }
+            payOSLinkCache.invalidate(orderId); // tổng tiền đơn đã đổi
+        }
+
+        // 1. Cập nhật hoặc tạo Payment trong Database, ghi lại mốc dựng link mới
         Payment payment = paymentRepository.findByOrderId(orderId).orElse(null);
         
         if (payment == null) {
@@ -73,16 +178,22 @@ public class PaymentService {
             payment.setAmount(order.getTotalAmount());
             payment.setPaymentMethod(PaymentMethod.PayOS);
             payment.setStatus(PaymentStatus.Pending);
-            paymentRepository.save(payment);
         } else {
             if (payment.getStatus() == PaymentStatus.Successful) {
                 throw new RuntimeException("Đơn hàng này đã được thanh toán thành công.");
             }
-            payment.setAmount(order.getTotalAmount());
-            payment.setPaymentMethod(PaymentMethod.PayOS);
-            payment.setStatus(PaymentStatus.Pending);
-            paymentRepository.save(payment);
+            if (payment.getAmount() == null || payment.getAmount().compareTo(order.getTotalAmount()) != 0
+                    || payment.getPaymentMethod() != PaymentMethod.PayOS
+                    || payment.getStatus() != PaymentStatus.Pending) {
+                payment.setAmount(order.getTotalAmount());
+                payment.setPaymentMethod(PaymentMethod.PayOS);
+                payment.setStatus(PaymentStatus.Pending);
+            }
         }
+        // payment_time không đổi sau lần tạo đầu, nên link tạo lại phải có mốc riêng,
+        // nếu không đối soát sẽ coi link vừa tạo là đã treo
+        payment.setLinkCreatedAt(LocalDateTime.now());
+        paymentRepository.save(payment);
 
         // 2. Tạo danh sách sản phẩm (PaymentLinkItem)
         List<PaymentLinkItem> items = new ArrayList<>();
@@ -98,7 +209,7 @@ public class PaymentService {
         }
 
         // 3. Tạo Request tạo link
-        long expiredAt = (System.currentTimeMillis() / 1000) + (15 * 60);
+        long expiredAt = (System.currentTimeMillis() / 1000) + LINK_TTL_SECONDS;
         String finalReturnUrl = returnUrl + "?orderId=" + orderId;
         String finalCancelUrl = cancelUrl + "?orderId=" + orderId;
         String description = "Thanh toan don " + orderId;
@@ -113,64 +224,57 @@ public class PaymentService {
                 .expiredAt(expiredAt)
                 .build();
 
-        // 4. Gọi PayOS - XỬ LÝ TRƯỜNG HỢP TRÙNG MÃ ĐƠN HÀNG
-        try {
-            return payOS.paymentRequests().create(request);
-        } catch (Exception e) {
-            if (e.getMessage().contains("already exists") || e.getMessage().contains("231")) {
-                System.out.println("Link đã tồn tại, đang lấy lại thông tin...");
-                
-                // Gọi API lấy thông tin link thanh toán (trả về PaymentLink, KHÔNG phải CreatePaymentLinkResponse)
-                PaymentLink existingLink = payOS.paymentRequests().get(Long.valueOf(orderId));
-                
-                // Map thủ công từ PaymentLink sang CreatePaymentLinkResponse
-                return CreatePaymentLinkResponse.builder()
-                        // Tự construct checkoutUrl từ ID
-                        .checkoutUrl("https://pay.payos.vn/web/" + existingLink.getId()) 
-                        .paymentLinkId(existingLink.getId())
-                        .orderCode(existingLink.getOrderCode())
-                        .amount(existingLink.getAmount())
-                        .currency("VND")
-                        .status(existingLink.getStatus())
-                        // Các trường dưới đây PaymentLink không có, điền rỗng để tránh lỗi null
-                        .qrCode("") 
-                        .accountName("")
-                        .accountNumber("")
-                        .bin("")
-                        .description(existingLink.getTransactions() != null && !existingLink.getTransactions().isEmpty() 
-                                ? existingLink.getTransactions().get(0).getDescription() : "")
-                        .build();
-            }
-            throw e;
-        }
+        return new PreparedLink(order.getTotalAmount(), request, null);
     }
 
     /**
-     * XỬ LÝ WEBHOOK TỪ PAYOS (V2)
+     * Chỉ đưa link vào cache sau khi transaction commit, tránh giữ link của Payment bị rollback
      */
-    @Transactional
-    public void handlePayOSWebhook(ObjectNode webhookBody) throws Exception {
-        ObjectMapper objectMapper = new ObjectMapper();
-        Webhook webhook = objectMapper.treeToValue(webhookBody, Webhook.class);
-        
-        // Xác thực Webhook (V2)
-        WebhookData data = payOS.webhooks().verify(webhook);
-
-        Integer orderId = (int) data.getOrderCode().longValue();
-        String transactionId = data.getReference();
+    private void cacheLink(Integer orderId, CachedLink link, long expiresAtMillis) {
+        AfterCommit.run(() -> payOSLinkCache.put(orderId, link, expiresAtMillis));
+    }
 
+    /**
+     * ÁP DỤNG KẾT QUẢ THANH TOÁN PAYOS (từ webhook đã xác thực trong inbox)
+     */
+    @Transactional
+    public void applyPayOSPayment(Integer orderId, String transactionId) {
         Payment payment = paymentRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy thông tin thanh toán cho Order ID: " + orderId));
 
         if (payment.getStatus() != PaymentStatus.Successful) {
-            payment.setTransactionId(transactionId);
-            payment.setStatus(PaymentStatus.Successful);
-            paymentRepository.save(payment);
+            markSuccessful(payment, transactionId);
 
             confirmPaymentInternal(payment.getId());
         }
     }
 
+    /**
+     * Chuyển thanh toán sang Successful (chỉ một lần) và cộng vào bucket doanh thu theo giờ
+     * Logic: Trạng thái đọc lúc nạp có thể đã cũ (webhook, đối soát và xác nhận tay chạy song song),
+     * nên đổi bằng UPDATE có điều kiện và chỉ luồng nào đổi được dòng mới cộng bucket
+     */
+    private void markSuccessful(Payment payment, String transactionId) {
+        if (payment.getStatus() == PaymentStatus.Successful) {
+            return;
+        }
+        boolean changed = paymentRepository.markSuccessfulIfNot(payment.getId(), transactionId) == 1;
+        // Đồng bộ object với DB; @DynamicUpdate nên lần flush sau chỉ ghi lại đúng các cột này
+        payment.setStatus(PaymentStatus.Successful);
+        if (!changed) {
+            return;
+        }
+        if (transactionId != null) {
+            payment.setTransactionId(transactionId);
+        }
+        revenueSeriesService.recordSuccessfulPayment(payment.getPaymentTime(), payment.getAmount());
+        String method = payment.getPaymentMethod() != null ? payment.getPaymentMethod().name() : "unknown";
+        AfterCommit.run(() -> {
+            revenueCache.clear();
+            meterRegistry.counter("payments.confirmed", "method", method).increment();
+        });
+    }
+
     private PaymentDTO confirmPaymentInternal(Integer paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy thanh toán với ID: " + paymentId));
@@ -179,15 +283,17 @@ public class PaymentService {
             throw new RuntimeException("Không thể xác nhận thanh toán đã thất bại");
         }
         
-        if (payment.getStatus() != PaymentStatus.Successful) {
-            payment.setStatus(PaymentStatus.Successful);
-            paymentRepository.save(payment);
+        markSuccessful(payment, null);
+        if (payment.getOrder() != null) {
+            payOSLinkCache.invalidate(payment.getOrder().getId());
         }
 
+        // Chỉ transaction đổi được dòng orders mới phát sự kiện, để bảng xếp hạng không cộng đơn hai lần
         Order order = payment.getOrder();
-        if (order != null && order.getStatus() != OrderStatus.Completed) {
+        if (order != null && order.getStatus() != OrderStatus.Completed
+                && orderRepository.markCompletedIfNot(order.getId()) == 1) {
             order.setStatus(OrderStatus.Completed);
-            orderRepository.save(order);
+            eventPublisher.publishEvent(new OrderCompletedEvent(order.getId()));
 
             if (order.getOrderType() == com.nhahang.restaurant.model.OrderType.Dinein && order.getTable() != null) {
                 List<com.nhahang.restaurant.model.entity.Booking> bookings = bookingRepository.findByTableId(order.getTable().getId());
@@ -213,11 +319,9 @@ public class PaymentService {
 
     // --- CÁC PHƯƠNG THỨC KHÁC GIỮ NGUYÊN ---
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<PaymentDTO> getAllPayments() {
-        return paymentRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return paymentRepository.findAllDtos();
     }
 
     @Transactional
@@ -227,36 +331,47 @@ public class PaymentService {
         return convertToDTO(payment);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public PaymentDTO getPaymentByOrderId(Integer orderId) {
-        Payment payment = paymentRepository.findAll().stream()
-                .filter(p -> p.getOrder() != null && p.getOrder().getId().equals(orderId))
-                .findFirst()
+        return paymentRepository.findDtoByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy thanh toán cho đơn hàng với ID: " + orderId));
-        return convertToDTO(payment);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<PaymentDTO> getPaymentsByStatus(String status) {
+        return paymentRepository.findDtosByStatus(parseStatus(status));
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentDTO> getPaymentsByMethod(String method) {
+        return paymentRepository.findDtosByPaymentMethod(parseMethod(method));
+    }
+
+    /**
+     * Tìm kiếm thanh toán có phân trang, lọc kết hợp status/method/khoảng thời gian ở DB
+     */
+    @Transactional(readOnly = true)
+    public Page<PaymentDTO> searchPayments(String status, String method,
+                                           LocalDateTime fromDate, LocalDateTime toDate,
+                                           int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "paymentTime", "id"));
+        return paymentRepository.searchDtos(
+                status != null ? parseStatus(status) : null,
+                method != null ? parseMethod(method) : null,
+                fromDate, toDate, pageable);
+    }
+
+    private PaymentStatus parseStatus(String status) {
         try {
-            PaymentStatus paymentStatus = PaymentStatus.valueOf(status);
-            return paymentRepository.findAll().stream()
-                    .filter(p -> p.getStatus() == paymentStatus)
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return PaymentStatus.valueOf(status);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Trạng thái thanh toán không hợp lệ: " + status);
         }
     }
 
-    @Transactional
-    public List<PaymentDTO> getPaymentsByMethod(String method) {
+    private PaymentMethod parseMethod(String method) {
         try {
-            PaymentMethod paymentMethod = PaymentMethod.valueOf(method);
-            return paymentRepository.findAll().stream()
-                    .filter(p -> p.getPaymentMethod() == paymentMethod)
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return PaymentMethod.valueOf(method);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Phương thức thanh toán không hợp lệ: " + method);
         }
@@ -267,9 +382,7 @@ public class PaymentService {
         Order order = orderRepository.findById(request.getOrderId())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + request.getOrderId()));
 
-        boolean hasPayment = paymentRepository.findAll().stream()
-                .anyMatch(p -> p.getOrder() != null && p.getOrder().getId().equals(request.getOrderId()));
-        if (hasPayment) {
+        if (paymentRepository.existsByOrderId(request.getOrderId())) {
             throw new RuntimeException("Đơn hàng này đã có thanh toán");
         }
 
@@ -323,6 +436,9 @@ public class PaymentService {
 
         payment.setStatus(PaymentStatus.Failed);
         Payment updatedPayment = paymentRepository.save(payment);
+        if (payment.getOrder() != null) {
+            payOSLinkCache.invalidate(payment.getOrder().getId());
+        }
         return convertToDTO(updatedPayment);
     }
 
@@ -337,11 +453,13 @@ public class PaymentService {
                 throw new RuntimeException("Không thể thay đổi trạng thái thanh toán đã thành công");
             }
 
-            payment.setStatus(newStatus);
-
-            if (newStatus == PaymentStatus.Successful && payment.getOrder() != null) {
-                confirmPaymentInternal(id);
+            if (newStatus == PaymentStatus.Successful) {
+                markSuccessful(payment, null);
+                if (payment.getOrder() != null) {
+                    confirmPaymentInternal(id);
+                }
             } else {
+                payment.setStatus(newStatus);
                 paymentRepository.save(payment);
             }
             
@@ -362,6 +480,9 @@ public class PaymentService {
         }
 
         paymentRepository.delete(payment);
+        if (payment.getOrder() != null) {
+            payOSLinkCache.invalidate(payment.getOrder().getId());
+        }
     }
 
     private PaymentDTO convertToDTO(Payment payment) {
@@ -376,96 +497,74 @@ public class PaymentService {
         return dto;
     }
 
-    @Transactional
+    /**
+     * Tổng (số giao dịch, số tiền) của các thanh toán thành công theo phương thức,
+     * lấy bằng một câu GROUP BY và cache ngắn hạn theo khoảng thời gian
+     */
+    private Map<PaymentMethod, MethodTotal> getMethodTotals(LocalDateTime fromDate, LocalDateTime toDate) {
+        return revenueCache.get(new RevenueRange(fromDate, toDate), range -> {
+            Map<PaymentMethod, MethodTotal> totals = new EnumMap<>(PaymentMethod.class);
+            for (Object[] row : paymentRepository.sumByPaymentMethod(PaymentStatus.Successful, range.from(), range.to())) {
+                totals.put((PaymentMethod) row[0],
+                        new MethodTotal(((Number) row[1]).longValue(), (BigDecimal) row[2]));
+            }
+            return totals;
+        });
+    }
+
+    @Transactional(readOnly = true)
     public RevenueReportDTO getRevenueReport(LocalDateTime fromDate, LocalDateTime toDate) {
-        List<Payment> payments = paymentRepository.findByStatusAndPaymentTimeBetween(
-                PaymentStatus.Successful, fromDate, toDate);
+        Map<PaymentMethod, MethodTotal> totals = getMethodTotals(fromDate, toDate);
 
         RevenueReportDTO report = new RevenueReportDTO();
         report.setFromDate(fromDate);
         report.setToDate(toDate);
 
-        if (payments.isEmpty()) {
-            report.setTotalRevenue(BigDecimal.ZERO);
-            report.setTotalTransactions(0L);
-            report.setAverageTransactionValue(BigDecimal.ZERO);
-            report.setCashRevenue(BigDecimal.ZERO);
-            report.setCashTransactions(0L);
-            report.setQrCodeRevenue(BigDecimal.ZERO);
-            report.setQrCodeTransactions(0L);
-            report.setCreditCardRevenue(BigDecimal.ZERO);
-            report.setCreditCardTransactions(0L);
-            return report;
+        long totalTransactions = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        for (MethodTotal total : totals.values()) {
+            totalTransactions += total.count();
+            totalRevenue = totalRevenue.add(total.amount());
         }
 
-        BigDecimal totalRevenue = payments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long totalTransactions = payments.size();
-
-        BigDecimal averageTransactionValue = totalRevenue.divide(
-                BigDecimal.valueOf(totalTransactions), 2, RoundingMode.HALF_UP);
-
         report.setTotalRevenue(totalRevenue);
         report.setTotalTransactions(totalTransactions);
-        report.setAverageTransactionValue(averageTransactionValue);
-
-        List<Payment> cashPayments = payments.stream()
-                .filter(p -> p.getPaymentMethod() == PaymentMethod.Cash)
-                .collect(Collectors.toList());
-        report.setCashRevenue(cashPayments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        report.setCashTransactions((long) cashPayments.size());
-
-        List<Payment> payOSPayments = payments.stream()
-                .filter(p -> p.getPaymentMethod() == PaymentMethod.PayOS)
-                .collect(Collectors.toList());
-        report.setQrCodeRevenue(payOSPayments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
-        report.setQrCodeTransactions((long) payOSPayments.size());
+        report.setAverageTransactionValue(totalTransactions == 0 ? BigDecimal.ZERO
+                : totalRevenue.divide(BigDecimal.valueOf(totalTransactions), 2, RoundingMode.HALF_UP));
+
+        MethodTotal cash = totals.getOrDefault(PaymentMethod.Cash, MethodTotal.EMPTY);
+        report.setCashRevenue(cash.amount());
+        report.setCashTransactions(cash.count());
 
+        MethodTotal payOSTotal = totals.getOrDefault(PaymentMethod.PayOS, MethodTotal.EMPTY);
+        report.setQrCodeRevenue(payOSTotal.amount());
+        report.setQrCodeTransactions(payOSTotal.count());
+
+        report.setCreditCardRevenue(BigDecimal.ZERO);
+        report.setCreditCardTransactions(0L);
         return report;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<PaymentMethodDistributionDTO> getPaymentMethodDistribution(
             LocalDateTime fromDate, LocalDateTime toDate) {
-        
-        List<Payment> payments = paymentRepository.findByStatusAndPaymentTimeBetween(
-                PaymentStatus.Successful, fromDate, toDate);
 
-        if (payments.isEmpty()) {
-            return new ArrayList<>();
-        }
+        Map<PaymentMethod, MethodTotal> totals = getMethodTotals(fromDate, toDate);
 
-        BigDecimal grandTotal = payments.stream()
-                .map(Payment::getAmount)
+        BigDecimal grandTotal = totals.values().stream()
+                .map(MethodTotal::amount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        Map<PaymentMethod, List<Payment>> groupedByMethod = payments.stream()
-                .collect(Collectors.groupingBy(Payment::getPaymentMethod));
-
         List<PaymentMethodDistributionDTO> distribution = new ArrayList<>();
-
-        for (Map.Entry<PaymentMethod, List<Payment>> entry : groupedByMethod.entrySet()) {
-            PaymentMethod method = entry.getKey();
-            List<Payment> methodPayments = entry.getValue();
-
+        for (Map.Entry<PaymentMethod, MethodTotal> entry : totals.entrySet()) {
             PaymentMethodDistributionDTO dto = new PaymentMethodDistributionDTO();
-            dto.setPaymentMethod(method.name());
-            dto.setTransactionCount((long) methodPayments.size());
-
-            BigDecimal totalAmount = methodPayments.stream()
-                    .map(Payment::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            dto.setTotalAmount(totalAmount);
+            dto.setPaymentMethod(entry.getKey().name());
+            dto.setTransactionCount(entry.getValue().count());
+            dto.setTotalAmount(entry.getValue().amount());
 
             BigDecimal percentage = BigDecimal.ZERO;
             if (grandTotal.compareTo(BigDecimal.ZERO) > 0) {
-                percentage = totalAmount
+                percentage = entry.getValue().amount()
                         .multiply(BigDecimal.valueOf(100))
                         .divide(grandTotal, 2, RoundingMode.HALF_UP);
             }
@@ -478,4 +577,4 @@ public class PaymentService {
 
         return distribution;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package com.nhahang.restaurant.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Chỉ mục tra theo tiền tố: khóa (đã chuẩn hóa) -> id, mỗi khóa một id.
+ * Phần chính là mảng đã sắp xếp nén liền trong một byte[] (UTF-8, so sánh không dấu),
+ * tra bằng tìm kiếm nhị phân; thay đổi mới nằm ở một skip list nhỏ và được gộp
+ * vào mảng khi vượt ngưỡng. Đọc không khóa, ghi tuần tự.
+ */
+public class PrefixIndex {
+
+    /** Một kết quả tra cứu */
+    public record Match(String key, int id) {
+    }
+
+    private static final int REMOVED = -1;
+    private static final int COMPACT_THRESHOLD = 4096;
+    // Ước lượng cho một phần tử skip list (node + index + String + Integer)
+    private static final int DELTA_ENTRY_BYTES = 120;
+
+    private static final Comparator<byte[]> UNSIGNED = Arrays::compareUnsigned;
+
+    /** Mảng bất biến: khóa thứ i nằm ở data[offsets[i], offsets[i + 1]) */
+    private record Segment(byte[] data, int[] offsets, int[] ids) {
+        static final Segment EMPTY = new Segment(new byte[0], new int[]{0}, new int[0]);
+
+        int size() {
+            return ids.length;
+        }
+
+        String key(int i) {
+            return new String(data, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+
+        /** Vị trí đầu tiên có khóa >= prefix */
+        int lowerBound(byte[] prefix) {
+            int lo = 0;
+            int hi = ids.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (Arrays.compareUnsigned(data, offsets[mid], offsets[mid + 1], prefix, 0, prefix.length) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        boolean contains(byte[] key) {
+            int i = lowerBound(key);
+            return i < ids.length
+                    && Arrays.equals(data, offsets[i], offsets[i + 1], key, 0, key.length);
+        }
+
+        boolean startsWith(int i, byte[] prefix) {
+            int length = offsets[i + 1] - offsets[i];
+            return length >= prefix.length
+                    && Arrays.equals(data, offsets[i], offsets[i] + prefix.length, prefix, 0, prefix.length);
+        }
+
+        static Segment of(List<Map.Entry<byte[], Integer>> sorted) {
+            int totalBytes = 0;
+            for (Map.Entry<byte[], Integer> entry : sorted) {
+                totalBytes += entry.getKey().length;
+            }
+            byte[] data = new byte[totalBytes];
+            int[] offsets = new int[sorted.size() + 1];
+            int[] ids = new int[sorted.size()];
+            int position = 0;
+            for (int i = 0; i < sorted.size(); i++) {
+                byte[] key = sorted.get(i).getKey();
+                System.arraycopy(key, 0, data, position, key.length);
+                offsets[i] = position;
+                ids[i] = sorted.get(i).getValue();
+                position += key.length;
+            }
+            offsets[sorted.size()] = position;
+            return new Segment(data, offsets, ids);
+        }
+    }
+
+    /** Ảnh chụp nhất quán: mảng chính + các thay đổi chưa gộp (id = REMOVED nghĩa là đã xóa) */
+    private record State(Segment base, ConcurrentSkipListMap<String, Integer> delta) {
+    }
+
+    private volatile State state = new State(Segment.EMPTY, new ConcurrentSkipListMap<>());
+    // Số khóa đang có hiệu lực (mảng chính + thêm mới - đã xóa), chỉ ghi trong các hàm synchronized
+    private volatile int size;
+
+    /** Nạp lại toàn bộ chỉ mục */
+    public synchronized void load(Map<String, Integer> entries) {
+        List<Map.Entry<byte[], Integer>> sorted = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            sorted.add(Map.entry(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue()));
+        }
+        sorted.sort(Map.Entry.comparingByKey(UNSIGNED));
+        state = new State(Segment.of(sorted), new ConcurrentSkipListMap<>());
+        size = sorted.size();
+    }
+
+    public synchronized void put(String key, int id) {
+        State current = state;
+        if (!contains(current, key)) {
+            size++;
+        }
+        current.delta().put(key, id);
+        compactIfNeeded();
+    }
+
+    public synchronized void remove(String key) {
+        State current = state;
+        if (!contains(current, key)) {
+            return;
+        }
+        size--;
+        if (current.base().contains(key.getBytes(StandardCharsets.UTF_8))) {
+            current.delta().put(key, REMOVED);
+        } else {
+            current.delta().remove(key); // chỉ có trong phần thay đổi, không cần đánh dấu xóa
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Tối đa {@code limit} khóa bắt đầu bằng {@code prefix}, theo thứ tự khóa
+     */
+    public List<Match> search(String prefix, int limit) {
+        State current = state;
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        List<Match> matches = new ArrayList<>();
+
+        // Thay đổi mới trong khoảng tiền tố (ghi đè phần tương ứng của mảng chính)
+        Map<String, Integer> overrides = current.delta().subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Integer> entry : overrides.entrySet()) {
+            if (entry.getValue() != REMOVED && matches.size() < limit) {
+                matches.add(new Match(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        Segment base = current.base();
+        int collected = 0;
+        for (int i = base.lowerBound(prefixBytes); i < base.size() && collected < limit; i++) {
+            if (!base.startsWith(i, prefixBytes)) {
+                break;
+            }
+            String key = base.key(i);
+            if (!overrides.containsKey(key)) {
+                matches.add(new Match(key, base.ids()[i]));
+                collected++;
+            }
+        }
+
+        if (!overrides.isEmpty()) {
+            matches.sort(Comparator.comparing(Match::key));
+        }
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /** Số khóa đang có hiệu lực; không tính dấu xóa và khóa bị ghi đè trong phần thay đổi */
+    public int size() {
+        return size;
+    }
+
+    /** Ước lượng bộ nhớ (byte) của chỉ mục */
+    public long estimatedBytes() {
+        State current = state;
+        Segment base = current.base();
+        // 16 byte header cho mỗi mảng
+        return 16L + base.data().length
+                + 16L + 4L * base.offsets().length
+                + 16L + 4L * base.ids().length
+                + (long) DELTA_ENTRY_BYTES * current.delta().size();
+    }
+
+    private static boolean contains(State current, String key) {
+        Integer id = current.delta().get(key);
+        if (id != null) {
+            return id != REMOVED;
+        }
+        return current.base().contains(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void compactIfNeeded() {
+        State current = state;
+        if (current.delta().size() < COMPACT_THRESHOLD) {
+            return;
+        }
+        Segment base = current.base();
+        List<Map.Entry<byte[], Integer>> merged = new ArrayList<>(base.size() + current.delta().size());
+        for (int i = 0; i < base.size(); i++) {
+            if (!current.delta().containsKey(base.key(i))) {
+                merged.add(Map.entry(Arrays.copyOfRange(base.data(), base.offsets()[i], base.offsets()[i + 1]),
+                        base.ids()[i]));
+            }
+        }
+        for (Map.Entry<String, Integer> entry : current.delta().entrySet()) {
+            if (entry.getValue() != REMOVED) {
+                merged.add(Map.entry(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue()));
+            }
+        }
+        merged.sort(Map.Entry.comparingByKey(UNSIGNED));
+        state = new State(Segment.of(merged), new ConcurrentSkipListMap<>());
+    }
+}
@@ -0,0 +1,149 @@
+package com.nhahang.restaurant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import vn.payos.exception.APIException;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bọc gateway gọi PayOS thật (bean "payOSClientGateway", mặc định là {@link PayOSClientGateway}): mỗi lời gọi HTTP chạy trên pool riêng có giới hạn
+ * (bulkhead), bị cắt sau {@code payos.client.call-timeout-ms} và đi qua circuit breaker
+ * để khi PayOS chậm/lỗi thì trả lỗi ngay, không giữ thread của Tomcat.
+ */
+@Component
+@Primary
+public class ResilientPayOSGateway implements PayOSGateway {
+
+    private final PayOSGateway delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final CircuitBreaker circuitBreaker;
+    private final long callTimeoutMs;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter bulkheadRejections;
+    private final Counter circuitRejections;
+
+    public ResilientPayOSGateway(@Qualifier("payOSClientGateway") PayOSGateway delegate,
+                                 @Qualifier("payOSClientExecutor") ThreadPoolTaskExecutor executor,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${payos.client.call-timeout-ms:8000}") long callTimeoutMs,
+                                 @Value("${payos.circuit.failure-threshold:5}") int failureThreshold,
+                                 @Value("${payos.circuit.open-ms:30000}") long openMs) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.callTimeoutMs = callTimeoutMs;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+        this.meterRegistry = meterRegistry;
+
+        this.bulkheadRejections = meterRegistry.counter("payos.client.rejected", "reason", "bulkhead");
+        this.circuitRejections = meterRegistry.counter("payos.client.rejected", "reason", "circuit_open");
+        Gauge.builder("payos.client.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Trạng thái circuit breaker PayOS: 0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+        Gauge.builder("payos.client.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("payos.client.queued", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequest request) {
+        return call("create_link", () -> delegate.createPaymentLink(request));
+    }
+
+    @Override
+    public PaymentLink getPaymentLink(long orderCode) {
+        return call("get_link", () -> delegate.getPaymentLink(orderCode));
+    }
+
+    /**
+     * Xác thực webhook chỉ tính checksum cục bộ, không gọi mạng nên không cần bulkhead
+     */
+    @Override
+    public WebhookData verifyWebhook(Webhook webhook) {
+        return delegate.verifyWebhook(webhook);
+    }
+
+    private <T> T call(String operation, Callable<T> action) {
+        if (!circuitBreaker.tryAcquire()) {
+            circuitRejections.increment();
+            throw new PayOSUnavailableException("Cổng thanh toán PayOS tạm thời không khả dụng, vui lòng thử lại sau.");
+        }
+
+        long start = System.nanoTime();
+        String outcome = "success";
+        Future<T> future;
+        try {
+            future = executor.submit(action);
+        } catch (RejectedExecutionException e) {
+            bulkheadRejections.increment();
+            circuitBreaker.release(); // chưa gọi tới PayOS, chỉ trả lại lượt half-open nếu có
+            throw new PayOSUnavailableException("Hệ thống đang xử lý quá nhiều yêu cầu thanh toán, vui lòng thử lại sau.", e);
+        }
+
+        try {
+            T result = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            outcome = "timeout";
+            circuitBreaker.onFailure();
+            throw new PayOSUnavailableException("PayOS không phản hồi sau " + callTimeoutMs + "ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+            circuitBreaker.release();
+            throw new PayOSUnavailableException("Lời gọi PayOS bị gián đoạn", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (isBusinessError(cause)) {
+                // PayOS vẫn trả lời bình thường (vd. mã đơn đã tồn tại), không tính là sự cố
+                outcome = "client_error";
+                circuitBreaker.onSuccess();
+            } else {
+                outcome = "error";
+                circuitBreaker.onFailure();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            Timer.builder("payos.client.latency")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** PayOS đã trả lời (vd. mã 231, 4xx trừ 429) là lỗi nghiệp vụ; lỗi kết nối, timeout, 5xx mới làm mở mạch */
+    private static boolean isBusinessError(Throwable error) {
+        if (!(error instanceof APIException apiException)) {
+            return false;
+        }
+        return apiException.getStatusCode()
+                .map(status -> status < 500 && status != 429)
+                .orElse(false);
+    }
+}
@@ -1,21 +1,23 @@
 package com.nhahang.restaurant.service;
 
 import com.nhahang.restaurant.dto.TableDTO;
-import com.nhahang.restaurant.model.entity.Booking;
 import com.nhahang.restaurant.repository.BookingRepository;
 import com.nhahang.restaurant.repository.RestaurantTableRepository;
 import com.nhahang.restaurant.model.entity.RestaurantTable;
 import com.nhahang.restaurant.model.TableStatus;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 @RequiredArgsConstructor
 public class RestaurantTableService {
     private final RestaurantTableRepository restaurantTableRepository;
@@ -74,7 +76,9 @@ public class RestaurantTableService {
      * [MỚI] Lấy trạng thái các bàn tại một thời điểm cụ thể
      * Logic: Tìm các booking trong khoảng [time - 2h, time + 2h].
      * Bàn nào có booking trong khoảng này sẽ bị đánh dấu là Booked.
+     * Chạy trong một transaction chỉ đọc: status chỉ đổi trên object trả về, không flush xuống DB.
      */
+    @Transactional(readOnly = true)
     public List<RestaurantTable> getTablesStatusAtTime(LocalDateTime checkTime) {
         // Lấy tất cả các bàn
         List<RestaurantTable> allTables = restaurantTableRepository.findAll();
@@ -83,13 +87,8 @@ public class RestaurantTableService {
         LocalDateTime startCheck = checkTime.minusHours(2);
         LocalDateTime endCheck = checkTime.plusHours(2);
 
-        // Tìm các booking đã tồn tại trong khung giờ này
-        List<Booking> conflicts = bookingRepository.findConflictingBookings(startCheck, endCheck);
-        
-        // Lấy danh sách ID các bàn đã bị đặt
-        Set<Integer> bookedTableIds = conflicts.stream()
-                .map(b -> b.getTable().getId())
-                .collect(Collectors.toSet());
+        // Lấy danh sách ID các bàn đã bị đặt trong khung giờ này
+        Set<Integer> bookedTableIds = new HashSet<>(bookingRepository.findConflictingTableIds(startCheck, endCheck));
 
         // Cập nhật trạng thái hiển thị (Chỉ update trên object trả về, không lưu DB)
         for (RestaurantTable table : allTables) {
@@ -0,0 +1,129 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.RevenueSeriesPointDTO;
+import com.nhahang.restaurant.model.PaymentStatus;
+import com.nhahang.restaurant.model.entity.RevenueHourlyBucket;
+import com.nhahang.restaurant.repository.RevenueHourlyBucketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chuỗi doanh thu theo thời gian, đọc từ bảng revenue_hourly_buckets
+ * (cộng dồn theo giờ mỗi khi thanh toán chuyển sang Successful) thay vì quét bảng payments.
+ */
+@Service
+@RequiredArgsConstructor
+public class RevenueSeriesService {
+
+    public enum Granularity {
+        HOUR, DAY, WEEK, MONTH;
+
+        LocalDateTime truncate(LocalDateTime time) {
+            switch (this) {
+                case HOUR:
+                    return time.truncatedTo(ChronoUnit.HOURS);
+                case DAY:
+                    return time.truncatedTo(ChronoUnit.DAYS);
+                case WEEK:
+                    return time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                default:
+                    return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            }
+        }
+
+        LocalDateTime next(LocalDateTime bucketStart) {
+            switch (this) {
+                case HOUR:
+                    return bucketStart.plusHours(1);
+                case DAY:
+                    return bucketStart.plusDays(1);
+                case WEEK:
+                    return bucketStart.plusWeeks(1);
+                default:
+                    return bucketStart.plusMonths(1);
+            }
+        }
+
+        public static Granularity fromString(String value) {
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new RuntimeException("Độ chia thời gian không hợp lệ: " + value);
+            }
+        }
+    }
+
+    // Giới hạn số điểm của một chuỗi (vd. theo giờ thì khoảng 7 tháng)
+    private static final int MAX_POINTS = 5000;
+
+    private final RevenueHourlyBucketRepository bucketRepository;
+
+    /**
+     * Logic: Lần đầu chạy (bảng bucket trống) thì dựng bucket từ các thanh toán thành công sẵn có.
+     * Gom nhóm làm trong DB nên không tải bảng payments vào JVM dù bảng rất lớn.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seed() {
+        if (bucketRepository.count() > 0) {
+            return;
+        }
+        bucketRepository.insertFromPayments(PaymentStatus.Successful.name());
+    }
+
+    /**
+     * Logic: Cộng một thanh toán vừa thành công vào bucket giờ của nó.
+     * Phải gọi trong transaction đổi trạng thái thanh toán để hai bên luôn khớp nhau.
+     */
+    @Transactional
+    public void recordSuccessfulPayment(LocalDateTime paymentTime, BigDecimal amount) {
+        LocalDateTime at = paymentTime != null ? paymentTime : LocalDateTime.now();
+        bucketRepository.increment(Granularity.HOUR.truncate(at), 1, amount != null ? amount : BigDecimal.ZERO);
+    }
+
+    /**
+     * Logic: Lấy chuỗi doanh thu trong [from, to] theo độ chia, các khoảng không có giao dịch trả về 0
+     */
+    @Transactional(readOnly = true)
+    public List<RevenueSeriesPointDTO> getRevenueSeries(LocalDateTime from, LocalDateTime to, String granularityValue) {
+        Granularity granularity = Granularity.fromString(granularityValue);
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Thời gian bắt đầu phải trước thời gian kết thúc");
+        }
+
+        // Khung các điểm (đã lấp 0) theo độ chia
+        Map<LocalDateTime, RevenueSeriesPointDTO> points = new LinkedHashMap<>();
+        for (LocalDateTime t = granularity.truncate(from); !t.isAfter(to); t = granularity.next(t)) {
+            if (points.size() >= MAX_POINTS) {
+                throw new RuntimeException("Khoảng thời gian quá dài cho độ chia " + granularity.name().toLowerCase()
+                        + " (tối đa " + MAX_POINTS + " điểm)");
+            }
+            points.put(t, new RevenueSeriesPointDTO(t, 0L, BigDecimal.ZERO));
+        }
+
+        List<RevenueHourlyBucket> buckets = bucketRepository.findByBucketStartBetweenOrderByBucketStartAsc(
+                Granularity.HOUR.truncate(from), to);
+        for (RevenueHourlyBucket bucket : buckets) {
+            RevenueSeriesPointDTO point = points.get(granularity.truncate(bucket.getBucketStart()));
+            if (point == null) {
+                continue;
+            }
+            point.setTransactionCount(point.getTransactionCount() + bucket.getTransactionCount());
+            point.setRevenue(point.getRevenue().add(bucket.getTotalAmount()));
+        }
+        return new ArrayList<>(points.values());
+    }
+}
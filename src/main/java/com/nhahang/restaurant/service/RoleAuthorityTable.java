@@ -0,0 +1,70 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.model.RoleName;
+import com.nhahang.restaurant.model.entity.Permission;
+import com.nhahang.restaurant.model.entity.Role;
+import com.nhahang.restaurant.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bảng RoleName -> danh sách quyền dựng sẵn trong bộ nhớ. Các request dùng chung
+ * cùng một danh sách bất biến, không truy vấn role_permissions ở đường xác thực.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoleAuthorityTable {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Map<RoleName, List<GrantedAuthority>> authorities = Map.of();
+
+    /**
+     * Logic: Nạp lại toàn bộ role/permission (một truy vấn JOIN FETCH).
+     * Chạy khi khởi động và định kỳ để bắt cả thay đổi sửa trực tiếp trong DB.
+     */
+    @Scheduled(fixedDelayString = "${auth.role-authorities.refresh-ms:600000}")
+    public void reload() {
+        Map<RoleName, List<GrantedAuthority>> table = new EnumMap<>(RoleName.class);
+        for (Role role : roleRepository.findAllWithPermissions()) {
+            List<GrantedAuthority> granted = role.getPermissions() == null ? List.of()
+                    : role.getPermissions().stream()
+                        .map(Permission::getName)
+                        .sorted()
+                        .map(name -> (GrantedAuthority) new SimpleGrantedAuthority(name))
+                        .toList();
+            table.put(role.getRoleName(), granted);
+        }
+        authorities = Collections.unmodifiableMap(table);
+    }
+
+    /**
+     * Logic: Gọi trong transaction sửa role/permission: nạp lại ngay sau khi commit (không chờ lượt
+     * định kỳ) để request sau thấy quyền mới; rollback thì giữ nguyên bảng. Ngoài transaction thì nạp luôn.
+     */
+    public void reloadAfterCommit() {
+        AfterCommit.run(this::reload);
+    }
+
+    public List<GrantedAuthority> authoritiesOf(RoleName roleName) {
+        Map<RoleName, List<GrantedAuthority>> current = authorities;
+        if (current.isEmpty()) {
+            // Request tới trước lượt nạp đầu tiên
+            synchronized (this) {
+                if (authorities.isEmpty()) {
+                    reload();
+                }
+                current = authorities;
+            }
+        }
+        return current.getOrDefault(roleName, List.of());
+    }
+}
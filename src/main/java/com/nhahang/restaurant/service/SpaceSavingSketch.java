@@ -0,0 +1,66 @@
+package com.nhahang.restaurant.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving (Metwally et al.): giữ tối đa {@code capacity} bộ đếm,
+ * khi đầy thì thay khóa có bộ đếm nhỏ nhất. Ước lượng luôn >= giá trị thật
+ * và sai số không vượt quá tổng / capacity. Không thread-safe.
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final int[] keys;
+    private final long[] counts;
+    private final Map<Integer, Integer> slotOf;
+    private int size;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.keys = new int[capacity];
+        this.counts = new long[capacity];
+        this.slotOf = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(int key, long weight) {
+        Integer slot = slotOf.get(key);
+        if (slot != null) {
+            counts[slot] += weight;
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = weight;
+            slotOf.put(key, size);
+            size++;
+            return;
+        }
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        slotOf.remove(keys[min]);
+        keys[min] = key;
+        counts[min] += weight;
+        slotOf.put(key, min);
+    }
+
+    /** Cộng các ước lượng của sketch này vào {@code target} */
+    public void addTo(Map<Integer, Long> target) {
+        for (int i = 0; i < size; i++) {
+            target.merge(keys[i], counts[i], Long::sum);
+        }
+    }
+
+    public void clear() {
+        slotOf.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nhahang.restaurant.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cửa sổ trượt gồm một vòng các bucket thời gian, mỗi bucket là một
+ * {@link SpaceSavingSketch}. Bucket cũ tự bị ghi đè khi vòng quay lại nên
+ * bộ nhớ cố định: buckets x capacity bộ đếm.
+ */
+public class TimeBucketedTopK {
+
+    private final long bucketMillis;
+    private final long[] bucketIds;
+    private final SpaceSavingSketch[] sketches;
+
+    public TimeBucketedTopK(long windowMillis, long bucketMillis, int capacityPerBucket) {
+        int buckets = (int) Math.ceil((double) windowMillis / bucketMillis);
+        this.bucketMillis = bucketMillis;
+        this.bucketIds = new long[buckets];
+        this.sketches = new SpaceSavingSketch[buckets];
+        for (int i = 0; i < buckets; i++) {
+            bucketIds[i] = -1;
+            sketches[i] = new SpaceSavingSketch(capacityPerBucket);
+        }
+    }
+
+    public synchronized void record(int key, long weight, long epochMillis, long nowMillis) {
+        long bucketId = epochMillis / bucketMillis;
+        long currentId = nowMillis / bucketMillis;
+        if (bucketId > currentId || bucketId <= currentId - bucketIds.length) {
+            return; // ngoài cửa sổ
+        }
+        int slot = (int) (bucketId % bucketIds.length);
+        if (bucketIds[slot] != bucketId) {
+            if (bucketIds[slot] > bucketId) {
+                return; // slot đã thuộc về bucket mới hơn
+            }
+            sketches[slot].clear();
+            bucketIds[slot] = bucketId;
+        }
+        sketches[slot].offer(key, weight);
+    }
+
+    /**
+     * Top-K khóa trong cửa sổ tính tới {@code nowMillis}, dạng [key, estimate]
+     */
+    public synchronized List<long[]> top(int limit, long nowMillis) {
+        long currentId = nowMillis / bucketMillis;
+        Map<Integer, Long> merged = new HashMap<>();
+        for (int i = 0; i < bucketIds.length; i++) {
+            if (bucketIds[i] > currentId - bucketIds.length && bucketIds[i] <= currentId) {
+                sketches[i].addTo(merged);
+            }
+        }
+        List<long[]> result = new ArrayList<>(merged.size());
+        merged.forEach((key, count) -> result.add(new long[]{key, count}));
+        result.sort((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < bucketIds.length; i++) {
+            bucketIds[i] = -1;
+            sketches[i].clear();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.TrendingItemDTO;
+import com.nhahang.restaurant.event.OrderCompletedEvent;
+import com.nhahang.restaurant.model.entity.MenuItem;
+import com.nhahang.restaurant.model.entity.Order;
+import com.nhahang.restaurant.model.entity.OrderItem;
+import com.nhahang.restaurant.repository.MenuItemRepository;
+import com.nhahang.restaurant.repository.OrderItemRepository;
+import com.nhahang.restaurant.repository.OrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Món "đang hot" theo cửa sổ thời gian (2 giờ / 24 giờ / 7 ngày),
+ * dùng sketch Space-Saving chia bucket nên bộ nhớ không tăng theo số đơn.
+ */
+@Service
+public class TrendingService {
+
+    public enum Window {
+        H2("2h", Duration.ofHours(2), Duration.ofMinutes(5)),
+        H24("24h", Duration.ofHours(24), Duration.ofHours(1)),
+        D7("7d", Duration.ofDays(7), Duration.ofHours(6));
+
+        private final String label;
+        private final Duration length;
+        private final Duration bucket;
+
+        Window(String label, Duration length, Duration bucket) {
+            this.label = label;
+            this.length = length;
+            this.bucket = bucket;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new RuntimeException("Khung thời gian không hợp lệ: " + label);
+        }
+    }
+
+    private static final int CAPACITY_PER_BUCKET = 64;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final Map<Window, TimeBucketedTopK> sketches = new EnumMap<>(Window.class);
+
+    public TrendingService(OrderRepository orderRepository,
+                           OrderItemRepository orderItemRepository,
+                           MenuItemRepository menuItemRepository) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.menuItemRepository = menuItemRepository;
+        for (Window window : Window.values()) {
+            sketches.put(window, new TimeBucketedTopK(
+                    window.length.toMillis(), window.bucket.toMillis(), CAPACITY_PER_BUCKET));
+        }
+    }
+
+    /**
+     * Logic: Dựng lại sketch từ order_items của cửa sổ dài nhất khi khởi động
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        sketches.values().forEach(TimeBucketedTopK::clear);
+        long now = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minus(Window.D7.length);
+        for (Object[] row : orderItemRepository.findCompletedSalesSince(since)) {
+            record((Integer) row[0], ((Number) row[1]).longValue(), toMillis((LocalDateTime) row[2]), now);
+        }
+    }
+
+    /**
+     * Logic: Ghi nhận các món của đơn vừa Completed (sau khi commit)
+     */
+    @EventListener
+    public void onOrderCompleted(OrderCompletedEvent event) {
+        Order order = orderRepository.findById(event.orderId()).orElse(null);
+        if (order == null || order.getOrderItems() == null || order.getCreatedAt() == null) {
+            return;
+        }
+        long orderedAt = toMillis(order.getCreatedAt());
+        List<long[]> sales = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getMenuItem() != null) {
+                sales.add(new long[]{item.getMenuItem().getId(), item.getQuantity()});
+            }
+        }
+
+        AfterCommit.run(() -> {
+            long now = System.currentTimeMillis();
+            for (long[] sale : sales) {
+                record((int) sale[0], sale[1], orderedAt, now);
+            }
+        });
+    }
+
+    /**
+     * Logic: Lấy top món đang hot trong một khung thời gian
+     */
+    @Transactional(readOnly = true)
+    public List<TrendingItemDTO> getTrendingItems(String windowLabel, int limit) {
+        Window window = Window.fromLabel(windowLabel);
+        List<long[]> top = sketches.get(window).top(limit, System.currentTimeMillis());
+
+        Map<Integer, MenuItem> menuItems = menuItemRepository.findAllById(
+                top.stream().map(row -> (int) row[0]).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(MenuItem::getId, item -> item));
+
+        List<TrendingItemDTO> result = new ArrayList<>(top.size());
+        for (long[] row : top) {
+            MenuItem item = menuItems.get((int) row[0]);
+            if (item == null) {
+                continue;
+            }
+            TrendingItemDTO dto = new TrendingItemDTO();
+            dto.setMenuItemId(item.getId());
+            dto.setMenuItemName(item.getName());
+            dto.setImageUrl(item.getImageSmallUrl() != null ? item.getImageSmallUrl() : item.getImageUrl());
+            dto.setPrice(item.getPrice());
+            dto.setCategoryName(item.getCategory() != null ? item.getCategory().getName() : null);
+            dto.setWindow(window.getLabel());
+            dto.setEstimatedQuantity(row[1]);
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private void record(int menuItemId, long quantity, long orderedAt, long now) {
+        for (TimeBucketedTopK sketch : sketches.values()) {
+            sketch.record(menuItemId, quantity, orderedAt, now);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
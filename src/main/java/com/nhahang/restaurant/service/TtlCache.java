@@ -0,0 +1,89 @@
+package com.nhahang.restaurant.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache nhỏ trong bộ nhớ, mỗi phần tử có thời điểm hết hạn riêng.
+ * Khi vượt quá {@code maxSize} thì dọn phần tử hết hạn, nếu vẫn đầy thì bỏ bớt
+ * phần tử bất kỳ. Đủ dùng cho các cache ngắn hạn, ít khóa trong ứng dụng.
+ */
+public class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final long defaultTtlMillis;
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    public TtlCache(long defaultTtlMillis, int maxSize) {
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /** Lấy từ cache, nếu không có hoặc đã hết hạn thì gọi {@code loader} và lưu lại */
+    public V get(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + defaultTtlMillis);
+    }
+
+    public void put(K key, V value, long expiresAtMillis) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /** Bỏ mọi phần tử có giá trị thỏa điều kiện (duyệt toàn bộ, chỉ dùng cho thao tác hiếm) */
+    public void invalidateIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value()));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<K> it = entries.keySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
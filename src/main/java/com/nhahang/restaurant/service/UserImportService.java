@@ -0,0 +1,427 @@
+package com.nhahang.restaurant.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nhahang.restaurant.dto.UserCreateRequest;
+import com.nhahang.restaurant.dto.UserImportResultDTO;
+import com.nhahang.restaurant.model.RoleName;
+import com.nhahang.restaurant.repository.RoleRepository;
+import com.nhahang.restaurant.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Import khách hàng hàng loạt (CSV hoặc NDJSON) từ hệ thống cũ.
+ * File được đọc theo dòng, không giữ toàn bộ trong bộ nhớ. Kiểm tra trùng uid/email/phone
+ * bằng các tập băm nạp một lần từ DB; role tra một lần cho mỗi loại. Ghi xuống bằng
+ * JDBC batch (users dùng IDENTITY nên Hibernate không gom batch insert được).
+ */
+@Service
+public class UserImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromString(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new RuntimeException("Định dạng import không hợp lệ: " + value);
+            }
+        }
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO users (uid, full_name, email, phone_number, role_id, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_KEPT_RESULTS = 20;
+    private static final int MAX_UID_LENGTH = 128;
+
+    /** Một dòng đã qua kiểm tra, chờ ghi */
+    private record PendingRow(int line, UserCreateRequest request, Integer roleId) {
+    }
+
+    /** Tiến độ một lượt import, cập nhật trong lúc chạy và đọc được từ thread khác */
+    private static final class ImportJob {
+        final String id = UUID.randomUUID().toString();
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startNanos = System.nanoTime();
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicInteger imported = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<UserImportResultDTO.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile String status = "RUNNING";
+        volatile String message;
+        volatile long durationNanos = -1;
+
+        void fail(int line, String uid, String reason) {
+            failed.incrementAndGet();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new UserImportResultDTO.RowError(line, uid, reason));
+            }
+        }
+
+        UserImportResultDTO toDTO() {
+            long nanos = durationNanos >= 0 ? durationNanos : System.nanoTime() - startNanos;
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            List<UserImportResultDTO.RowError> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            return new UserImportResultDTO(id, status, startedAt, millis,
+                    processed.get(), imported.get(), failed.get(),
+                    millis > 0 ? processed.get() * 1000.0 / millis : null,
+                    errorsCopy, failed.get() > errorsCopy.size(), message);
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserTypeaheadService userTypeaheadService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Lượt đang chạy và vài lượt gần nhất, theo thứ tự bắt đầu
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public UserImportService(UserRepository userRepository,
+                             RoleRepository roleRepository,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             UserTypeaheadService userTypeaheadService,
+                             ObjectMapper objectMapper,
+                             @Value("${user.import.batch-size:500}") int batchSize) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userTypeaheadService = userTypeaheadService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Logic: Đọc từng dòng, dòng lỗi được ghi nhận và bỏ qua, các dòng hợp lệ gom thành lô
+     * và ghi trong một transaction riêng mỗi lô. Lô lỗi ở DB (vd. trùng với user vừa được tạo
+     * song song) thì rollback và ghi lại từng dòng để chỉ ra đúng dòng hỏng.
+     */
+    public UserImportResultDTO importUsers(InputStream input, Format format) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Đang có một lượt import khác chạy, vui lòng thử lại sau");
+        }
+        ImportJob job = new ImportJob();
+        register(job);
+        try {
+            Set<String> uids = new HashSet<>();
+            Set<String> emails = new HashSet<>();
+            Set<String> phones = new HashSet<>();
+            for (Object[] row : userRepository.findAllUniqueKeys()) {
+                uids.add((String) row[0]);
+                if (row[1] != null) {
+                    emails.add(((String) row[1]).toLowerCase(Locale.ROOT));
+                }
+                phones.add((String) row[2]);
+            }
+            Map<RoleName, Integer> roleIds = new EnumMap<>(RoleName.class);
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            Map<String, Integer> columns = null;
+            List<PendingRow> pending = new ArrayList<>(batchSize);
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && columns == null) {
+                    columns = parseHeader(line);
+                    continue;
+                }
+
+                job.processed.incrementAndGet();
+                UserCreateRequest request;
+                try {
+                    request = format == Format.CSV ? parseCsvRow(line, columns) : parseJsonRow(line);
+                } catch (RuntimeException e) {
+                    job.fail(lineNumber, null, e.getMessage());
+                    continue;
+                }
+
+                String error = validate(request, uids, emails, phones, roleIds);
+                if (error != null) {
+                    job.fail(lineNumber, request.getUid(), error);
+                    continue;
+                }
+                pending.add(new PendingRow(lineNumber, request,
+                        roleIds.get(RoleName.valueOf(request.getRoleName()))));
+                if (pending.size() >= batchSize) {
+                    flush(pending, job);
+                }
+            }
+            flush(pending, job);
+            job.status = "COMPLETED";
+        } catch (IOException e) {
+            job.status = "FAILED";
+            job.message = "Lỗi khi đọc dữ liệu import: " + e.getMessage();
+        } catch (RuntimeException e) {
+            job.status = "FAILED";
+            job.message = e.getMessage();
+        } finally {
+            job.durationNanos = System.nanoTime() - job.startNanos;
+            running.set(false);
+            if (job.imported.get() > 0) {
+                // Dựng lại chỉ mục typeahead một lần cho cả lượt import
+                userTypeaheadService.rebuild();
+            }
+        }
+        return job.toDTO();
+    }
+
+    /**
+     * Logic: Tiến độ của lượt đang chạy và các lượt gần nhất (mới nhất trước)
+     */
+    public List<UserImportResultDTO> getRecentImports() {
+        List<UserImportResultDTO> result = new ArrayList<>();
+        synchronized (jobs) {
+            for (ImportJob job : jobs.values()) {
+                result.add(0, job.toDTO());
+            }
+        }
+        return result;
+    }
+
+    public UserImportResultDTO getImport(String importId) {
+        ImportJob job = jobs.get(importId);
+        if (job == null) {
+            throw new RuntimeException("Không tìm thấy lượt import: " + importId);
+        }
+        return job.toDTO();
+    }
+
+    private void register(ImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            while (jobs.size() > MAX_KEPT_RESULTS) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Logic: Kiểm tra một dòng; hợp lệ thì chiếm uid/email/phone trong các tập băm
+     * (để bắt trùng ngay trong file) và trả về null, ngược lại trả về lý do lỗi
+     */
+    private String validate(UserCreateRequest request, Set<String> uids, Set<String> emails,
+                            Set<String> phones, Map<RoleName, Integer> roleIds) {
+        if (request.getUid() == null || request.getUid().isEmpty()) {
+            return "Thiếu uid";
+        }
+        if (request.getUid().length() > MAX_UID_LENGTH) {
+            return "uid quá dài";
+        }
+        if (request.getFullName() == null || request.getFullName().isEmpty()) {
+            return "Thiếu họ tên";
+        }
+        if (request.getPhoneNumber() == null || request.getPhoneNumber().isEmpty()) {
+            return "Thiếu số điện thoại";
+        }
+        if (request.getRoleName() == null || request.getRoleName().isEmpty()) {
+            request.setRoleName("user");
+        }
+
+        RoleName roleName;
+        try {
+            roleName = RoleName.valueOf(request.getRoleName());
+        } catch (IllegalArgumentException e) {
+            return "Vai trò không hợp lệ: " + request.getRoleName();
+        }
+        if (!roleIds.containsKey(roleName)) {
+            roleIds.put(roleName, roleRepository.findByRoleName(roleName).map(role -> role.getId()).orElse(null));
+        }
+        if (roleIds.get(roleName) == null) {
+            return "Không tìm thấy vai trò trong database: " + request.getRoleName();
+        }
+
+        String emailKey = request.getEmail() != null ? request.getEmail().toLowerCase(Locale.ROOT) : null;
+        if (uids.contains(request.getUid())) {
+            return "Người dùng với UID đã tồn tại: " + request.getUid();
+        }
+        if (emailKey != null && emails.contains(emailKey)) {
+            return "Email đã được sử dụng: " + request.getEmail();
+        }
+        if (phones.contains(request.getPhoneNumber())) {
+            return "Số điện thoại đã được sử dụng: " + request.getPhoneNumber();
+        }
+        uids.add(request.getUid());
+        if (emailKey != null) {
+            emails.add(emailKey);
+        }
+        phones.add(request.getPhoneNumber());
+        return null;
+    }
+
+    private void flush(List<PendingRow> pending, ImportJob job) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, pending, pending.size(),
+                            (ps, row) -> bind(ps, row, now)));
+            job.imported.addAndGet(pending.size());
+        } catch (DataAccessException batchError) {
+            // Cả lô đã rollback: ghi lại từng dòng, dòng nào lỗi thì báo lỗi dòng đó
+            for (PendingRow row : pending) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, row, now));
+                    job.imported.incrementAndGet();
+                } catch (DataAccessException e) {
+                    job.fail(row.line(), row.request().getUid(), "Lỗi khi ghi vào database: "
+                            + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    private static void bind(PreparedStatement ps, PendingRow row, Timestamp now) throws SQLException {
+        UserCreateRequest request = row.request();
+        ps.setString(1, request.getUid());
+        ps.setString(2, request.getFullName());
+        ps.setString(3, request.getEmail());
+        ps.setString(4, request.getPhoneNumber());
+        ps.setInt(5, row.roleId());
+        ps.setTimestamp(6, now);
+        ps.setTimestamp(7, now);
+    }
+
+    private UserCreateRequest parseJsonRow(String line) {
+        UserCreateRequest request;
+        try {
+            request = objectMapper.readValue(line, UserCreateRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Dòng JSON không hợp lệ: " + e.getOriginalMessage());
+        }
+        return trim(request);
+    }
+
+    /**
+     * Logic: Ánh xạ tên cột (không phân biệt hoa thường, chấp nhận camelCase hoặc snake_case) sang vị trí
+     */
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("uid", "fullname", "phonenumber")) {
+            if (!columns.containsKey(required)) {
+                throw new RuntimeException("File CSV thiếu cột bắt buộc: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static UserCreateRequest parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUid(column(values, columns, "uid"));
+        request.setFullName(column(values, columns, "fullname"));
+        request.setEmail(column(values, columns, "email"));
+        request.setPhoneNumber(column(values, columns, "phonenumber"));
+        request.setRoleName(column(values, columns, "rolename"));
+        return trim(request);
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < values.size() ? values.get(index) : null;
+    }
+
+    /**
+     * Logic: Tách một dòng CSV theo dấu phẩy, hỗ trợ trường trong ngoặc kép và "" là dấu nháy
+     * (không hỗ trợ xuống dòng bên trong một trường)
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new RuntimeException("Dòng CSV có dấu nháy chưa đóng");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static UserCreateRequest trim(UserCreateRequest request) {
+        request.setUid(blankToNull(request.getUid()));
+        request.setFullName(blankToNull(request.getFullName()));
+        request.setEmail(blankToNull(request.getEmail()));
+        request.setPhoneNumber(blankToNull(request.getPhoneNumber()));
+        request.setRoleName(blankToNull(request.getRoleName()));
+        return request;
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
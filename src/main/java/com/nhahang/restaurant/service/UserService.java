@@ -9,22 +9,27 @@ import com.nhahang.restaurant.model.entity.Role;
 import com.nhahang.restaurant.model.entity.User;
 import com.nhahang.restaurant.repository.RoleRepository;
 import com.nhahang.restaurant.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.nhahang.restaurant.model.RoleName;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final AuthPrincipalCache authPrincipalCache;
+    private final UserTypeaheadService userTypeaheadService;
 
     /**
      * Lấy thông tin người dùng hiện tại
@@ -41,11 +46,9 @@ public class UserService {
     /**
      * Lấy tất cả người dùng
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return userRepository.findAllDtos();
     }
     /**
      * Lấy người dùng theo ID
@@ -89,22 +92,33 @@ public class UserService {
     /**
      *  Lấy người dùng theo roleName
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public List<UserDTO> getUsersByRoleName(String roleName) {
-        RoleName roleNameEnum;
+        RoleName roleNameEnum = parseRoleName(roleName);
+        if (roleRepository.findByRoleName(roleNameEnum).isEmpty()) {
+            throw new RuntimeException("Không tìm thấy vai trò: " + roleName);
+        }
+        return userRepository.findDtosByRoleName(roleNameEnum);
+    }
+
+    /**
+     * Tìm người dùng có phân trang, lọc theo role và/hoặc khoảng ngày tạo ở DB
+     */
+    @Transactional(readOnly = true)
+    public Page<UserDTO> searchUsers(String roleName, LocalDateTime fromDate, LocalDateTime toDate,
+                                     int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return userRepository.searchDtos(
+                roleName != null ? parseRoleName(roleName) : null,
+                fromDate, toDate, pageable);
+    }
+
+    private RoleName parseRoleName(String roleName) {
         try {
-            roleNameEnum = RoleName.valueOf(roleName);
+            return RoleName.valueOf(roleName);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Vai trò không hợp lệ: " + roleName);
         }
-        Role role = roleRepository.findByRoleName(roleNameEnum)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy vai trò: " + roleName));
-        List<User> users = userRepository.findAll().stream()
-                .filter(user -> user.getRole() != null && user.getRole().getId().equals(role.getId()))
-                .collect(Collectors.toList());
-        return users.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
     }
     /**
      * Tạo người dùng mới
@@ -143,6 +157,8 @@ public class UserService {
         user.setRole(role);
 
         User savedUser = userRepository.save(user);
+        userTypeaheadService.onUserSaved(savedUser.getId(), null, null,
+                savedUser.getPhoneNumber(), savedUser.getEmail());
         return convertToDTO(savedUser);
     }
 
@@ -153,6 +169,8 @@ public class UserService {
     public UserDTO updateUser(Integer id, UserUpdateRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng với ID: " + id));
+        String oldPhone = user.getPhoneNumber();
+        String oldEmail = user.getEmail();
 
         if (request.getFullName() != null) {
             user.setFullName(request.getFullName());
@@ -192,6 +210,10 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        // Token đã cache đang giữ bản user/quyền cũ
+        authPrincipalCache.invalidateUser(id);
+        userTypeaheadService.onUserSaved(id, oldPhone, oldEmail,
+                updatedUser.getPhoneNumber(), updatedUser.getEmail());
         return convertToDTO(updatedUser);
     }
 
@@ -215,6 +237,8 @@ public class UserService {
         
         // 2. Xóa user trong database
         userRepository.delete(user);
+        authPrincipalCache.invalidateUser(id);
+        userTypeaheadService.onUserDeleted(user.getPhoneNumber(), user.getEmail());
     }
 
     /**
@@ -0,0 +1,178 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.UserDTO;
+import com.nhahang.restaurant.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Tìm khách theo tiền tố số điện thoại / email cho quầy lễ tân.
+ * Hai chỉ mục {@link PrefixIndex} trong bộ nhớ, cập nhật theo UserService sau khi commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserTypeaheadService {
+
+    private static final int MIN_QUERY_LENGTH = 2;
+    private static final int MAX_LIMIT = 20;
+    private static final Pattern PHONE_QUERY = Pattern.compile("\\+?[0-9 .()\\-]+");
+
+    private final UserRepository userRepository;
+
+    private final PrefixIndex phoneIndex = new PrefixIndex();
+    private final PrefixIndex emailIndex = new PrefixIndex();
+    private volatile long lastBuildMillis;
+    private volatile LocalDateTime builtAt;
+
+    /**
+     * Logic: Dựng lại hai chỉ mục từ bảng users (một truy vấn chỉ lấy id/phone/email)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        Map<String, Integer> phones = new HashMap<>();
+        Map<String, Integer> emails = new HashMap<>();
+        for (Object[] row : userRepository.findAllContactKeys()) {
+            Integer id = (Integer) row[0];
+            String phone = normalizePhone((String) row[1]);
+            String email = normalizeEmail((String) row[2]);
+            if (phone != null) {
+                phones.put(phone, id);
+            }
+            if (email != null) {
+                emails.put(email, id);
+            }
+        }
+        phoneIndex.load(phones);
+        emailIndex.load(emails);
+        lastBuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        builtAt = LocalDateTime.now();
+    }
+
+    /**
+     * Logic: Cập nhật chỉ mục khi user được tạo/sửa (truyền phone/email cũ = null khi tạo mới)
+     */
+    public void onUserSaved(Integer userId, String oldPhone, String oldEmail, String newPhone, String newEmail) {
+        String previousPhone = normalizePhone(oldPhone);
+        String previousEmail = normalizeEmail(oldEmail);
+        String phone = normalizePhone(newPhone);
+        String email = normalizeEmail(newEmail);
+        AfterCommit.run(() -> {
+            if (previousPhone != null && !previousPhone.equals(phone)) {
+                phoneIndex.remove(previousPhone);
+            }
+            if (previousEmail != null && !previousEmail.equals(email)) {
+                emailIndex.remove(previousEmail);
+            }
+            if (phone != null) {
+                phoneIndex.put(phone, userId);
+            }
+            if (email != null) {
+                emailIndex.put(email, userId);
+            }
+        });
+    }
+
+    public void onUserDeleted(String phone, String email) {
+        String normalizedPhone = normalizePhone(phone);
+        String normalizedEmail = normalizeEmail(email);
+        AfterCommit.run(() -> {
+            if (normalizedPhone != null) {
+                phoneIndex.remove(normalizedPhone);
+            }
+            if (normalizedEmail != null) {
+                emailIndex.remove(normalizedEmail);
+            }
+        });
+    }
+
+    /**
+     * Logic: Gợi ý người dùng theo tiền tố. Chuỗi chỉ gồm số (có thể kèm +, khoảng trắng, -)
+     * được hiểu là số điện thoại, còn lại tìm theo email.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDTO> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String trimmed = query.trim();
+        boolean phoneQuery = PHONE_QUERY.matcher(trimmed).matches();
+        String prefix = phoneQuery ? normalizePhone(trimmed) : normalizeEmail(trimmed);
+        if (prefix == null || prefix.length() < MIN_QUERY_LENGTH) {
+            return List.of();
+        }
+
+        List<PrefixIndex.Match> matches = (phoneQuery ? phoneIndex : emailIndex).search(prefix, size);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        // Giữ thứ tự theo khóa của chỉ mục
+        List<Integer> ids = matches.stream().map(PrefixIndex.Match::id).distinct().collect(Collectors.toList());
+        Map<Integer, UserDTO> users = userRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserDTO::getId, user -> user));
+        List<UserDTO> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            UserDTO user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Logic: Báo cáo kích thước và bộ nhớ ước tính của chỉ mục
+     */
+    public Map<String, Object> getStats() {
+        long phoneBytes = phoneIndex.estimatedBytes();
+        long emailBytes = emailIndex.estimatedBytes();
+        int users = Math.max(phoneIndex.size(), emailIndex.size());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("phoneKeys", phoneIndex.size());
+        stats.put("emailKeys", emailIndex.size());
+        stats.put("phoneIndexBytes", phoneBytes);
+        stats.put("emailIndexBytes", emailBytes);
+        stats.put("totalBytes", phoneBytes + emailBytes);
+        stats.put("bytesPerUser", users == 0 ? 0 : (phoneBytes + emailBytes) / users);
+        stats.put("lastBuildMs", lastBuildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+
+    /** Chỉ giữ chữ số; +84 đầu số đổi thành 0 */
+    static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("[^0-9]", "");
+        if (phone.trim().startsWith("+84") && digits.startsWith("84")) {
+            digits = "0" + digits.substring(2);
+        }
+        return digits.isEmpty() ? null : digits;
+    }
+
+    static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
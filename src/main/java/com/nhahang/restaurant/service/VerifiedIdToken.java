@@ -0,0 +1,9 @@
+package com.nhahang.restaurant.service;
+
+import java.util.Map;
+
+/**
+ * Kết quả xác thực ID token: uid (claim sub), email và thời điểm hết hạn (epoch millis)
+ */
+public record VerifiedIdToken(String uid, String email, long expiresAtMillis, Map<String, Object> claims) {
+}
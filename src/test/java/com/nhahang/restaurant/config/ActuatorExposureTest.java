@@ -0,0 +1,70 @@
+package com.nhahang.restaurant.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Actuator chỉ phục vụ trên cổng quản trị; trên cổng public /actuator/prometheus phải bị chặn.
+ * Test mặc định tắt export metrics nên cần bật lại để có PrometheusMeterRegistry.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class ActuatorExposureTest {
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void managementPortIsSeparateFromPublicPort() {
+        assertThat(managementPort).isPositive().isNotEqualTo(serverPort);
+    }
+
+    @Test
+    void prometheusIsNotReachableWithoutTokenOnPublicPort() throws Exception {
+        HttpResponse<String> response = get(serverPort, "/actuator/prometheus");
+
+        assertThat(response.statusCode()).isIn(401, 403);
+        assertThat(response.body()).doesNotContain("jvm_memory");
+    }
+
+    @Test
+    void prometheusAndHealthAreScrapableOnManagementPort() throws Exception {
+        HttpResponse<String> prometheus = get(managementPort, "/actuator/prometheus");
+        HttpResponse<String> health = get(managementPort, "/actuator/health");
+
+        assertThat(prometheus.statusCode()).isEqualTo(200);
+        assertThat(prometheus.body()).contains("jvm_memory");
+        assertThat(health.statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void otherActuatorEndpointsStillNeedTokenOnManagementPort() throws Exception {
+        assertThat(get(managementPort, "/actuator/metrics").statusCode()).isIn(401, 403);
+    }
+
+    private HttpResponse<String> get(int port, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,49 @@
+package com.nhahang.restaurant.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * File CSV cho LOAD DATA: NULL là \N, chuỗi trong nháy kép có escape, thời gian dạng MySQL;
+ * load-data.sql nạp các bảng theo thứ tự khai báo.
+ */
+class CsvRowSinkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesEscapedRowsAndLoadScriptInDeclaredOrder() throws IOException {
+        try (CsvRowSink sink = new CsvRowSink(directory.resolve("dataset"))) {
+            sink.table("users", "id", "full_name", "email", "created_at");
+            sink.table("orders", "id", "user_id", "total_amount");
+            sink.row("orders", 10L, 1, 150000L);
+            sink.row("users", 1, "Nguyễn \"Tí\", C:\\nhà", null, LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+            sink.row("users", 2, "", "b@loadtest.local", LocalDateTime.of(2026, 12, 31, 23, 59));
+            sink.flush();
+        }
+
+        Path dataset = directory.resolve("dataset");
+        assertThat(Files.readAllLines(dataset.resolve("users.csv"), StandardCharsets.UTF_8)).containsExactly(
+                "1,\"Nguyễn \\\"Tí\\\", C:\\\\nhà\",\\N,2026-01-02 03:04:05",
+                "2,\"\",\"b@loadtest.local\",2026-12-31 23:59:00");
+        assertThat(Files.readAllLines(dataset.resolve("orders.csv"), StandardCharsets.UTF_8))
+                .containsExactly("10,1,150000");
+
+        List<String> loads = Files.readAllLines(dataset.resolve("load-data.sql"), StandardCharsets.UTF_8).stream()
+                .filter(line -> line.startsWith("LOAD DATA"))
+                .toList();
+        assertThat(loads).hasSize(2);
+        assertThat(loads.get(0)).contains("users.csv' INTO TABLE users").endsWith("(id, full_name, email, created_at);");
+        assertThat(loads.get(1)).contains("orders.csv' INTO TABLE orders").endsWith("(id, user_id, total_amount);");
+    }
+}
@@ -0,0 +1,175 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.nhahang.restaurant.loadtest.DatasetGenerator.Spec;
+import com.nhahang.restaurant.loadtest.DatasetGenerator.Summary;
+import com.nhahang.restaurant.loadtest.DatasetGenerator.ZipfSampler;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bộ sinh dữ liệu với sink ghi nhớ trong bộ nhớ: cùng seed cho cùng dữ liệu,
+ * khóa ngoại luôn trỏ tới dòng đã ghi ở lần flush trước hoặc cùng lần, Summary khớp số dòng.
+ */
+class DatasetGeneratorTest {
+
+    private static final Spec SPEC = new Spec(42L, 50, 30, 8, 500, 30, 1.1, 0.55, 0.6, 3);
+
+    @Test
+    void sameSeedGivesSameRows() {
+        RecordingSink first = generate(SPEC);
+        RecordingSink second = generate(SPEC);
+        RecordingSink otherSeed = generate(new Spec(43L, 50, 30, 8, 500, 30, 1.1, 0.55, 0.6, 3));
+
+        // Thời gian tính lùi từ lúc chạy nên chỉ so phần không phải thời gian
+        assertThat(first.withoutTimes()).isEqualTo(second.withoutTimes());
+        assertThat(first.withoutTimes()).isNotEqualTo(otherSeed.withoutTimes());
+    }
+
+    @Test
+    void summaryMatchesWrittenRows() {
+        RecordingSink sink = new RecordingSink();
+        List<Long> progress = new ArrayList<>();
+
+        Summary summary = new DatasetGenerator(SPEC, 200).generate(sink, progress::add);
+
+        assertThat(sink.rows("users")).hasSize(SPEC.customers() + 2);
+        assertThat(sink.rows("menu_items")).hasSize(SPEC.menuItems());
+        assertThat(sink.rows("tables")).hasSize(SPEC.tables());
+        assertThat(sink.rows("orders")).hasSize((int) SPEC.orders());
+        assertThat((long) sink.rows("order_items").size()).isEqualTo(summary.orderItems());
+        assertThat((long) sink.rows("payments").size()).isEqualTo(summary.payments());
+        assertThat((long) sink.rows("bookings").size()).isEqualTo(summary.bookings());
+        assertThat(summary.availableMenuItemIds()).isNotEmpty().allSatisfy(id ->
+                assertThat(sink.rows("menu_items").get(id - 1)[5]).isEqualTo("Available"));
+        assertThat(progress).containsExactly(200L, 400L, 500L);
+    }
+
+    @Test
+    void foreignKeysPointToRowsAlreadyFlushed() {
+        RecordingSink sink = generate(SPEC);
+
+        assertThat(sink.orphans).isEmpty();
+        Map<Object, Long> orderTotals = new HashMap<>();
+        for (Object[] order : sink.rows("orders")) {
+            orderTotals.put(order[0], (Long) order[3]);
+        }
+        Map<Object, Long> itemTotals = new HashMap<>();
+        for (Object[] item : sink.rows("order_items")) {
+            itemTotals.merge(item[1], (Long) item[4] * (Integer) item[3], Long::sum);
+        }
+        assertThat(itemTotals).isEqualTo(orderTotals);
+        for (Object[] payment : sink.rows("payments")) {
+            assertThat(payment[2]).isEqualTo(orderTotals.get(payment[1]));
+            assertThat(payment[4]).isIn("Successful", "Failed", "Pending");
+        }
+        Set<Object> paidOrders = new HashSet<>();
+        for (Object[] payment : sink.rows("payments")) {
+            assertThat(paidOrders.add(payment[1])).as("mỗi đơn tối đa một thanh toán").isTrue();
+        }
+    }
+
+    @Test
+    void zipfFavoursLowRanks() {
+        ZipfSampler sampler = new ZipfSampler(100, 1.1);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[101];
+        for (int i = 0; i < 100_000; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        assertThat(counts[0]).isZero();
+        assertThat(Arrays.stream(counts).sum()).isEqualTo(100_000);
+        assertThat(counts[1]).isGreaterThan(counts[2]);
+        assertThat(counts[2]).isGreaterThan(counts[10]);
+        assertThat(counts[10]).isGreaterThan(counts[100]);
+        assertThat(counts[100]).isPositive();
+    }
+
+    private static RecordingSink generate(Spec spec) {
+        RecordingSink sink = new RecordingSink();
+        new DatasetGenerator(spec, 100).generate(sink, done -> {
+        });
+        return sink;
+    }
+
+    /**
+     * Sink giữ mọi dòng trong bộ nhớ; lúc flush kiểm tra khóa ngoại của các dòng chờ ghi
+     * trỏ tới bảng cha đã khai báo trước và dòng cha đã có (như thứ tự ghi của JdbcRowSink)
+     */
+    private static final class RecordingSink implements RowSink {
+
+        // Bảng con -> (vị trí cột khóa ngoại -> bảng cha); id luôn ở cột đầu
+        private static final Map<String, Map<Integer, String>> FOREIGN_KEYS = Map.of(
+                "role_permissions", Map.of(0, "roles", 1, "permissions"),
+                "users", Map.of(5, "roles"),
+                "menu_items", Map.of(4, "categories"),
+                "orders", Map.of(1, "users", 2, "tables"),
+                "order_items", Map.of(1, "orders", 2, "menu_items"),
+                "payments", Map.of(1, "orders"),
+                "bookings", Map.of(1, "users", 2, "tables"));
+
+        private final Map<String, List<Object[]>> tables = new LinkedHashMap<>();
+        private final Map<String, Set<Object>> flushedIds = new HashMap<>();
+        private final Map<String, Integer> flushedRows = new HashMap<>();
+        final List<String> orphans = new ArrayList<>();
+
+        @Override
+        public void table(String name, String... columns) {
+            tables.put(name, new ArrayList<>());
+            flushedIds.put(name, new HashSet<>());
+        }
+
+        @Override
+        public void row(String table, Object... values) {
+            tables.get(table).add(values);
+        }
+
+        @Override
+        public void flush() {
+            // Ghi theo thứ tự khai báo: cha được ghi trước con trong cùng lần flush
+            for (Map.Entry<String, List<Object[]>> table : tables.entrySet()) {
+                List<Object[]> rows = table.getValue();
+                for (int i = flushedRows.getOrDefault(table.getKey(), 0); i < rows.size(); i++) {
+                    Object[] row = rows.get(i);
+                    FOREIGN_KEYS.getOrDefault(table.getKey(), Map.of()).forEach((column, parent) -> {
+                        Object key = row[column];
+                        if (key != null && !flushedIds.get(parent).contains(((Number) key).longValue())) {
+                            orphans.add(table.getKey() + "." + column + " -> " + parent + " " + key);
+                        }
+                    });
+                    flushedIds.get(table.getKey()).add(((Number) row[0]).longValue());
+                }
+                flushedRows.put(table.getKey(), rows.size());
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+        List<Object[]> rows(String table) {
+            return tables.get(table);
+        }
+
+        Map<String, List<List<Object>>> withoutTimes() {
+            Map<String, List<List<Object>>> result = new LinkedHashMap<>();
+            tables.forEach((name, rows) -> result.put(name, rows.stream()
+                    .map(row -> Arrays.stream(row).map(value -> value instanceof LocalDateTime ? "t" : value).toList())
+                    .toList()));
+            return result;
+        }
+    }
+}
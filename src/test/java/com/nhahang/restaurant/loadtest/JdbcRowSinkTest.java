@@ -0,0 +1,97 @@
+package com.nhahang.restaurant.loadtest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * INSERT nhiều dòng trên H2 riêng: đủ dòng và phần lẻ đều được ghi, thứ tự bảng cha trước con,
+ * mỗi lần flush là một transaction.
+ */
+class JdbcRowSinkTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:rowsink;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE parents (id INT PRIMARY KEY, name VARCHAR(50))");
+            statement.execute("CREATE TABLE children (id BIGINT PRIMARY KEY, parent_id INT NOT NULL "
+                    + "REFERENCES parents(id), note VARCHAR(50), created_at TIMESTAMP)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void writesFullAndPartialStatementsParentsFirst() throws SQLException {
+        LocalDateTime time = LocalDateTime.of(2026, 10, 19, 12, 30);
+        try (JdbcRowSink sink = new JdbcRowSink(connection, 3)) {
+            sink.table("parents", "id", "name");
+            sink.table("children", "id", "parent_id", "note", "created_at");
+            // Dòng con đến trước dòng cha: flush vẫn ghi bảng cha trước
+            for (long i = 1; i <= 7; i++) {
+                sink.row("children", i, (int) (i % 2) + 1, i == 4 ? null : "ghi chú " + i, time.plusMinutes(i));
+            }
+            sink.row("parents", 1, "Một");
+            sink.row("parents", 2, "Hai");
+            sink.flush();
+
+            sink.row("children", 8L, 1, "sau flush", time);
+        }
+
+        assertThat(query("SELECT COUNT(*) FROM parents")).containsExactly(2L);
+        assertThat(query("SELECT COUNT(*) FROM children")).containsExactly(8L);
+        assertThat(query("SELECT note FROM children WHERE id = 4")).containsExactly((Object) null);
+        assertThat(query("SELECT created_at FROM children WHERE id = 7"))
+                .containsExactly(Timestamp.valueOf(time.plusMinutes(7)));
+        assertThat(query("SELECT parent_id FROM children WHERE id = 3")).containsExactly(2);
+    }
+
+    @Test
+    void failedFlushLeavesNothingCommitted() throws SQLException {
+        JdbcRowSink sink = new JdbcRowSink(connection, 2);
+        sink.table("parents", "id", "name");
+        sink.table("children", "id", "parent_id", "note", "created_at");
+        sink.row("parents", 1, "Một");
+        sink.row("children", 1L, 1, "hợp lệ", null);
+        sink.row("children", 2L, 99, "không có cha", null);
+
+        assertThatThrownBy(sink::flush).isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Ghi dữ liệu thất bại");
+        connection.rollback();
+
+        assertThat(query("SELECT COUNT(*) FROM parents")).containsExactly(0L);
+        assertThat(query("SELECT COUNT(*) FROM children")).containsExactly(0L);
+    }
+
+    private List<Object> query(String sql) throws SQLException {
+        List<Object> values = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                values.add(rs.getObject(1));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,117 @@
+package com.nhahang.restaurant.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bộ phát tải mô hình mở với kịch bản giả (không cần server): đọc mix, bỏ kết quả warmup,
+ * đếm lượt bị bỏ khi đầy max-in-flight và đo độ trễ từ thời điểm lên lịch.
+ */
+class LoadDriverTest {
+
+    private final LoadScenarios scenarios = mock(LoadScenarios.class);
+    private final LoadStats stats = new LoadStats();
+
+    @Test
+    void mixKeepsDeclaredOrderAndDropsZeroWeights() {
+        Map<String, Integer> mix = LoadDriver.Settings.parseMix(" browse:45, book:0 ,order:20,pay:15");
+
+        assertThat(mix).containsExactly(Map.entry("browse", 45), Map.entry("order", 20), Map.entry("pay", 15));
+        assertThatThrownBy(() -> LoadDriver.Settings.parseMix("browse:45,shopping:10"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("shopping");
+        assertThatThrownBy(() -> LoadDriver.Settings.parseMix("browse"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadDriver.Settings.parseMix("browse:0,book:0"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("không có kịch bản");
+    }
+
+    @Test
+    void statsSplitOkClientErrorsAndFailures() {
+        long start = System.nanoTime();
+        stats.recordEndpoint("GET /api/menu", start, start + TimeUnit.MILLISECONDS.toNanos(5), 200);
+        stats.recordEndpoint("GET /api/menu", start, start + TimeUnit.MILLISECONDS.toNanos(7), 404);
+        stats.recordEndpoint("GET /api/menu", start, start + TimeUnit.MILLISECONDS.toNanos(9), 503);
+        stats.recordEndpoint("GET /api/menu", start, start + TimeUnit.MILLISECONDS.toNanos(9), 0);
+
+        assertThat(stats.requests()).isEqualTo(4);
+        assertThat(stats.endpointOk("GET /api/menu")).isEqualTo(1);
+        assertThat(stats.endpointClientErrors("GET /api/menu")).isEqualTo(1);
+        assertThat(stats.failures()).isEqualTo(2);
+        assertThat(stats.endpointLatency("GET /api/menu").getMaxValue()).isBetween(8_900L, 9_100L);
+        assertThat(stats.endpointLatency("GET /khong-goi").getTotalCount()).isZero();
+    }
+
+    @Test
+    void warmupIsNotRecordedAndMixIsFollowed() throws Exception {
+        Map<String, AtomicInteger> measuredRuns = new ConcurrentHashMap<>();
+        AtomicInteger warmupRuns = new AtomicInteger();
+        when(scenarios.run(anyString(), anyBoolean())).thenAnswer(inv -> {
+            if (inv.<Boolean>getArgument(1)) {
+                measuredRuns.computeIfAbsent(inv.getArgument(0), key -> new AtomicInteger()).incrementAndGet();
+            } else {
+                warmupRuns.incrementAndGet();
+            }
+            return 200;
+        });
+        LoadDriver.Settings settings = new LoadDriver.Settings(200, 1, 1, 64,
+                LoadDriver.Settings.parseMix("browse:3,book:1"));
+
+        double seconds = new LoadDriver(settings, scenarios, stats, LoadDriver.newWorkerPool(64)).run();
+
+        assertThat(seconds).isEqualTo(1.0);
+        assertThat(warmupRuns.get()).isEqualTo(200);
+        int browse = measuredRuns.get("browse").get();
+        int book = measuredRuns.get("book").get();
+        assertThat(browse + book).isEqualTo(200);
+        assertThat(stats.scenarioLatency("browse").getTotalCount()).isEqualTo(browse);
+        assertThat(browse).isGreaterThan(book);
+        assertThat(stats.dropped()).isZero();
+    }
+
+    @Test
+    void scenariosOverMaxInFlightAreDropped() throws Exception {
+        when(scenarios.run(anyString(), anyBoolean())).thenAnswer(inv -> {
+            Thread.sleep(300);
+            return 200;
+        });
+        LoadDriver.Settings settings = new LoadDriver.Settings(50, 0, 1, 2, LoadDriver.Settings.parseMix("browse:1"));
+
+        new LoadDriver(settings, scenarios, stats, LoadDriver.newWorkerPool(2)).run();
+
+        // 50 lượt trong 1 giây, 2 worker mỗi lượt 300 ms: chỉ chạy được khoảng 8 lượt
+        long completed = stats.scenarioLatency("browse").getTotalCount();
+        assertThat(completed).isBetween(4L, 10L);
+        assertThat(stats.dropped()).isEqualTo(50 - completed);
+    }
+
+    @Test
+    void latencyIncludesQueueingBehindSlowScenarios() throws Exception {
+        when(scenarios.run(anyString(), anyBoolean())).thenAnswer(inv -> {
+            Thread.sleep(100);
+            return 200;
+        });
+        // Một worker có hàng đợi: lượt sau phải chờ lượt trước, độ trễ đo từ lịch phải thấy được việc chờ
+        LoadDriver.Settings settings = new LoadDriver.Settings(20, 0, 1, 1, LoadDriver.Settings.parseMix("browse:1"));
+
+        new LoadDriver(settings, scenarios, stats, Executors.newSingleThreadExecutor()).run();
+
+        Histogram latency = stats.scenarioLatency("browse");
+        assertThat(latency.getTotalCount()).isEqualTo(20);
+        assertThat(latency.getMinValue()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(99));
+        // Lượt cuối lên lịch ở 950 ms nhưng chỉ xong sau khoảng 2000 ms
+        assertThat(latency.getMaxValue()).isGreaterThan(TimeUnit.MILLISECONDS.toMicros(900));
+    }
+}
@@ -0,0 +1,196 @@
+package com.nhahang.restaurant.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nhahang.restaurant.loadtest.DatasetGenerator.Summary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ghim số câu lệnh SQL của từng endpoint: khởi động ứng dụng với profile loadtest (H2, Firebase/PayOS giả),
+ * gọi lần lượt từng endpoint một lần và so số câu lệnh với query-budgets.properties.
+ * Endpoint nào vượt ngân sách (thường do N+1: mỗi dòng kết quả thêm câu lệnh) thì test hỏng.
+ * Ngân sách khớp tuyệt đối; số câu lệnh không được phụ thuộc số dòng seed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "loadtest.query-count.enabled=true",
+        "loadtest.seed.orders=2000",
+        "loadtest.seed.users=200",
+        "loadtest.payos.latency-ms=0",
+        "loadtest.payos.jitter-ms=0"
+})
+@ActiveProfiles("loadtest")
+class QueryBudgetTest {
+
+    private static final String BUDGET_RESOURCE = "query-budgets.properties";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private QueryCounter counter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LoadClient client;
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    @Test
+    void everyEndpointStaysWithinItsStatementBudget() throws IOException {
+        client = new LoadClient("http://localhost:" + port, objectMapper, new LoadStats());
+        probeAll();
+
+        Properties budgets = new Properties();
+        try (InputStream in = QueryBudgetTest.class.getClassLoader().getResourceAsStream(BUDGET_RESOURCE)) {
+            assertThat(in).as(BUDGET_RESOURCE).isNotNull();
+            budgets.load(in);
+        }
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            String budget = budgets.getProperty(entry.getKey());
+            if (budget == null) {
+                failures.putIfAbsent(entry.getKey(), entry.getValue() + " câu lệnh, chưa có ngân sách trong " + BUDGET_RESOURCE);
+            } else if (entry.getValue() > Long.parseLong(budget.trim())) {
+                failures.putIfAbsent(entry.getKey(), entry.getValue() + " câu lệnh > ngân sách " + budget.trim());
+            } else if (entry.getValue() < Long.parseLong(budget.trim())) {
+                System.out.printf("Có thể siết ngân sách %s: %s -> %d%n", entry.getKey(), budget.trim(), entry.getValue());
+            }
+        }
+
+        assertThat(failures).as("endpoint vượt ngân sách câu lệnh SQL").isEmpty();
+    }
+
+    /**
+     * Logic: Làm nóng cache xác thực của từng tài khoản trước, rồi đo mỗi endpoint đúng một lần
+     * theo thứ tự cố định (cache ứng dụng ở trạng thái lạnh như nhau giữa các lần chạy)
+     */
+    private void probeAll() {
+        String admin = DatasetGenerator.ADMIN_EMAIL;
+        String staff = DatasetGenerator.STAFF_EMAIL;
+        String customer = Summary.customerEmail(1);
+        int customerId = Summary.customerUserId(1);
+        for (String email : List.of(admin, staff, customer)) {
+            client.get("warmup", "/api/users/me", email, false);
+        }
+        // Đơn tại bàn có thanh toán: nhánh tốn câu lệnh nhất, cố định dù dữ liệu seed đổi theo ngày chạy
+        int orderId = jdbcTemplate.queryForObject("SELECT MIN(o.id) FROM orders o JOIN payments p ON p.order_id = o.id "
+                + "WHERE o.order_type = 'Dinein' AND o.table_id IS NOT NULL AND o.user_id IS NOT NULL", Integer.class);
+        LocalDate today = LocalDate.now();
+        LocalDateTime noon = today.plusDays(1).atTime(12, 0);
+
+        probeGet("GET /api/users/me", "/api/users/me", customer);
+        probeGet("GET /api/users", "/api/users", admin);
+        probeGet("GET /api/users/{id}", "/api/users/" + customerId, admin);
+        probeGet("GET /api/users/email/{email}", "/api/users/email/" + customer, admin);
+        probeGet("GET /api/users/role/{roleName}", "/api/users/role/user", admin);
+        probeGet("GET /api/users/search", "/api/users/search?role=user&size=20", admin);
+        probeGet("GET /api/users/typeahead", "/api/users/typeahead?q=0910", admin);
+
+        probeGet("GET /api/categories", "/api/categories", customer);
+        probeGet("GET /api/menu", "/api/menu?available=true&size=20", customer);
+        probeGet("GET /api/menu/page-count", "/api/menu/page-count?available=true", customer);
+        probeGet("GET /api/menu/{id}", "/api/menu/1", customer);
+        probeGet("GET /api/menu/category/{categoryId}", "/api/menu/category/1", customer);
+        probeGet("GET /api/menu/best-selling", "/api/menu/best-selling", customer);
+        probeGet("GET /api/menu/trending", "/api/menu/trending?window=24h", customer);
+        probeGet("GET /api/menu/{id}/price-history", "/api/menu/1/price-history", admin);
+        probeGet("GET /api/menu/price-report", "/api/menu/price-report", admin);
+
+        probeGet("GET /api/tables", "/api/tables", customer);
+        probeGet("GET /api/tables/count", "/api/tables/count", customer);
+        probeGet("GET /api/tables/availability", "/api/tables/availability?time=" + noon, customer);
+        probeGet("GET /api/tables/{tableNumber}", "/api/tables/1", customer);
+
+        probeGet("GET /api/bookings", "/api/bookings", admin);
+        probeGet("GET /api/bookings/{id}", "/api/bookings/1", admin);
+        probeGet("GET /api/bookings/user/{userId}", "/api/bookings/user/" + customerId, admin);
+        probeGet("GET /api/bookings/table/{tableId}", "/api/bookings/table/1", admin);
+
+        probeGet("GET /api/orders", "/api/orders", admin);
+        probeGet("GET /api/orders/{id}", "/api/orders/" + orderId, admin);
+        probeGet("GET /api/orders/user/{userId}", "/api/orders/user/" + customerId, admin);
+        probeGet("GET /api/orders/search/email", "/api/orders/search/email?email=" + customer, admin);
+        probeGet("GET /api/orders/table/{tableId}", "/api/orders/table/1", admin);
+        probeGet("GET /api/orders/status/{status}", "/api/orders/status/Completed", admin);
+        LocalDate lastMonth = today.minusMonths(1);
+        probeGet("GET /api/orders/stats/monthly", "/api/orders/stats/monthly?year=" + lastMonth.getYear()
+                + "&month=" + lastMonth.getMonthValue(), admin);
+        probeGet("GET /api/orders/stats/monthly-range", "/api/orders/stats/monthly-range?year="
+                + today.getYear() + "&fromMonth=1&toMonth=12", admin);
+
+        probeGet("GET /api/payments", "/api/payments", admin);
+        probeGet("GET /api/payments/{id}", "/api/payments/1", admin);
+        probeGet("GET /api/payments/order/{orderId}", "/api/payments/order/" + orderId, admin);
+        probeGet("GET /api/payments/status/{status}", "/api/payments/status/Successful", admin);
+        probeGet("GET /api/payments/method/{method}", "/api/payments/method/Cash", admin);
+        probeGet("GET /api/payments/search", "/api/payments/search?status=Successful&size=20", admin);
+        probeGet("GET /api/payments/revenue-report", "/api/payments/revenue-report", admin);
+        probeGet("GET /api/payments/revenue-series", "/api/payments/revenue-series?granularity=day&from="
+                + today.minusDays(30).atStartOfDay() + "&to=" + today.atStartOfDay(), admin);
+        probeGet("GET /api/payments/payment-method-distribution", "/api/payments/payment-method-distribution", admin);
+
+        // Luồng ghi: đặt bàn, tạo đơn, thanh toán tiền mặt + xác nhận, tạo link PayOS (cổng giả)
+        probe("POST /api/bookings", () -> client.post("probe", "/api/bookings", customer,
+                Map.of("userId", customerId, "tableId", 1, "bookingTime", noon.plusDays(30).toString(),
+                        "numGuests", 2), false));
+        LoadClient.Response cashOrder = probe("POST /api/orders", () -> createTakeawayOrder(customer, customerId));
+        LoadClient.Response payment = probe("POST /api/payments", () -> client.post("probe", "/api/payments",
+                customer, Map.of("orderId", cashOrder.body().path("id").asInt(),
+                        "amount", cashOrder.body().path("totalAmount").asText(), "paymentMethod", "Cash"), false));
+        probe("PATCH /api/payments/{id}/confirm", () -> client.patch("probe",
+                "/api/payments/" + payment.body().path("id").asInt() + "/confirm", staff, false));
+        LoadClient.Response payOSOrder = createTakeawayOrder(customer, customerId);
+        probe("POST /api/payments/payos/{orderId}", () -> client.post("probe",
+                "/api/payments/payos/" + payOSOrder.body().path("id").asInt(), customer, null, false));
+    }
+
+    private LoadClient.Response createTakeawayOrder(String email, int userId) {
+        return client.post("probe", "/api/orders", email, Map.of("userId", userId, "orderType", "Takeaway",
+                "orderItems", List.of(Map.of("menuItemId", 1, "quantity", 2), Map.of("menuItemId", 2, "quantity", 1),
+                        Map.of("menuItemId", 3, "quantity", 1))), false);
+    }
+
+    private void probeGet(String name, String path, String email) {
+        probe(name, () -> client.get("probe", path, email, false));
+    }
+
+    private LoadClient.Response probe(String name, Supplier<LoadClient.Response> call) {
+        counter.reset();
+        LoadClient.Response response = call.get();
+        long statements = counter.count();
+        counts.put(name, statements);
+        if (!response.ok()) {
+            failures.put(name, "HTTP " + response.status());
+        }
+        Map.Entry<String, Integer> repeated = counter.mostRepeated();
+        System.out.printf("%-52s %6d câu lệnh%s%n", name, statements,
+                repeated != null && repeated.getValue() > 3
+                        ? "  (lặp nhiều nhất x" + repeated.getValue() + ": " + abbreviate(repeated.getKey()) + ")"
+                        : "");
+        return response;
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ");
+        return flat.length() > 120 ? flat.substring(0, 120) + "..." : flat;
+    }
+}
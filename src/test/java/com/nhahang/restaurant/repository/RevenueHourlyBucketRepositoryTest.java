@@ -0,0 +1,62 @@
+package com.nhahang.restaurant.repository;
+
+import com.nhahang.restaurant.model.PaymentStatus;
+import com.nhahang.restaurant.model.entity.RevenueHourlyBucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class RevenueHourlyBucketRepositoryTest {
+
+    @Autowired
+    private RevenueHourlyBucketRepository bucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int nextOrderId = 1;
+
+    @Test
+    void insertFromPaymentsGroupsSuccessfulPaymentsByHour() {
+        payment("Successful", "100000", LocalDateTime.of(2026, 3, 1, 12, 5));
+        payment("Successful", "50000", LocalDateTime.of(2026, 3, 1, 12, 59, 59));
+        payment("Successful", "70000", LocalDateTime.of(2026, 3, 1, 13, 0));
+        payment("Failed", "999000", LocalDateTime.of(2026, 3, 1, 12, 30));
+        payment("Pending", "999000", LocalDateTime.of(2026, 3, 1, 13, 30));
+
+        int inserted = bucketRepository.insertFromPayments(PaymentStatus.Successful.name());
+
+        assertThat(inserted).isEqualTo(2);
+        List<RevenueHourlyBucket> buckets = bucketRepository.findByBucketStartBetweenOrderByBucketStartAsc(
+                LocalDateTime.of(2026, 3, 1, 0, 0), LocalDateTime.of(2026, 3, 2, 0, 0));
+        assertThat(buckets).hasSize(2);
+        assertThat(buckets.get(0).getBucketStart()).isEqualTo(LocalDateTime.of(2026, 3, 1, 12, 0));
+        assertThat(buckets.get(0).getTransactionCount()).isEqualTo(2);
+        assertThat(buckets.get(0).getTotalAmount()).isEqualByComparingTo(new BigDecimal("150000"));
+        assertThat(buckets.get(1).getBucketStart()).isEqualTo(LocalDateTime.of(2026, 3, 1, 13, 0));
+        assertThat(buckets.get(1).getTransactionCount()).isEqualTo(1);
+        assertThat(buckets.get(1).getTotalAmount()).isEqualByComparingTo(new BigDecimal("70000"));
+    }
+
+    @Test
+    void insertFromPaymentsOnEmptyTableInsertsNothing() {
+        assertThat(bucketRepository.insertFromPayments(PaymentStatus.Successful.name())).isZero();
+        assertThat(bucketRepository.count()).isZero();
+    }
+
+    private void payment(String status, String amount, LocalDateTime paymentTime) {
+        int orderId = nextOrderId++;
+        jdbcTemplate.update("INSERT INTO orders (id, total_amount, status, order_type, created_at) " +
+                "VALUES (?, ?, 'Completed', 'Takeaway', ?)", orderId, new BigDecimal(amount), paymentTime);
+        jdbcTemplate.update("INSERT INTO payments (order_id, amount, payment_method, status, payment_time) " +
+                "VALUES (?, ?, 'Cash', ?, ?)", orderId, new BigDecimal(amount), status, paymentTime);
+    }
+}
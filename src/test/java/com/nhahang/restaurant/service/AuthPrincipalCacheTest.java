@@ -0,0 +1,130 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.UserUpdateRequest;
+import com.nhahang.restaurant.model.RoleName;
+import com.nhahang.restaurant.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Cache principal theo token: hạn lưu không vượt exp của token (và trần 1 giờ),
+ * sửa user thì token đã cache của user đó bị bỏ, kể cả bản cũ nạp lại trước khi commit.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class AuthPrincipalCacheTest {
+
+    @Autowired
+    private AuthPrincipalCache authPrincipalCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void entryExpiresAtTokenExp() throws Exception {
+        String key = authPrincipalCache.key("token-sap-het-han");
+        long exp = System.currentTimeMillis() + 200;
+
+        authPrincipalCache.put(key, principal(1), exp);
+
+        assertThat(authPrincipalCache.get(key)).isNotNull();
+        assertThat(expiresAt(key)).isEqualTo(exp);
+        Thread.sleep(exp - System.currentTimeMillis() + 50);
+        assertThat(authPrincipalCache.get(key)).isNull();
+    }
+
+    @Test
+    void farExpIsCappedAtOneHour() {
+        String key = authPrincipalCache.key("token-song-lau");
+        long now = System.currentTimeMillis();
+
+        authPrincipalCache.put(key, principal(1), now + TimeUnit.DAYS.toMillis(1));
+
+        assertThat(expiresAt(key)).isCloseTo(now + TimeUnit.HOURS.toMillis(1), within(1_000L));
+    }
+
+    @Test
+    void expiredTokenIsNotCached() {
+        String key = authPrincipalCache.key("token-da-het-han");
+
+        authPrincipalCache.put(key, principal(1), System.currentTimeMillis() - 1);
+
+        assertThat(authPrincipalCache.get(key)).isNull();
+    }
+
+    @Test
+    void updatingUserDropsOnlyThatUsersTokens() {
+        int userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Integer.class);
+        int otherUserId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+        long exp = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10);
+        String web = authPrincipalCache.key("token-web-" + userId);
+        String mobile = authPrincipalCache.key("token-mobile-" + userId);
+        String other = authPrincipalCache.key("token-web-" + otherUserId);
+        authPrincipalCache.put(web, principal(userId), exp);
+        authPrincipalCache.put(mobile, principal(userId), exp);
+        authPrincipalCache.put(other, principal(otherUserId), exp);
+
+        userService.updateUser(userId, fullName("Tên mới " + userId));
+
+        assertThat(authPrincipalCache.get(web)).isNull();
+        assertThat(authPrincipalCache.get(mobile)).isNull();
+        assertThat(authPrincipalCache.get(other)).isNotNull();
+    }
+
+    @Test
+    void staleEntryCachedBeforeCommitIsDroppedAfterCommit() {
+        int userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Integer.class);
+        long exp = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10);
+        String key = authPrincipalCache.key("token-chen-giua-" + userId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.updateUser(userId, fullName("Tên sau commit " + userId));
+            // Request khác đọc user cũ (chưa commit) rồi ghi vào cache
+            authPrincipalCache.put(key, principal(userId), exp);
+            assertThat(authPrincipalCache.get(key)).isNotNull();
+        });
+
+        assertThat(authPrincipalCache.get(key)).isNull();
+    }
+
+    private static AuthPrincipalCache.CachedPrincipal principal(int userId) {
+        User user = new User();
+        user.setId(userId);
+        return new AuthPrincipalCache.CachedPrincipal(user, RoleName.user);
+    }
+
+    private static UserUpdateRequest fullName(String name) {
+        UserUpdateRequest request = new UserUpdateRequest();
+        request.setFullName(name);
+        return request;
+    }
+
+    // Thời điểm hết hạn đã lưu cho khóa, đọc thẳng từ TtlCache bên trong
+    private long expiresAt(String key) {
+        Map<?, ?> entries = (Map<?, ?>) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(authPrincipalCache, "cache"), "entries");
+        Object entry = entries.get(key);
+        assertThat(entry).isNotNull();
+        return (Long) ReflectionTestUtils.invokeMethod(entry, "expiresAt");
+    }
+}
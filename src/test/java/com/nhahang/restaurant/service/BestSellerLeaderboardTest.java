@@ -0,0 +1,158 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.repository.OrderRepository;
+import com.nhahang.restaurant.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bảng xếp hạng trên H2 (profile loadtest): bộ đếm dựng lúc khởi động khớp order_items,
+ * và một đơn được hoàn thành đồng thời từ hai phía chỉ được cộng một lần.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class BestSellerLeaderboardTest {
+
+    private static final int MENU_ITEM_ID = 1;
+
+    @Autowired
+    private BestSellerLeaderboard leaderboard;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void seededCountersMatchCompletedOrderItems() {
+        Map<Integer, Long> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT oi.menu_item_id, SUM(oi.quantity) FROM order_items oi "
+                        + "JOIN orders o ON o.id = oi.order_id WHERE o.status = 'Completed' GROUP BY oi.menu_item_id",
+                rs -> {
+                    expected.put(rs.getInt(1), rs.getLong(2));
+                });
+        Map<Integer, Long> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT menu_item_id, total_quantity FROM menu_item_sales_stats",
+                rs -> {
+                    stored.put(rs.getInt(1), rs.getLong(2));
+                });
+
+        assertThat(expected).isNotEmpty();
+        // Đúng cả sau các test khác trong cùng context: mỗi đơn hoàn thành được cộng đúng một lần
+        assertThat(stored).isEqualTo(expected);
+        assertThat(leaderboard.top(1)).isNotEmpty();
+    }
+
+    @Test
+    void orderCompletedConcurrentlyByPaymentAndStaffIsCountedOnce() throws Exception {
+        int orderId = insert("INSERT INTO orders (total_amount, status, order_type, created_at) "
+                + "VALUES (?, 'Pending', 'Takeaway', CURRENT_TIMESTAMP)", new BigDecimal("90000"));
+        insert("INSERT INTO order_items (order_id, menu_item_id, quantity, price_at_order) VALUES (?, ?, 3, ?)",
+                orderId, MENU_ITEM_ID, new BigDecimal("30000"));
+        int paymentId = insert("INSERT INTO payments (order_id, amount, payment_method, status) "
+                + "VALUES (?, ?, 'Cash', 'Pending')", orderId, new BigDecimal("90000"));
+        long storedBefore = storedQuantity();
+        long rankedBefore = rankedQuantity();
+
+        CyclicBarrier bothLoaded = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> payment = executor.submit(() -> afterStaleRead(bothLoaded, () -> {
+                paymentRepository.findById(paymentId).orElseThrow();
+            }, () -> paymentService.confirmPayment(paymentId)));
+            Future<?> staff = executor.submit(() -> afterStaleRead(bothLoaded, () -> {
+                orderRepository.findById(orderId).orElseThrow();
+            }, () -> orderService.updateOrderStatus(orderId, "Completed")));
+            payment.get(30, TimeUnit.SECONDS);
+            try {
+                staff.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                // Bên thua (nếu là nhân viên) nhận lỗi "đã hoàn thành" thay vì cộng đơn lần nữa
+                assertThat(e.getCause()).hasMessageContaining("đã hoàn thành");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(storedQuantity() - storedBefore).isEqualTo(3);
+        assertThat(rankedQuantity() - rankedBefore).isEqualTo(3);
+    }
+
+    /**
+     * Nạp thực thể trong transaction ngoài, chờ luồng kia cũng nạp xong rồi mới gọi service,
+     * nên cả hai bên cùng thấy đơn còn Pending
+     */
+    private void afterStaleRead(CyclicBarrier bothLoaded, Runnable load, Runnable action) {
+        transactionTemplate.executeWithoutResult(status -> {
+            load.run();
+            try {
+                bothLoaded.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            action.run();
+        });
+    }
+
+    private long storedQuantity() {
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT total_quantity FROM menu_item_sales_stats WHERE menu_item_id = ?", Long.class, MENU_ITEM_ID);
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    private long rankedQuantity() {
+        return leaderboard.top(Integer.MAX_VALUE).stream()
+                .filter(entry -> entry.menuItemId() == MENU_ITEM_ID)
+                .mapToLong(BestSellerLeaderboard.Entry::totalQuantity)
+                .findFirst().orElse(0);
+    }
+
+    private int insert(String sql, Object... args) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, keys);
+        return keys.getKey().intValue();
+    }
+}
@@ -0,0 +1,92 @@
+package com.nhahang.restaurant.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDerivativeServiceTest {
+
+    private static final int RED = Color.RED.getRGB();
+    private static final int BLUE = Color.BLUE.getRGB();
+
+    /** Ảnh 2x1: pixel trái đỏ, pixel phải xanh */
+    private static BufferedImage redBlue() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, RED);
+        image.setRGB(1, 0, BLUE);
+        return image;
+    }
+
+    @Test
+    void orientationOneKeepsImage() {
+        BufferedImage source = redBlue();
+        assertThat(ImageDerivativeService.applyOrientation(source, 1)).isSameAs(source);
+    }
+
+    @Test
+    void orientationSixRotatesClockwise() {
+        BufferedImage rotated = ImageDerivativeService.applyOrientation(redBlue(), 6);
+        assertThat(rotated.getWidth()).isEqualTo(1);
+        assertThat(rotated.getHeight()).isEqualTo(2);
+        assertThat(rotated.getRGB(0, 0)).isEqualTo(RED);
+        assertThat(rotated.getRGB(0, 1)).isEqualTo(BLUE);
+    }
+
+    @Test
+    void orientationEightRotatesCounterClockwise() {
+        BufferedImage rotated = ImageDerivativeService.applyOrientation(redBlue(), 8);
+        assertThat(rotated.getWidth()).isEqualTo(1);
+        assertThat(rotated.getHeight()).isEqualTo(2);
+        assertThat(rotated.getRGB(0, 0)).isEqualTo(BLUE);
+        assertThat(rotated.getRGB(0, 1)).isEqualTo(RED);
+    }
+
+    @Test
+    void orientationThreeAndTwoMirrorHorizontally() {
+        for (int orientation : new int[] {2, 3}) {
+            BufferedImage flipped = ImageDerivativeService.applyOrientation(redBlue(), orientation);
+            assertThat(flipped.getWidth()).isEqualTo(2);
+            assertThat(flipped.getRGB(0, 0)).isEqualTo(BLUE);
+            assertThat(flipped.getRGB(1, 0)).isEqualTo(RED);
+        }
+    }
+
+    @Test
+    void decodeReadsExifOrientationFromJpeg() {
+        BufferedImage landscape = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+        byte[] jpeg = withExifOrientation(ImageDerivativeService.encodeJpeg(landscape), 6);
+
+        assertThat(ImageDerivativeService.readOrientation(jpeg)).isEqualTo(6);
+        BufferedImage decoded = ImageDerivativeService.decode(jpeg);
+        assertThat(decoded.getWidth()).isEqualTo(20);
+        assertThat(decoded.getHeight()).isEqualTo(40);
+    }
+
+    @Test
+    void missingExifMeansNoRotation() {
+        byte[] jpeg = ImageDerivativeService.encodeJpeg(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB));
+        assertThat(ImageDerivativeService.readOrientation(jpeg)).isEqualTo(1);
+        assertThat(ImageDerivativeService.decode(jpeg).getWidth()).isEqualTo(40);
+    }
+
+    /** Chèn segment APP1/Exif chỉ chứa tag Orientation ngay sau SOI của file JPEG */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] app1 = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(app1, 0, app1.length);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
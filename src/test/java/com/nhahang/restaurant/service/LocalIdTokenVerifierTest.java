@@ -0,0 +1,287 @@
+package com.nhahang.restaurant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalIdTokenVerifierTest {
+
+    private static final String PROJECT_ID = "nhahang-test";
+    private static final String ISSUER = "https://securetoken.google.com/" + PROJECT_ID;
+
+    private static KeyPair signingKey;
+    private static KeyPair rotatedKey;
+    private static String signingCert;
+    private static String rotatedCert;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger keyFetches = new AtomicInteger();
+    // Nội dung endpoint khóa công khai, đổi được giữa chừng để giả lập Google xoay khóa
+    private volatile Map<String, String> publishedCerts;
+    // Nếu khác null, endpoint khóa chờ latch này rồi mới trả lời (giả lập Google chậm)
+    private volatile CountDownLatch holdFetch;
+    private HttpServer server;
+    private String keysUrl;
+    private LocalIdTokenVerifier verifier;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        signingKey = generator.generateKeyPair();
+        rotatedKey = generator.generateKeyPair();
+        signingCert = selfSignedPem(signingKey);
+        rotatedCert = selfSignedPem(rotatedKey);
+    }
+
+    @BeforeEach
+    void startKeyServer() throws Exception {
+        publishedCerts = Map.of("kid-1", signingCert);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/certs", exchange -> {
+            keyFetches.incrementAndGet();
+            CountDownLatch hold = holdFetch;
+            if (hold != null) {
+                try {
+                    hold.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = objectMapper.writeValueAsBytes(publishedCerts);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=21600");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        keysUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/certs";
+        verifier = new LocalIdTokenVerifier(objectMapper, null, keysUrl, PROJECT_ID, 0);
+    }
+
+    @AfterEach
+    void stopKeyServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void acceptsValidToken() {
+        Map<String, Object> claims = validClaims();
+        claims.put("email", "staff@nhahang.vn");
+
+        VerifiedIdToken token = verifier.verify(sign(rs256Header("kid-1"), claims, signingKey.getPrivate()));
+
+        assertThat(token.uid()).isEqualTo("user-1");
+        assertThat(token.email()).isEqualTo("staff@nhahang.vn");
+        assertThat(token.expiresAtMillis()).isEqualTo(((Number) claims.get("exp")).longValue() * 1000);
+        assertThat(keyFetches).hasValue(1);
+    }
+
+    @Test
+    void rejectsSignatureFromAnotherKey() {
+        String token = sign(rs256Header("kid-1"), validClaims(), rotatedKey.getPrivate());
+        assertRejected(token, "Chữ ký");
+    }
+
+    @Test
+    void rejectsAlgNone() {
+        Map<String, Object> header = Map.of("alg", "none", "kid", "kid-1");
+        String unsigned = encode(header) + "." + encode(validClaims());
+        // Dạng chuẩn của alg=none là phần chữ ký rỗng; thêm chữ ký giả để chắc chắn bị chặn ở bước kiểm tra alg
+        assertRejected(unsigned + ".", "JWT");
+        assertRejected(unsigned + "." + encodeBytes(new byte[256]), "thuật toán");
+    }
+
+    @Test
+    void rejectsHs256() {
+        Map<String, Object> header = Map.of("alg", "HS256", "kid", "kid-1", "typ", "JWT");
+        String token = encode(header) + "." + encode(validClaims()) + "." + encodeBytes(new byte[32]);
+        assertRejected(token, "thuật toán");
+    }
+
+    @Test
+    void rejectsWrongAudience() {
+        Map<String, Object> claims = validClaims();
+        claims.put("aud", "another-project");
+        assertRejected(sign(rs256Header("kid-1"), claims, signingKey.getPrivate()), "project");
+    }
+
+    @Test
+    void rejectsWrongIssuer() {
+        Map<String, Object> claims = validClaims();
+        claims.put("iss", "https://securetoken.google.com/another-project");
+        assertRejected(sign(rs256Header("kid-1"), claims, signingKey.getPrivate()), "project");
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        Map<String, Object> claims = validClaims();
+        claims.put("iat", nowSeconds() - 7200);
+        claims.put("exp", nowSeconds() - 120);
+        assertRejected(sign(rs256Header("kid-1"), claims, signingKey.getPrivate()), "hết hạn");
+    }
+
+    @Test
+    void rejectsTokenIssuedInFuture() {
+        Map<String, Object> claims = validClaims();
+        claims.put("iat", nowSeconds() + 600);
+        assertRejected(sign(rs256Header("kid-1"), claims, signingKey.getPrivate()), "tương lai");
+    }
+
+    @Test
+    void rejectsEmptySubject() {
+        Map<String, Object> claims = validClaims();
+        claims.put("sub", "");
+        assertRejected(sign(rs256Header("kid-1"), claims, signingKey.getPrivate()), "sub");
+    }
+
+    @Test
+    void rejectsUnknownKidAfterRefreshingOnce() {
+        verifier.verify(sign(rs256Header("kid-1"), validClaims(), signingKey.getPrivate()));
+
+        assertRejected(sign(rs256Header("kid-unknown"), validClaims(), signingKey.getPrivate()), "không xác định");
+        assertThat(keyFetches).hasValue(2);
+    }
+
+    @Test
+    void unknownKidRefreshesSynchronouslyAfterKeyRotation() {
+        verifier.verify(sign(rs256Header("kid-1"), validClaims(), signingKey.getPrivate()));
+        publishedCerts = Map.of("kid-1", signingCert, "kid-2", rotatedCert);
+
+        VerifiedIdToken token = verifier.verify(sign(rs256Header("kid-2"), validClaims(), rotatedKey.getPrivate()));
+
+        assertThat(token.uid()).isEqualTo("user-1");
+        assertThat(keyFetches).hasValue(2);
+    }
+
+    @Test
+    void unknownKidRefreshIsRateLimited() {
+        verifier = new LocalIdTokenVerifier(objectMapper, null, keysUrl, PROJECT_ID, 60_000);
+        verifier.verify(sign(rs256Header("kid-1"), validClaims(), signingKey.getPrivate()));
+        for (int i = 0; i < 5; i++) {
+            String token = sign(rs256Header("kid-forged-" + i), validClaims(), signingKey.getPrivate());
+            assertRejected(token, "không xác định");
+        }
+        // Lượt nạp đầu vừa xong nên chưa tới khoảng tối thiểu: kid lạ không kéo thêm lượt tải nào
+        assertThat(keyFetches).hasValue(1);
+    }
+
+    @Test
+    void concurrentColdStartRequestsShareOneFetch() throws Exception {
+        holdFetch = new CountDownLatch(1);
+        String token = sign(rs256Header("kid-1"), validClaims(), signingKey.getPrivate());
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<VerifiedIdToken>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(requests.submit(() -> verifier.verify(token)));
+            }
+            // Lượt tải đầu đang treo ở endpoint, các request còn lại phải chờ chung chứ không tự tải
+            while (keyFetches.get() == 0) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(200);
+            holdFetch.countDown();
+            for (Future<VerifiedIdToken> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS).uid()).isEqualTo("user-1");
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+        assertThat(keyFetches).hasValue(1);
+    }
+
+    private void assertRejected(String token, String messagePart) {
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining(messagePart);
+    }
+
+    private static Map<String, Object> rs256Header(String kid) {
+        return Map.of("alg", "RS256", "kid", kid, "typ", "JWT");
+    }
+
+    private static Map<String, Object> validClaims() {
+        long now = nowSeconds();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", ISSUER);
+        claims.put("aud", PROJECT_ID);
+        claims.put("auth_time", now - 60);
+        claims.put("sub", "user-1");
+        claims.put("iat", now - 60);
+        claims.put("exp", now + 3600);
+        return claims;
+    }
+
+    private String sign(Map<String, Object> header, Map<String, Object> claims, PrivateKey key) {
+        String signingInput = encode(header) + "." + encode(claims);
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(key);
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + encodeBytes(signature.sign());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String encode(Map<String, Object> json) {
+        try {
+            return encodeBytes(objectMapper.writeValueAsBytes(json));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encodeBytes(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String selfSignedPem(KeyPair keyPair) throws Exception {
+        X500Name subject = new X500Name("CN=securetoken.system.gserviceaccount.com");
+        long now = System.currentTimeMillis();
+        X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(
+                new JcaX509v3CertificateBuilder(subject, BigInteger.valueOf(now), new Date(now - 3_600_000),
+                        new Date(now + 86_400_000), subject, keyPair.getPublic())
+                        .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+        return "-----BEGIN CERTIFICATE-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(certificate.getEncoded())
+                + "\n-----END CERTIFICATE-----\n";
+    }
+}
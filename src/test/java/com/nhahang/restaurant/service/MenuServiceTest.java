@@ -0,0 +1,116 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.ImageDerivatives;
+import com.nhahang.restaurant.dto.MenuItemDTO;
+import com.nhahang.restaurant.model.MenuItemStatus;
+import com.nhahang.restaurant.model.entity.Category;
+import com.nhahang.restaurant.model.entity.MenuItem;
+import com.nhahang.restaurant.repository.CategoryRepository;
+import com.nhahang.restaurant.repository.MenuItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MenuServiceTest {
+
+    private static final int ITEM_ID = 5;
+    private static final int CATEGORY_ID = 2;
+
+    private final MenuItemRepository menuItemRepository = mock(MenuItemRepository.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final MenuPriceHistoryService priceHistoryService = mock(MenuPriceHistoryService.class);
+    private final ImageDerivativeService imageDerivativeService = mock(ImageDerivativeService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final MockMultipartFile photo = new MockMultipartFile("file", "pho.jpg", "image/jpeg", new byte[]{1, 2, 3});
+    private MenuItem existing;
+    private MenuService menuService;
+
+    @BeforeEach
+    void setUp() {
+        existing = new MenuItem();
+        existing.setId(ITEM_ID);
+        existing.setName("Phở bò");
+        existing.setPrice(new BigDecimal("55000"));
+        existing.setStatus(MenuItemStatus.Available);
+        when(menuItemRepository.findById(ITEM_ID)).thenReturn(Optional.of(existing));
+        when(menuItemRepository.save(any(MenuItem.class))).thenAnswer(inv -> {
+            MenuItem item = inv.getArgument(0);
+            if (item.getId() == null) {
+                item.setId(ITEM_ID + 1);
+            }
+            return item;
+        });
+        when(categoryRepository.findById(CATEGORY_ID)).thenReturn(Optional.of(new Category()));
+        when(imageDerivativeService.process(any())).thenReturn(
+                new ImageDerivatives("hash", "large.jpg", "small.jpg", "medium.jpg", "large.jpg"));
+
+        menuService = new MenuService(menuItemRepository, categoryRepository, mock(BestSellerLeaderboard.class),
+                priceHistoryService, mock(ApplicationEventPublisher.class), imageDerivativeService,
+                new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void createUploadsImageBeforeOpeningTransaction() {
+        MenuItem created = menuService.createMenuItem(dto("60000"), photo);
+
+        InOrder order = inOrder(imageDerivativeService, transactionManager, menuItemRepository, priceHistoryService);
+        order.verify(imageDerivativeService).process(photo);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(menuItemRepository).save(any(MenuItem.class));
+        order.verify(priceHistoryService).recordPrice(created.getId(), new BigDecimal("60000"));
+        order.verify(transactionManager).commit(any());
+        assertThat(created.getImageSmallUrl()).isEqualTo("small.jpg");
+    }
+
+    @Test
+    void updateWithNewImageUploadsBeforeOpeningTransaction() {
+        menuService.updateMenuItem(ITEM_ID, dto("55000"), photo);
+
+        InOrder order = inOrder(imageDerivativeService, transactionManager, menuItemRepository);
+        order.verify(imageDerivativeService).process(photo);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(menuItemRepository).findById(ITEM_ID);
+        assertThat(existing.getImageHash()).isEqualTo("hash");
+    }
+
+    @Test
+    void updateWithUnchangedPriceSkipsHistoryRow() {
+        // Cùng giá nhưng khác scale (55000 và 55000.00) vẫn là không đổi
+        menuService.updateMenuItem(ITEM_ID, dto("55000.00"), null);
+
+        verify(priceHistoryService, never()).recordPrice(any(), any());
+        verify(imageDerivativeService, never()).process(any());
+    }
+
+    @Test
+    void updateWithNewPriceRecordsHistoryRow() {
+        menuService.updateMenuItem(ITEM_ID, dto("59000"), null);
+
+        verify(priceHistoryService).recordPrice(ITEM_ID, new BigDecimal("59000"));
+    }
+
+    private MenuItemDTO dto(String price) {
+        MenuItemDTO dto = new MenuItemDTO();
+        dto.setName("Phở bò");
+        dto.setDescription("Tái nạm");
+        dto.setPrice(new BigDecimal(price));
+        dto.setCategoryId(CATEGORY_ID);
+        dto.setStatus(MenuItemStatus.Available.name());
+        return dto;
+    }
+}
@@ -0,0 +1,86 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.OrderDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ghép giờ đặt bàn cho đơn tại bàn trên H2 (profile loadtest): chỉ booking của đúng khách,
+ * đúng bàn, trong ±12 giờ quanh lúc tạo đơn; lấy booking muộn nhất.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class OrderBookingTimeTest {
+
+    // Ngày không có dữ liệu seed nào
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2020, 3, 1, 19, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void matchesLatestBookingOfSameUserAndTableWithinWindow() {
+        int userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Integer.class);
+        int otherUserId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+        int tableId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM tables", Integer.class);
+        int otherTableId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tables", Integer.class);
+
+        booking(userId, tableId, ORDER_TIME.minusHours(20));     // ngoài khoảng
+        booking(userId, tableId, ORDER_TIME.minusHours(2));
+        booking(userId, tableId, ORDER_TIME.plusHours(11));      // muộn nhất trong khoảng
+        booking(userId, tableId, ORDER_TIME.plusHours(13));      // ngoài khoảng
+        booking(otherUserId, tableId, ORDER_TIME.plusHours(12)); // khách khác
+        booking(userId, otherTableId, ORDER_TIME.plusHours(12)); // bàn khác
+        int matched = dineInOrder(userId, tableId, ORDER_TIME);
+        int unmatched = dineInOrder(userId, tableId, ORDER_TIME.minusDays(3));
+
+        assertThat(orderService.getOrderById(matched).getBookingTime()).isEqualTo(ORDER_TIME.plusHours(11));
+
+        // Cả danh sách cũng ghép theo từng đơn, đơn không có booking trong khoảng thì để trống
+        Map<Integer, OrderDTO> byId = orderService.getOrdersByTableId(tableId).stream()
+                .collect(Collectors.toMap(OrderDTO::getId, dto -> dto));
+        assertThat(byId.get(matched).getBookingTime()).isEqualTo(ORDER_TIME.plusHours(11));
+        assertThat(byId.get(unmatched).getBookingTime()).isNull();
+    }
+
+    private void booking(int userId, int tableId, LocalDateTime time) {
+        jdbcTemplate.update("INSERT INTO bookings (user_id, table_id, booking_time, num_guests, status) "
+                + "VALUES (?, ?, ?, 2, 'Completed')", userId, tableId, Timestamp.valueOf(time));
+    }
+
+    private int dineInOrder(int userId, int tableId, LocalDateTime createdAt) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO orders (user_id, table_id, total_amount, status, order_type, created_at) "
+                            + "VALUES (?, ?, ?, 'Completed', 'Dinein', ?)", Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, userId);
+            statement.setInt(2, tableId);
+            statement.setBigDecimal(3, new BigDecimal("150000"));
+            statement.setTimestamp(4, Timestamp.valueOf(createdAt));
+            return statement;
+        }, keys);
+        return keys.getKey().intValue();
+    }
+}
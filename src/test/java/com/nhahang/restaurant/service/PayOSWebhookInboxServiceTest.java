@@ -0,0 +1,252 @@
+package com.nhahang.restaurant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nhahang.restaurant.model.WebhookInboxStatus;
+import com.nhahang.restaurant.model.entity.PaymentWebhookInbox;
+import com.nhahang.restaurant.repository.PaymentWebhookInboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Inbox webhook PayOS trên H2 (profile loadtest): chống trùng theo (orderCode, mã giao dịch)
+ * dựa trên ràng buộc unique thật, và thử lại có backoff trước khi đánh dấu Failed.
+ * Worker chạy ngay trên thread gọi nên mỗi lần receive/poll xử lý xong trước khi kiểm tra.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20",
+        // Context riêng nên dùng DB riêng: poller của các context khác không được đụng vào inbox của test,
+        // và ddl-auto=create của context này không dựng lại schema dưới chân các context đang cache
+        "spring.datasource.url=jdbc:h2:mem:webhookinbox;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=VALUE,YEAR,MONTH,KEY,USER;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "payos.webhook.poll-interval-ms=3600000"
+})
+@ActiveProfiles("loadtest")
+class PayOSWebhookInboxServiceTest {
+
+    private static final long BASE_DELAY_MS = 60_000;
+    private static final AtomicLong ORDER_CODES = new AtomicLong(9_000_000);
+
+    @Autowired
+    private PaymentWebhookInboxRepository inboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private PayOSWebhookInboxService inboxService;
+
+    @BeforeEach
+    void setUp() {
+        inboxService = new PayOSWebhookInboxService(inboxRepository, paymentService, new PassThroughGateway(),
+                objectMapper, transactionTemplate, new CallerRunsExecutor(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(inboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(inboxService, "retryBaseDelayMs", BASE_DELAY_MS);
+        ReflectionTestUtils.setField(inboxService, "retryMaxDelayMs", 10 * BASE_DELAY_MS);
+    }
+
+    @Test
+    void repeatedOrderCodeAndTransactionIdIsStoredAndAppliedOnce() throws Exception {
+        long orderCode = ORDER_CODES.incrementAndGet();
+
+        inboxService.receive(webhook(orderCode, "FT-DUP"));
+        inboxService.receive(webhook(orderCode, "FT-DUP"));
+
+        assertThat(entries(orderCode)).singleElement()
+                .satisfies(entry -> assertThat(entry.getStatus()).isEqualTo(WebhookInboxStatus.Processed));
+        verify(paymentService, times(1)).applyPayOSPayment((int) orderCode, "FT-DUP");
+    }
+
+    @Test
+    void concurrentDuplicatesHitUniqueConstraintOnce() throws Exception {
+        long orderCode = ORDER_CODES.incrementAndGet();
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Object>> sends = List.of(
+                    senders.submit(() -> sendAfter(start, orderCode)),
+                    senders.submit(() -> sendAfter(start, orderCode)));
+            for (Future<Object> send : sends) {
+                send.get(30, TimeUnit.SECONDS); // bên trùng vẫn được trả lời thành công
+            }
+        } finally {
+            senders.shutdownNow();
+        }
+
+        assertThat(entries(orderCode)).hasSize(1);
+        verify(paymentService, times(1)).applyPayOSPayment((int) orderCode, "FT-RACE");
+    }
+
+    @Test
+    void sameOrderCodeWithNewTransactionIsNotADuplicate() throws Exception {
+        long orderCode = ORDER_CODES.incrementAndGet();
+
+        inboxService.receive(webhook(orderCode, "FT-A"));
+        inboxService.receive(webhook(orderCode, "FT-B"));
+
+        assertThat(entries(orderCode)).hasSize(2);
+    }
+
+    @Test
+    void failingEntryBacksOffExponentiallyThenFails() throws Exception {
+        long orderCode = ORDER_CODES.incrementAndGet();
+        doThrow(new RuntimeException("Deadlock found when trying to get lock"))
+                .when(paymentService).applyPayOSPayment(anyInt(), anyString());
+
+        inboxService.receive(webhook(orderCode, "FT-RETRY"));
+        PaymentWebhookInbox entry = single(orderCode);
+        assertThat(entry.getStatus()).isEqualTo(WebhookInboxStatus.Pending);
+        assertThat(entry.getAttempts()).isEqualTo(1);
+        assertDelay(entry, BASE_DELAY_MS);
+
+        // Chưa tới hạn: lượt quét kế tiếp không được thử lại ngay
+        inboxService.pollPending();
+        assertThat(single(orderCode).getAttempts()).isEqualTo(1);
+
+        makeDue(orderCode);
+        inboxService.pollPending();
+        entry = single(orderCode);
+        assertThat(entry.getAttempts()).isEqualTo(2);
+        assertDelay(entry, 2 * BASE_DELAY_MS);
+
+        makeDue(orderCode);
+        inboxService.pollPending();
+        entry = single(orderCode);
+        assertThat(entry.getStatus()).isEqualTo(WebhookInboxStatus.Failed);
+        assertThat(entry.getAttempts()).isEqualTo(3);
+        assertThat(entry.getLastError()).contains("Deadlock");
+        assertThat(entry.getNextAttemptAt()).isNull();
+        assertThat(entry.getProcessedAt()).isNotNull();
+
+        // Đã Failed thì không bị quét lại nữa
+        makeDue(orderCode);
+        inboxService.pollPending();
+        verify(paymentService, times(3)).applyPayOSPayment((int) orderCode, "FT-RETRY");
+    }
+
+    @Test
+    void retryDelayIsCapped() {
+        assertThat(inboxService.retryDelayMs(1)).isEqualTo(BASE_DELAY_MS);
+        assertThat(inboxService.retryDelayMs(3)).isEqualTo(4 * BASE_DELAY_MS);
+        assertThat(inboxService.retryDelayMs(10)).isEqualTo(10 * BASE_DELAY_MS);
+        assertThat(inboxService.retryDelayMs(100)).isEqualTo(10 * BASE_DELAY_MS);
+    }
+
+    private Object sendAfter(CyclicBarrier start, long orderCode) throws Exception {
+        start.await(10, TimeUnit.SECONDS);
+        inboxService.receive(webhook(orderCode, "FT-RACE"));
+        return null;
+    }
+
+    private void assertDelay(PaymentWebhookInbox entry, long expectedMs) {
+        LocalDateTime expected = LocalDateTime.now().plus(Duration.ofMillis(expectedMs));
+        assertThat(entry.getNextAttemptAt()).isCloseTo(expected, within(5, ChronoUnit.SECONDS));
+    }
+
+    // Giả lập thời gian chờ đã trôi qua
+    private void makeDue(long orderCode) {
+        jdbcTemplate.update("UPDATE payment_webhook_inbox SET next_attempt_at = ? WHERE order_code = ?",
+                LocalDateTime.now().minusSeconds(1), orderCode);
+    }
+
+    private List<PaymentWebhookInbox> entries(long orderCode) {
+        return inboxRepository.findAll().stream()
+                .filter(entry -> entry.getOrderCode() == orderCode)
+                .toList();
+    }
+
+    private PaymentWebhookInbox single(long orderCode) {
+        List<PaymentWebhookInbox> entries = entries(orderCode);
+        assertThat(entries).hasSize(1);
+        return entries.get(0);
+    }
+
+    private ObjectNode webhook(long orderCode, String reference) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("code", "00");
+        body.put("desc", "success");
+        body.put("success", true);
+        ObjectNode data = body.putObject("data");
+        data.put("orderCode", orderCode);
+        data.put("amount", 120_000);
+        data.put("description", "Thanh toan don " + orderCode);
+        data.put("accountNumber", "0000123456789");
+        data.put("reference", reference);
+        data.put("transactionDateTime", "2026-10-19 10:00:00");
+        data.put("currency", "VND");
+        data.put("paymentLinkId", "link-" + orderCode);
+        data.put("code", "00");
+        data.put("desc", "success");
+        body.put("signature", "test");
+        return body;
+    }
+
+    /**
+     * Bỏ qua chữ ký, trả thẳng phần data như bản PayOS giả lập
+     */
+    private static class PassThroughGateway implements PayOSGateway {
+
+        @Override
+        public WebhookData verifyWebhook(Webhook webhook) {
+            return webhook.getData();
+        }
+
+        @Override
+        public CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PaymentLink getPaymentLink(long orderCode) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class CallerRunsExecutor extends ThreadPoolTaskExecutor {
+
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    }
+}
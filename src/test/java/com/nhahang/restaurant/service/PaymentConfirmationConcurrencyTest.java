@@ -0,0 +1,110 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hai lần xác nhận cùng một thanh toán chạy song song trên H2 (chế độ MySQL, khóa dòng thật):
+ * cả hai transaction đều đọc Pending trước khi bên nào kịp đổi, bucket doanh thu vẫn chỉ được cộng một lần.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class PaymentConfirmationConcurrencyTest {
+
+    // Giờ không có dữ liệu seed nào rơi vào (seed chỉ sinh quanh thời điểm chạy)
+    private static final LocalDateTime PAYMENT_TIME = LocalDateTime.of(2020, 1, 1, 10, 15);
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentConfirmationsCountPaymentInRevenueBucketOnce() throws Exception {
+        int orderId = insert("INSERT INTO orders (total_amount, status, order_type, created_at) "
+                + "VALUES (?, 'Pending', 'Takeaway', ?)", new BigDecimal("250000"), Timestamp.valueOf(PAYMENT_TIME));
+        int paymentId = insert("INSERT INTO payments (order_id, amount, payment_method, status, payment_time) "
+                + "VALUES (?, ?, 'Cash', 'Pending', ?)", orderId, new BigDecimal("250000"), Timestamp.valueOf(PAYMENT_TIME));
+
+        CyclicBarrier bothLoaded = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> confirmations = List.of(
+                    executor.submit(() -> confirmAfterStaleRead(paymentId, bothLoaded)),
+                    executor.submit(() -> confirmAfterStaleRead(paymentId, bothLoaded)));
+            for (Future<?> confirmation : confirmations) {
+                confirmation.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> bucket = jdbcTemplate.queryForMap(
+                "SELECT transaction_count, total_amount FROM revenue_hourly_buckets WHERE bucket_start = ?",
+                Timestamp.valueOf(PAYMENT_TIME.withMinute(0)));
+        assertThat(((Number) bucket.get("transaction_count")).longValue()).isEqualTo(1);
+        assertThat((BigDecimal) bucket.get("total_amount")).isEqualByComparingTo("250000");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM payments WHERE id = ?", String.class, paymentId))
+                .isEqualTo("Successful");
+    }
+
+    /**
+     * Nạp thanh toán (Pending) trong transaction ngoài rồi chờ luồng kia cũng nạp xong,
+     * nên confirmPayment ở cả hai luồng đều bắt đầu từ trạng thái đã cũ
+     */
+    private void confirmAfterStaleRead(int paymentId, CyclicBarrier bothLoaded) {
+        transactionTemplate.executeWithoutResult(status -> {
+            paymentRepository.findById(paymentId).orElseThrow();
+            try {
+                bothLoaded.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            paymentService.confirmPayment(paymentId);
+        });
+    }
+
+    private int insert(String sql, Object... args) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, keys);
+        return keys.getKey().intValue();
+    }
+}
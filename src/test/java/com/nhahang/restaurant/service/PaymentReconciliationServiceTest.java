@@ -0,0 +1,247 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.ReconciliationResultDTO;
+import com.nhahang.restaurant.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+import vn.payos.model.v2.paymentRequests.Transaction;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đối soát PayOS trên H2 (profile loadtest) với gateway giả: mỗi trạng thái link được áp
+ * qua đúng luồng của PaymentService, lỗi tra cứu chỉ được đếm rồi bỏ qua.
+ * Thanh toán seed không có trong bảng trả lời của gateway giả nên luôn là PENDING.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class PaymentReconciliationServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("120000");
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final StubGateway gateway = new StubGateway();
+    private ThreadPoolTaskExecutor executor;
+    private PaymentReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.initialize();
+        reconciliationService = new PaymentReconciliationService(paymentRepository, paymentService, gateway,
+                executor, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reconciliationService, "staleAfterMinutes", 20L);
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 100);
+        ReflectionTestUtils.setField(reconciliationService, "maxPerRun", 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void appliesEachLinkStatusThroughPaymentService() {
+        int paid = stalePayOSPayment(null);
+        int cancelled = stalePayOSPayment(null);
+        int expired = stalePayOSPayment(null);
+        int pending = stalePayOSPayment(null);
+        gateway.answer(orderOf(paid), link(orderOf(paid), PaymentLinkStatus.PAID, "FT-RECON-1"));
+        gateway.answer(orderOf(cancelled), link(orderOf(cancelled), PaymentLinkStatus.CANCELLED, null));
+        gateway.answer(orderOf(expired), link(orderOf(expired), PaymentLinkStatus.EXPIRED, null));
+        gateway.answer(orderOf(pending), link(orderOf(pending), PaymentLinkStatus.PENDING, null));
+
+        ReconciliationResultDTO result = reconciliationService.reconcile();
+
+        assertThat(gateway.asked).contains((long) orderOf(paid), (long) orderOf(cancelled),
+                (long) orderOf(expired), (long) orderOf(pending));
+        assertThat(result.getConfirmed()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getStillPending()).isGreaterThanOrEqualTo(1);
+        assertThat(result.getErrors()).isZero();
+
+        assertThat(payment(paid)).containsEntry("STATUS", "Successful").containsEntry("TRANSACTION_ID", "FT-RECON-1");
+        assertThat(orderStatus(orderOf(paid))).isEqualTo("Completed");
+        assertThat(payment(cancelled)).containsEntry("STATUS", "Failed");
+        assertThat(payment(expired)).containsEntry("STATUS", "Failed");
+        assertThat(payment(pending)).containsEntry("STATUS", "Pending");
+    }
+
+    @Test
+    void gatewayErrorIsCountedAndSkipped() {
+        int broken = stalePayOSPayment(null);
+        int paid = stalePayOSPayment(null);
+        gateway.fail(orderOf(broken));
+        gateway.answer(orderOf(paid), link(orderOf(paid), PaymentLinkStatus.PAID, "FT-RECON-2"));
+
+        ReconciliationResultDTO result = reconciliationService.reconcile();
+
+        assertThat(result.getErrors()).isEqualTo(1);
+        assertThat(result.getAborted()).isFalse();
+        assertThat(result.getConfirmed()).isEqualTo(1);
+        assertThat(payment(broken)).containsEntry("STATUS", "Pending");
+        // Lỗi một thanh toán không chặn các thanh toán còn lại trong lô
+        assertThat(payment(paid)).containsEntry("STATUS", "Successful");
+    }
+
+    @Test
+    void alreadySuccessfulPaymentIsLeftUnchanged() {
+        int orderId = insert("INSERT INTO orders (total_amount, status, order_type, created_at) "
+                + "VALUES (?, 'Completed', 'Takeaway', ?)", AMOUNT, Timestamp.valueOf(staleTime()));
+        int paymentId = insert("INSERT INTO payments (order_id, amount, payment_method, status, transaction_id, payment_time) "
+                + "VALUES (?, ?, 'PayOS', 'Successful', 'FT-ORIGINAL', ?)", orderId, AMOUNT, Timestamp.valueOf(staleTime()));
+        gateway.answer(orderId, link(orderId, PaymentLinkStatus.PAID, "FT-OTHER"));
+
+        ReconciliationResultDTO result = reconciliationService.reconcile();
+
+        assertThat(result.getConfirmed()).isZero();
+        assertThat(gateway.asked).doesNotContain((long) orderId);
+        assertThat(payment(paymentId)).containsEntry("STATUS", "Successful").containsEntry("TRANSACTION_ID", "FT-ORIGINAL");
+
+        // Kể cả khi PAID đến muộn cho thanh toán đã xác nhận (webhook thắng đối soát) cũng không đổi gì
+        paymentService.applyPayOSPayment(orderId, "FT-OTHER");
+        assertThat(payment(paymentId)).containsEntry("TRANSACTION_ID", "FT-ORIGINAL");
+    }
+
+    @Test
+    void recentlyReissuedLinkIsNotStale() {
+        int reissued = stalePayOSPayment(LocalDateTime.now().minusMinutes(1));
+        gateway.answer(orderOf(reissued), link(orderOf(reissued), PaymentLinkStatus.EXPIRED, null));
+
+        ReconciliationResultDTO result = reconciliationService.reconcile();
+
+        assertThat(result.getFailed()).isZero();
+        assertThat(gateway.asked).doesNotContain((long) orderOf(reissued));
+        assertThat(payment(reissued)).containsEntry("STATUS", "Pending");
+    }
+
+    /**
+     * Thanh toán PayOS Pending tạo từ 2 giờ trước; linkCreatedAt là lần dựng link gần nhất (có thể null)
+     */
+    private int stalePayOSPayment(LocalDateTime linkCreatedAt) {
+        int orderId = insert("INSERT INTO orders (total_amount, status, order_type, created_at) "
+                + "VALUES (?, 'Pending', 'Takeaway', ?)", AMOUNT, Timestamp.valueOf(staleTime()));
+        return insert("INSERT INTO payments (order_id, amount, payment_method, status, payment_time, link_created_at) "
+                        + "VALUES (?, ?, 'PayOS', 'Pending', ?, ?)", orderId, AMOUNT, Timestamp.valueOf(staleTime()),
+                linkCreatedAt == null ? null : Timestamp.valueOf(linkCreatedAt));
+    }
+
+    private LocalDateTime staleTime() {
+        return LocalDateTime.now().minusHours(2);
+    }
+
+    private int orderOf(int paymentId) {
+        return jdbcTemplate.queryForObject("SELECT order_id FROM payments WHERE id = ?", Integer.class, paymentId);
+    }
+
+    private Map<String, Object> payment(int paymentId) {
+        return jdbcTemplate.queryForMap("SELECT status, transaction_id FROM payments WHERE id = ?", paymentId);
+    }
+
+    private String orderStatus(int orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+    }
+
+    private static PaymentLink link(long orderCode, PaymentLinkStatus status, String reference) {
+        List<Transaction> transactions = List.of();
+        if (reference != null) {
+            Transaction transaction = new Transaction();
+            transaction.setReference(reference);
+            transaction.setAmount(AMOUNT.longValue());
+            transactions = List.of(transaction);
+        }
+        return new PaymentLink("link-" + orderCode, orderCode, AMOUNT.longValue(),
+                status == PaymentLinkStatus.PAID ? AMOUNT.longValue() : 0L,
+                status == PaymentLinkStatus.PAID ? 0L : AMOUNT.longValue(),
+                status, OffsetDateTime.now().toString(), transactions, null, null);
+    }
+
+    private int insert(String sql, Object... args) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, keys);
+        return keys.getKey().intValue();
+    }
+
+    /**
+     * Gateway giả: trả link đã đăng ký theo orderCode, ném lỗi cho mã bị đánh dấu,
+     * còn lại coi như link vẫn PENDING
+     */
+    private static class StubGateway implements PayOSGateway {
+
+        private final Map<Long, PaymentLink> links = new ConcurrentHashMap<>();
+        private final Set<Long> failing = ConcurrentHashMap.newKeySet();
+        private final Set<Long> asked = ConcurrentHashMap.newKeySet();
+
+        void answer(long orderCode, PaymentLink link) {
+            links.put(orderCode, link);
+        }
+
+        void fail(long orderCode) {
+            failing.add(orderCode);
+        }
+
+        @Override
+        public PaymentLink getPaymentLink(long orderCode) {
+            asked.add(orderCode);
+            if (failing.contains(orderCode)) {
+                throw new RuntimeException("PayOS timeout khi tra cứu " + orderCode);
+            }
+            return links.getOrDefault(orderCode, link(orderCode, PaymentLinkStatus.PENDING, null));
+        }
+
+        @Override
+        public CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public WebhookData verifyWebhook(Webhook webhook) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.model.OrderStatus;
+import com.nhahang.restaurant.model.PaymentMethod;
+import com.nhahang.restaurant.model.PaymentStatus;
+import com.nhahang.restaurant.model.entity.Order;
+import com.nhahang.restaurant.model.entity.Payment;
+import com.nhahang.restaurant.repository.BookingRepository;
+import com.nhahang.restaurant.repository.OrderRepository;
+import com.nhahang.restaurant.repository.PaymentRepository;
+import com.nhahang.restaurant.repository.RestaurantTableRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
+import vn.payos.model.v2.paymentRequests.CreatePaymentLinkResponse;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+import vn.payos.model.v2.paymentRequests.PaymentLinkStatus;
+import vn.payos.model.webhooks.Webhook;
+import vn.payos.model.webhooks.WebhookData;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceLinkCacheTest {
+
+    private static final int ORDER_ID = 42;
+    private static final int PAYMENT_ID = 7;
+    private static final long LINK_TTL_SECONDS = 15 * 60;
+
+    /** PayOS giả: đếm số lời gọi ra ngoài, hạn link và lỗi "đã tồn tại" chỉnh được theo từng test */
+    private static class CountingPayOSGateway implements PayOSGateway {
+        final List<CreatePaymentLinkRequest> createRequests = new ArrayList<>();
+        int getCalls;
+        long expiresInSeconds = LINK_TTL_SECONDS;
+        boolean alreadyExists;
+
+        @Override
+        public CreatePaymentLinkResponse createPaymentLink(CreatePaymentLinkRequest request) {
+            createRequests.add(request);
+            if (alreadyExists) {
+                throw new RuntimeException("Đơn thanh toán đã tồn tại (231)");
+            }
+            String linkId = "link-" + createRequests.size();
+            return new CreatePaymentLinkResponse("970422", "0000123456789", "NHA HANG TEST", request.getAmount(),
+                    request.getDescription(), request.getOrderCode(), "VND", linkId, PaymentLinkStatus.PENDING,
+                    System.currentTimeMillis() / 1000 + expiresInSeconds, "https://pay.payos.vn/web/" + linkId, "qr");
+        }
+
+        @Override
+        public PaymentLink getPaymentLink(long orderCode) {
+            getCalls++;
+            return new PaymentLink("existing-link", orderCode, 150_000L, 0L, 150_000L, PaymentLinkStatus.PENDING,
+                    OffsetDateTime.now().toString(), List.of(), null, null);
+        }
+
+        @Override
+        public WebhookData verifyWebhook(Webhook webhook) {
+            throw new UnsupportedOperationException();
+        }
+
+        int remoteCalls() {
+            return createRequests.size() + getCalls;
+        }
+    }
+
+    private final CountingPayOSGateway payOS = new CountingPayOSGateway();
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private Order order;
+    // Bảng payments giả chỉ có tối đa một dòng cho ORDER_ID
+    private Payment storedPayment;
+    private PaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order();
+        order.setId(ORDER_ID);
+        order.setTotalAmount(new BigDecimal("150000"));
+        order.setStatus(OrderStatus.Pending);
+        order.setOrderItems(List.of());
+        when(orderRepository.findById(ORDER_ID)).thenAnswer(inv -> Optional.of(order));
+
+        when(paymentRepository.findByOrderId(ORDER_ID)).thenAnswer(inv -> Optional.ofNullable(storedPayment));
+        when(paymentRepository.findById(PAYMENT_ID)).thenAnswer(inv -> Optional.ofNullable(storedPayment));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(inv -> {
+            Payment payment = inv.getArgument(0);
+            payment.setId(PAYMENT_ID);
+            storedPayment = payment;
+            return payment;
+        });
+        doAnswer(inv -> storedPayment = null).when(paymentRepository).delete(any(Payment.class));
+
+        paymentService = new PaymentService(paymentRepository, orderRepository, mock(BookingRepository.class),
+                mock(RestaurantTableRepository.class), payOS, mock(RevenueSeriesService.class),
+                mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(paymentService, "returnUrl", "http://localhost/return");
+        ReflectionTestUtils.setField(paymentService, "cancelUrl", "http://localhost/cancel");
+    }
+
+    @Test
+    void repeatClickIsServedFromCache() throws Exception {
+        CreatePaymentLinkResponse first = paymentService.createPayOSLink(ORDER_ID);
+        int callsAfterFirst = payOS.remoteCalls();
+
+        CreatePaymentLinkResponse second = paymentService.createPayOSLink(ORDER_ID);
+
+        assertThat(callsAfterFirst).isEqualTo(1);
+        assertThat(payOS.remoteCalls()).isEqualTo(callsAfterFirst);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void amountChangeInvalidatesCachedLink() throws Exception {
+        paymentService.createPayOSLink(ORDER_ID);
+        order.setTotalAmount(new BigDecimal("180000"));
+
+        CreatePaymentLinkResponse response = paymentService.createPayOSLink(ORDER_ID);
+
+        assertThat(payOS.createRequests).hasSize(2);
+        assertThat(payOS.createRequests.get(1).getAmount()).isEqualTo(180_000L);
+        assertThat(response.getAmount()).isEqualTo(180_000L);
+        assertThat(storedPayment.getAmount()).isEqualByComparingTo("180000");
+    }
+
+    @Test
+    void confirmInvalidatesCachedLink() throws Exception {
+        paymentService.createPayOSLink(ORDER_ID);
+        paymentService.confirmPayment(PAYMENT_ID);
+
+        // Không còn link trong cache nên đi xuống kiểm tra Payment và bị chặn vì đã thanh toán
+        assertThatThrownBy(() -> paymentService.createPayOSLink(ORDER_ID))
+                .hasMessageContaining("đã được thanh toán thành công");
+        assertThat(payOS.remoteCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void failInvalidatesCachedLink() throws Exception {
+        paymentService.createPayOSLink(ORDER_ID);
+        paymentService.failPayment(PAYMENT_ID);
+
+        paymentService.createPayOSLink(ORDER_ID);
+
+        assertThat(payOS.createRequests).hasSize(2);
+        assertThat(storedPayment.getStatus()).isEqualTo(PaymentStatus.Pending);
+    }
+
+    @Test
+    void deleteInvalidatesCachedLink() throws Exception {
+        paymentService.createPayOSLink(ORDER_ID);
+        paymentService.deletePayment(PAYMENT_ID);
+
+        paymentService.createPayOSLink(ORDER_ID);
+
+        assertThat(payOS.createRequests).hasSize(2);
+        assertThat(storedPayment.getPaymentMethod()).isEqualTo(PaymentMethod.PayOS);
+    }
+
+    @Test
+    void linkIsDroppedFromCacheExpiryMarginBeforeExpiredAt() throws Exception {
+        // Hạn thật còn 20s, trong khoảng đệm 30s: không được trả lại cho lần bấm sau
+        payOS.expiresInSeconds = 20;
+        paymentService.createPayOSLink(ORDER_ID);
+        paymentService.createPayOSLink(ORDER_ID);
+        assertThat(payOS.createRequests).hasSize(2);
+
+        // Hạn thật còn 40s, ngoài khoảng đệm: vẫn dùng lại
+        payOS.expiresInSeconds = 40;
+        paymentService.createPayOSLink(ORDER_ID);
+        paymentService.createPayOSLink(ORDER_ID);
+        assertThat(payOS.createRequests).hasSize(3);
+    }
+
+    @Test
+    void alreadyExistsRecoversExistingLinkAndCachesIt() throws Exception {
+        payOS.alreadyExists = true;
+
+        CreatePaymentLinkResponse recovered = paymentService.createPayOSLink(ORDER_ID);
+        CreatePaymentLinkResponse repeat = paymentService.createPayOSLink(ORDER_ID);
+
+        assertThat(recovered.getPaymentLinkId()).isEqualTo("existing-link");
+        assertThat(recovered.getCheckoutUrl()).isEqualTo("https://pay.payos.vn/web/existing-link");
+        assertThat(repeat).isSameAs(recovered);
+        assertThat(payOS.createRequests).hasSize(1);
+        assertThat(payOS.getCalls).isEqualTo(1);
+    }
+
+    @Test
+    void alreadyExistsWithDifferentAmountIsNotCached() throws Exception {
+        payOS.alreadyExists = true;
+        order.setTotalAmount(new BigDecimal("99000"));
+
+        paymentService.createPayOSLink(ORDER_ID);
+        paymentService.createPayOSLink(ORDER_ID);
+
+        assertThat(payOS.getCalls).isEqualTo(2);
+    }
+}
@@ -0,0 +1,122 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.dto.PaymentMethodDistributionDTO;
+import com.nhahang.restaurant.dto.RevenueReportDTO;
+import com.nhahang.restaurant.model.PaymentMethod;
+import com.nhahang.restaurant.model.PaymentStatus;
+import com.nhahang.restaurant.model.entity.Payment;
+import com.nhahang.restaurant.repository.BookingRepository;
+import com.nhahang.restaurant.repository.OrderRepository;
+import com.nhahang.restaurant.repository.PaymentRepository;
+import com.nhahang.restaurant.repository.RestaurantTableRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache tổng doanh thu theo khoảng thời gian: khóa là đúng cặp (from, to), báo cáo doanh thu
+ * và phân bố phương thức dùng chung một lần GROUP BY, xác nhận thanh toán thì xóa cache.
+ */
+class PaymentServiceRevenueCacheTest {
+
+    private static final int PAYMENT_ID = 7;
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 10, 31, 23, 59);
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final List<Object[]> totals = new ArrayList<>();
+    private Payment payment;
+    private PaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        totals.add(new Object[]{PaymentMethod.Cash, 2L, new BigDecimal("300000")});
+        totals.add(new Object[]{PaymentMethod.PayOS, 1L, new BigDecimal("150000")});
+        // Trả bản sao để lần đọc sau thấy được thay đổi của totals
+        when(paymentRepository.sumByPaymentMethod(eq(PaymentStatus.Successful), any(), any()))
+                .thenAnswer(inv -> new ArrayList<>(totals));
+
+        payment = new Payment();
+        payment.setId(PAYMENT_ID);
+        payment.setAmount(new BigDecimal("200000"));
+        payment.setPaymentMethod(PaymentMethod.Cash);
+        payment.setStatus(PaymentStatus.Pending);
+        when(paymentRepository.findById(PAYMENT_ID)).thenAnswer(inv -> Optional.of(payment));
+
+        paymentService = new PaymentService(paymentRepository, mock(OrderRepository.class),
+                mock(BookingRepository.class), mock(RestaurantTableRepository.class), mock(PayOSGateway.class),
+                mock(RevenueSeriesService.class), mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void reportAndDistributionShareOneQueryPerRange() {
+        RevenueReportDTO report = paymentService.getRevenueReport(FROM, TO);
+        List<PaymentMethodDistributionDTO> distribution = paymentService.getPaymentMethodDistribution(FROM, TO);
+        // Khóa so theo giá trị, không theo instance LocalDateTime
+        paymentService.getRevenueReport(LocalDateTime.of(2026, 10, 1, 0, 0), LocalDateTime.of(2026, 10, 31, 23, 59));
+
+        verify(paymentRepository, times(1)).sumByPaymentMethod(PaymentStatus.Successful, FROM, TO);
+        assertThat(report.getTotalRevenue()).isEqualByComparingTo("450000");
+        assertThat(report.getTotalTransactions()).isEqualTo(3);
+        assertThat(report.getCashRevenue()).isEqualByComparingTo("300000");
+        assertThat(report.getQrCodeTransactions()).isEqualTo(1);
+        assertThat(distribution).extracting(PaymentMethodDistributionDTO::getPaymentMethod)
+                .containsExactly("Cash", "PayOS");
+    }
+
+    @Test
+    void differentRangeIsADifferentKey() {
+        paymentService.getRevenueReport(FROM, TO);
+        paymentService.getRevenueReport(FROM, TO.plusSeconds(1));
+        paymentService.getRevenueReport(FROM.minusDays(1), TO);
+
+        verify(paymentRepository, times(1)).sumByPaymentMethod(PaymentStatus.Successful, FROM, TO);
+        verify(paymentRepository, times(1)).sumByPaymentMethod(PaymentStatus.Successful, FROM, TO.plusSeconds(1));
+        verify(paymentRepository, times(1)).sumByPaymentMethod(PaymentStatus.Successful, FROM.minusDays(1), TO);
+    }
+
+    @Test
+    void confirmingPaymentClearsEveryCachedRange() {
+        paymentService.getRevenueReport(FROM, TO);
+        paymentService.getRevenueReport(FROM.minusDays(1), TO);
+        when(paymentRepository.markSuccessfulIfNot(PAYMENT_ID, null)).thenReturn(1);
+        totals.set(0, new Object[]{PaymentMethod.Cash, 3L, new BigDecimal("500000")});
+
+        paymentService.confirmPayment(PAYMENT_ID);
+
+        assertThat(paymentService.getRevenueReport(FROM, TO).getTotalRevenue()).isEqualByComparingTo("650000");
+        paymentService.getRevenueReport(FROM.minusDays(1), TO);
+        verify(paymentRepository, times(2)).sumByPaymentMethod(PaymentStatus.Successful, FROM, TO);
+        verify(paymentRepository, times(2)).sumByPaymentMethod(PaymentStatus.Successful, FROM.minusDays(1), TO);
+    }
+
+    @Test
+    void confirmationLostToAnotherWriterKeepsCache() {
+        paymentService.getRevenueReport(FROM, TO);
+        // Luồng khác đã đổi dòng trước: không cộng bucket, không xóa cache lần nữa
+        when(paymentRepository.markSuccessfulIfNot(PAYMENT_ID, null)).thenReturn(0);
+
+        paymentService.confirmPayment(PAYMENT_ID);
+        paymentService.getRevenueReport(FROM, TO);
+
+        verify(paymentRepository, times(1)).sumByPaymentMethod(PaymentStatus.Successful, FROM, TO);
+    }
+}
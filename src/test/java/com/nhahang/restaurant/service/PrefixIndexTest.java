@@ -0,0 +1,84 @@
+package com.nhahang.restaurant.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+    private final PrefixIndex index = new PrefixIndex();
+
+    @Test
+    void searchReturnsKeysWithPrefixInOrderUpToLimit() {
+        index.load(Map.of("0901000001", 1, "0901000002", 2, "0902000003", 3, "0911000004", 4));
+        index.put("0901000000", 5);
+
+        assertThat(index.search("0901", 10)).extracting(PrefixIndex.Match::key)
+                .containsExactly("0901000000", "0901000001", "0901000002");
+        assertThat(index.search("090", 2)).extracting(PrefixIndex.Match::id).containsExactly(5, 1);
+        assertThat(index.search("0999", 10)).isEmpty();
+    }
+
+    @Test
+    void putOverwritesExistingKeyWithoutGrowing() {
+        index.load(Map.of("an@nhahang.vn", 1, "binh@nhahang.vn", 2));
+
+        index.put("an@nhahang.vn", 7);
+        index.put("chi@nhahang.vn", 3);
+        index.put("chi@nhahang.vn", 4);
+
+        assertThat(index.search("an", 10)).containsExactly(new PrefixIndex.Match("an@nhahang.vn", 7));
+        assertThat(index.search("chi", 10)).containsExactly(new PrefixIndex.Match("chi@nhahang.vn", 4));
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removeHidesKeyAndCountsOnlyLiveKeys() {
+        index.load(Map.of("an@nhahang.vn", 1, "binh@nhahang.vn", 2));
+        index.put("chi@nhahang.vn", 3);
+
+        index.remove("an@nhahang.vn");   // khóa trong mảng chính
+        index.remove("chi@nhahang.vn");  // khóa chỉ có trong phần thay đổi
+        index.remove("an@nhahang.vn");   // xóa lần hai
+        index.remove("khong@nhahang.vn"); // khóa không tồn tại
+
+        assertThat(index.search("", 10)).containsExactly(new PrefixIndex.Match("binh@nhahang.vn", 2));
+        assertThat(index.size()).isEqualTo(1);
+
+        index.put("an@nhahang.vn", 9);
+        assertThat(index.search("an", 10)).containsExactly(new PrefixIndex.Match("an@nhahang.vn", 9));
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void compactionKeepsContentAndSize() {
+        Map<String, Integer> initial = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            initial.put(String.format("09%08d", i), i);
+        }
+        index.load(initial);
+
+        // Đủ thay đổi để vượt ngưỡng gộp: ghi đè, xóa và thêm mới
+        for (int i = 0; i < 500; i++) {
+            index.put(String.format("09%08d", i), 10_000 + i);
+        }
+        for (int i = 500; i < 1000; i++) {
+            index.remove(String.format("09%08d", i));
+        }
+        for (int i = 1000; i < 5000; i++) {
+            index.put(String.format("09%08d", i), i);
+        }
+
+        assertThat(index.size()).isEqualTo(4500);
+        List<PrefixIndex.Match> all = index.search("09", Integer.MAX_VALUE);
+        assertThat(all).hasSize(4500);
+        assertThat(all).extracting(PrefixIndex.Match::key).isSorted();
+        assertThat(index.search("0900000001", 1)).containsExactly(new PrefixIndex.Match("0900000001", 10_001));
+        assertThat(index.search("0900000700", 1)).isEmpty();
+        assertThat(index.search("0900004999", 1)).containsExactly(new PrefixIndex.Match("0900004999", 4999));
+    }
+}
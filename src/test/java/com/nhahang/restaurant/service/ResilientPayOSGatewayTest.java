@@ -0,0 +1,295 @@
+package com.nhahang.restaurant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import vn.payos.PayOS;
+import vn.payos.core.ClientOptions;
+import vn.payos.crypto.CryptoProviderImpl;
+import vn.payos.exception.APIException;
+import vn.payos.model.v2.paymentRequests.PaymentLink;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientPayOSGatewayTest {
+
+    private static final String CHECKSUM_KEY = "test-checksum-key";
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MS = 300;
+
+    private enum Reply { OK, SERVER_ERROR, ORDER_EXISTS }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+    // Hành vi của PayOS giả cho các request tiếp theo
+    private volatile Reply reply = Reply.OK;
+    private volatile long delayMs;
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+
+    private HttpServer server;
+    private ThreadPoolTaskExecutor executor;
+    private ResilientPayOSGateway gateway;
+
+    @BeforeEach
+    void startPayOS() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v2/payment-requests", this::handle);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        // Bulkhead 1 luồng + hàng đợi 1 chỗ: request thứ ba đồng thời bị từ chối
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        gateway = newGateway(2_000);
+    }
+
+    @AfterEach
+    void stopPayOS() {
+        hold.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+        executor.shutdown();
+    }
+
+    @Test
+    void successfulCallIsTimedAndKeepsCircuitClosed() {
+        PaymentLink link = gateway.getPaymentLink(42);
+
+        assertThat(link.getId()).isEqualTo("link-42");
+        assertThat(link.getAmount()).isEqualTo(150_000L);
+        assertThat(latencyCount("get_link", "success")).isEqualTo(1);
+        assertThat(circuitState()).isZero();
+    }
+
+    @Test
+    void slowCallIsCutAtCallTimeout() {
+        gateway = newGateway(300);
+        delayMs = 3_000;
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> gateway.getPaymentLink(42))
+                .isInstanceOf(PayOSUnavailableException.class)
+                .hasMessageContaining("300ms");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMs).isBetween(300L, 2_000L);
+        assertThat(latencyCount("get_link", "timeout")).isEqualTo(1);
+    }
+
+    @Test
+    void bulkheadRejectsWhenPoolAndQueueAreFull() throws Exception {
+        gateway = newGateway(10_000);
+        hold = new CountDownLatch(1);
+        CompletableFuture<PaymentLink> running = CompletableFuture.supplyAsync(() -> gateway.getPaymentLink(1));
+        awaitTrue(() -> hits.get() == 1);
+        CompletableFuture<PaymentLink> queued = CompletableFuture.supplyAsync(() -> gateway.getPaymentLink(2));
+        awaitTrue(() -> gauge("payos.client.queued") == 1);
+
+        assertThat(gauge("payos.client.active")).isEqualTo(1);
+        assertThatThrownBy(() -> gateway.getPaymentLink(3))
+                .isInstanceOf(PayOSUnavailableException.class)
+                .hasMessageContaining("quá nhiều");
+        assertThat(rejected("bulkhead")).isEqualTo(1);
+
+        hold.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS).getId()).isEqualTo("link-1");
+        assertThat(queued.get(5, TimeUnit.SECONDS).getId()).isEqualTo("link-2");
+        // Lời gọi bị từ chối không tới PayOS và không làm hỏng circuit
+        assertThat(hits).hasValue(2);
+        assertThat(circuitState()).isZero();
+    }
+
+    @Test
+    void circuitOpensAfterThresholdAndFailsFast() {
+        reply = Reply.SERVER_ERROR;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThat(circuitState()).isZero();
+            assertThatThrownBy(() -> gateway.getPaymentLink(42)).isInstanceOf(APIException.class);
+        }
+
+        assertThat(circuitState()).isEqualTo(1);
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> gateway.getPaymentLink(42))
+                .isInstanceOf(PayOSUnavailableException.class)
+                .hasMessageContaining("tạm thời không khả dụng");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(100);
+        assertThat(hits).hasValue(FAILURE_THRESHOLD);
+        assertThat(rejected("circuit_open")).isEqualTo(1);
+        assertThat(latencyCount("get_link", "error")).isEqualTo(FAILURE_THRESHOLD);
+    }
+
+    @Test
+    void halfOpenLetsExactlyOneProbeThroughThenCloses() throws Exception {
+        openCircuit();
+        Thread.sleep(OPEN_MS + 50);
+
+        reply = Reply.OK;
+        hold = new CountDownLatch(1);
+        CompletableFuture<PaymentLink> probe = CompletableFuture.supplyAsync(() -> gateway.getPaymentLink(7));
+        awaitTrue(() -> hits.get() == FAILURE_THRESHOLD + 1);
+
+        assertThat(circuitState()).isEqualTo(2);
+        assertThatThrownBy(() -> gateway.getPaymentLink(8)).isInstanceOf(PayOSUnavailableException.class);
+        assertThat(rejected("circuit_open")).isEqualTo(1);
+
+        hold.countDown();
+        assertThat(probe.get(5, TimeUnit.SECONDS).getId()).isEqualTo("link-7");
+        assertThat(circuitState()).isZero();
+        assertThat(gateway.getPaymentLink(9).getId()).isEqualTo("link-9");
+    }
+
+    @Test
+    void failedProbeReopensCircuit() throws Exception {
+        openCircuit();
+        Thread.sleep(OPEN_MS + 50);
+
+        assertThatThrownBy(() -> gateway.getPaymentLink(42)).isInstanceOf(APIException.class);
+
+        assertThat(circuitState()).isEqualTo(1);
+        assertThat(hits).hasValue(FAILURE_THRESHOLD + 1);
+        assertThatThrownBy(() -> gateway.getPaymentLink(42)).isInstanceOf(PayOSUnavailableException.class);
+    }
+
+    @Test
+    void businessErrorsDoNotOpenCircuit() {
+        reply = Reply.ORDER_EXISTS;
+        for (int i = 0; i < FAILURE_THRESHOLD * 2; i++) {
+            assertThatThrownBy(() -> gateway.getPaymentLink(42))
+                    .isInstanceOf(APIException.class)
+                    .hasMessageContaining("231");
+        }
+
+        assertThat(circuitState()).isZero();
+        assertThat(latencyCount("get_link", "client_error")).isEqualTo(FAILURE_THRESHOLD * 2);
+    }
+
+    private ResilientPayOSGateway newGateway(long callTimeoutMs) {
+        meterRegistry.clear();
+        PayOS payOS = new PayOS(ClientOptions.builder()
+                .clientId("client-id")
+                .apiKey("api-key")
+                .checksumKey(CHECKSUM_KEY)
+                .baseURL("http://127.0.0.1:" + server.getAddress().getPort())
+                .timeoutMs(10_000)
+                .maxRetries(0)
+                .build());
+        return new ResilientPayOSGateway(new PayOSClientGateway(payOS), executor, meterRegistry,
+                callTimeoutMs, FAILURE_THRESHOLD, OPEN_MS);
+    }
+
+    private void openCircuit() {
+        reply = Reply.SERVER_ERROR;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> gateway.getPaymentLink(42)).isInstanceOf(APIException.class);
+        }
+        assertThat(circuitState()).isEqualTo(1);
+    }
+
+    /** GET /v2/payment-requests/{orderCode}, trả về dạng PayOS thật: code/desc/data + chữ ký của data */
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        try {
+            hold.await();
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        int orderCode = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+        Map<String, Object> body = new LinkedHashMap<>();
+        int status = 200;
+        switch (reply) {
+            case OK -> {
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("id", "link-" + orderCode);
+                data.put("orderCode", orderCode);
+                data.put("amount", 150_000);
+                data.put("amountPaid", 0);
+                data.put("amountRemaining", 150_000);
+                data.put("status", "PENDING");
+                data.put("createdAt", "2026-10-19T10:00:00+07:00");
+                body.put("code", "00");
+                body.put("desc", "success");
+                body.put("data", data);
+                body.put("signature", new CryptoProviderImpl().createSignatureFromObj(data, CHECKSUM_KEY));
+            }
+            case SERVER_ERROR -> {
+                status = 500;
+                body.put("code", "500");
+                body.put("desc", "Internal server error");
+            }
+            case ORDER_EXISTS -> {
+                status = 400;
+                body.put("code", "231");
+                body.put("desc", "Đơn thanh toán đã tồn tại");
+            }
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (IOException e) {
+            // Client đã bỏ request (timeout)
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private double circuitState() {
+        return gauge("payos.client.circuit.state");
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("payos.client.rejected").tag("reason", reason).counter().count();
+    }
+
+    private long latencyCount(String operation, String outcome) {
+        return meterRegistry.get("payos.client.latency")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer().count();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Hết thời gian chờ điều kiện");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.nhahang.restaurant.service;
+
+import com.nhahang.restaurant.model.RoleName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bảng quyền trong bộ nhớ khớp role_permissions trên H2 (profile loadtest),
+ * và thay đổi quyền có hiệu lực ngay sau khi transaction sửa quyền commit.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class RoleAuthorityTableTest {
+
+    private static final String NEW_PERMISSION = "test:reload-after-commit";
+
+    @Autowired
+    private RoleAuthorityTable roleAuthorityTable;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void removeTestPermission() {
+        jdbcTemplate.update("DELETE FROM role_permissions WHERE permission_id IN "
+                + "(SELECT id FROM permissions WHERE name = ?)", NEW_PERMISSION);
+        jdbcTemplate.update("DELETE FROM permissions WHERE name = ?", NEW_PERMISSION);
+        roleAuthorityTable.reload();
+    }
+
+    @Test
+    void tableMatchesRolePermissionsInDatabase() {
+        roleAuthorityTable.reload();
+
+        Map<RoleName, List<String>> expected = new EnumMap<>(RoleName.class);
+        jdbcTemplate.query("SELECT r.role_name, p.name FROM roles r "
+                        + "JOIN role_permissions rp ON rp.role_id = r.id "
+                        + "JOIN permissions p ON p.id = rp.permission_id ORDER BY p.name",
+                rs -> {
+                    expected.computeIfAbsent(RoleName.valueOf(rs.getString(1)), role -> new ArrayList<>())
+                            .add(rs.getString(2));
+                });
+
+        assertThat(expected).isNotEmpty();
+        for (RoleName role : RoleName.values()) {
+            assertThat(names(role)).as(role.name()).isEqualTo(expected.getOrDefault(role, List.of()));
+        }
+    }
+
+    @Test
+    void grantIsVisibleRightAfterCommit() {
+        roleAuthorityTable.reload();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            grant(RoleName.staff);
+            roleAuthorityTable.reloadAfterCommit();
+            // Chưa commit: bảng vẫn là bản cũ
+            assertThat(names(RoleName.staff)).doesNotContain(NEW_PERMISSION);
+        });
+
+        assertThat(names(RoleName.staff)).contains(NEW_PERMISSION);
+        assertThat(names(RoleName.user)).doesNotContain(NEW_PERMISSION);
+    }
+
+    @Test
+    void rolledBackGrantIsNotLoaded() {
+        roleAuthorityTable.reload();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            grant(RoleName.staff);
+            roleAuthorityTable.reloadAfterCommit();
+            status.setRollbackOnly();
+        });
+
+        assertThat(names(RoleName.staff)).doesNotContain(NEW_PERMISSION);
+    }
+
+    private void grant(RoleName role) {
+        jdbcTemplate.update("INSERT INTO permissions (name) VALUES (?)", NEW_PERMISSION);
+        jdbcTemplate.update("INSERT INTO role_permissions (role_id, permission_id) "
+                        + "SELECT r.id, p.id FROM roles r, permissions p WHERE r.role_name = ? AND p.name = ?",
+                role.name(), NEW_PERMISSION);
+    }
+
+    private List<String> names(RoleName role) {
+        return roleAuthorityTable.authoritiesOf(role).stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
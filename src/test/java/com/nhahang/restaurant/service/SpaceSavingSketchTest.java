@@ -0,0 +1,84 @@
+package com.nhahang.restaurant.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void countsExactlyWhileKeysFitCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+        sketch.offer(1, 3);
+        sketch.offer(2, 1);
+        sketch.offer(1, 2);
+        sketch.offer(3, 7);
+
+        assertThat(estimates(sketch)).containsExactlyInAnyOrderEntriesOf(Map.of(1, 5L, 2, 1L, 3, 7L));
+        assertThat(sketch.size()).isEqualTo(3);
+    }
+
+    @Test
+    void estimatesStayWithinSpaceSavingBounds() {
+        int capacity = 50;
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<Integer, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        long total = 0;
+        // Phân bố lệch (gần Zipf): vài món bán chạy, rất nhiều món lẻ tẻ
+        for (int i = 0; i < 100_000; i++) {
+            int key = (int) Math.floor(Math.pow(2000, random.nextDouble()));
+            long weight = 1 + random.nextInt(3);
+            sketch.offer(key, weight);
+            exact.merge(key, weight, Long::sum);
+            total += weight;
+        }
+
+        Map<Integer, Long> estimates = estimates(sketch);
+        long maxError = total / capacity;
+        assertThat(estimates).hasSize(capacity);
+        estimates.forEach((key, estimate) -> {
+            long actual = exact.getOrDefault(key, 0L);
+            // Không bao giờ ước lượng thấp, và lệch không quá tổng / capacity
+            assertThat(estimate).as("khóa %d", key).isBetween(actual, actual + maxError);
+        });
+        // Khóa có tần suất thật vượt tổng / capacity chắc chắn còn trong sketch
+        exact.forEach((key, actual) -> {
+            if (actual > maxError) {
+                assertThat(estimates).as("khóa nặng %d", key).containsKey(key);
+            }
+        });
+    }
+
+    @Test
+    void evictsSmallestCounterAndInheritsItsCount() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer(1, 10);
+        sketch.offer(2, 3);
+        sketch.offer(3, 1);
+
+        // Khóa 3 thay khóa 2 (nhỏ nhất) và kế thừa bộ đếm: 3 + 1
+        assertThat(estimates(sketch)).containsExactlyInAnyOrderEntriesOf(Map.of(1, 10L, 3, 4L));
+    }
+
+    @Test
+    void clearForgetsAllCounters() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer(1, 10);
+        sketch.offer(2, 3);
+        sketch.clear();
+        sketch.offer(2, 1);
+
+        assertThat(estimates(sketch)).containsExactlyEntriesOf(Map.of(2, 1L));
+    }
+
+    private static Map<Integer, Long> estimates(SpaceSavingSketch sketch) {
+        Map<Integer, Long> estimates = new HashMap<>();
+        sketch.addTo(estimates);
+        return estimates;
+    }
+}
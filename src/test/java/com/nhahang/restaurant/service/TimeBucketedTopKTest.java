@@ -0,0 +1,98 @@
+package com.nhahang.restaurant.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeBucketedTopKTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    // Đầu một bucket giờ, để phép chia bucket dễ đoán
+    private static final long T0 = 1_000 * HOUR;
+
+    private final TimeBucketedTopK topK = new TimeBucketedTopK(3 * HOUR, HOUR, 8);
+
+    @Test
+    void mergesBucketsInWindowAndSortsByCountThenKey() {
+        topK.record(1, 5, T0, T0);
+        topK.record(2, 4, T0 + HOUR, T0 + HOUR);
+        topK.record(1, 1, T0 + 2 * HOUR, T0 + 2 * HOUR);
+        topK.record(3, 6, T0 + 2 * HOUR + MINUTE, T0 + 2 * HOUR + MINUTE);
+
+        List<long[]> top = topK.top(10, T0 + 2 * HOUR + 30 * MINUTE);
+
+        assertThat(top).containsExactly(new long[]{1, 6}, new long[]{3, 6}, new long[]{2, 4});
+        assertThat(topK.top(1, T0 + 2 * HOUR + 30 * MINUTE)).containsExactly(new long[]{1, 6});
+    }
+
+    @Test
+    void oldBucketsDropOutAsWindowRollsOver() {
+        topK.record(1, 5, T0, T0);
+        topK.record(2, 1, T0 + HOUR, T0 + HOUR);
+
+        assertThat(topK.top(10, T0 + 2 * HOUR)).containsExactly(new long[]{1, 5}, new long[]{2, 1});
+        // Sang giờ thứ tư: bucket T0 ra khỏi cửa sổ dù slot chưa bị ghi đè
+        assertThat(topK.top(10, T0 + 3 * HOUR)).containsExactly(new long[]{2, 1});
+
+        // Bucket mới dùng lại slot của T0 thì số cũ bị xóa, không cộng dồn
+        topK.record(2, 2, T0 + 3 * HOUR, T0 + 3 * HOUR);
+        assertThat(topK.top(10, T0 + 3 * HOUR)).containsExactly(new long[]{2, 3});
+    }
+
+    @Test
+    void ignoresEventsOutsideWindowAndLateEventsForRecycledSlot() {
+        topK.record(1, 1, T0 + 3 * HOUR, T0 + 3 * HOUR);
+
+        topK.record(2, 9, T0 + 4 * HOUR, T0 + 3 * HOUR);     // ở tương lai
+        topK.record(3, 9, T0, T0 + 3 * HOUR);                // đã quá cửa sổ
+        topK.record(4, 9, T0 + HOUR, T0 + 3 * HOUR);         // còn trong cửa sổ
+        topK.record(5, 9, T0 + 3 * HOUR - 3 * HOUR, T0 + 3 * HOUR); // cùng slot, bucket cũ hơn
+
+        assertThat(topK.top(10, T0 + 3 * HOUR)).containsExactly(new long[]{4, 9}, new long[]{1, 1});
+    }
+
+    @Test
+    void windowEstimatesStayWithinSumOfBucketErrors() {
+        int capacity = 20;
+        TimeBucketedTopK window = new TimeBucketedTopK(3 * HOUR, HOUR, capacity);
+        Map<Integer, Long> exact = new HashMap<>();
+        long[] bucketTotals = new long[3];
+        Random random = new Random(11);
+        for (int i = 0; i < 30_000; i++) {
+            long at = T0 + (long) i * (3 * HOUR) / 30_000;
+            int key = (int) Math.floor(Math.pow(500, random.nextDouble()));
+            window.record(key, 1, at, at);
+            exact.merge(key, 1L, Long::sum);
+            bucketTotals[(int) ((at - T0) / HOUR)]++;
+        }
+        // Mỗi bucket lệch tối đa tổng bucket / capacity, cửa sổ lệch tối đa tổng các mức đó.
+        // Lệch được cả hai phía: khóa bị đẩy khỏi một bucket thì phần đếm ở bucket đó mất khi gộp
+        long maxError = 0;
+        for (long bucketTotal : bucketTotals) {
+            maxError += bucketTotal / capacity;
+        }
+
+        long now = T0 + 3 * HOUR - 1;
+        for (long[] entry : window.top(Integer.MAX_VALUE, now)) {
+            long actual = exact.getOrDefault((int) entry[0], 0L);
+            assertThat(entry[1]).as("khóa %d", entry[0]).isBetween(actual - maxError, actual + maxError);
+        }
+        // Món bán chạy nhất thật sự đứng đầu
+        int heaviest = exact.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+        assertThat(window.top(1, now).get(0)[0]).isEqualTo(heaviest);
+    }
+
+    @Test
+    void clearEmptiesWindow() {
+        topK.record(1, 5, T0, T0);
+        topK.clear();
+
+        assertThat(topK.top(10, T0)).isEmpty();
+    }
+}
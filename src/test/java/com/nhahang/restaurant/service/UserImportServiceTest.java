@@ -0,0 +1,150 @@
+package com.nhahang.restaurant.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nhahang.restaurant.dto.UserImportResultDTO;
+import com.nhahang.restaurant.repository.RoleRepository;
+import com.nhahang.restaurant.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Import khách hàng trên H2 (profile loadtest): trùng trong file và trùng với DB bị chặn trước khi ghi,
+ * lô lỗi ở DB thì rollback cả lô rồi ghi lại từng dòng để chỉ ra đúng dòng hỏng.
+ */
+@SpringBootTest(properties = {
+        "loadtest.seed.orders=50",
+        "loadtest.seed.users=20"
+})
+@ActiveProfiles("loadtest")
+class UserImportServiceTest {
+
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void duplicatesInFileAndInDatabaseAreReportedPerLine() {
+        String p = prefix();
+        String existingUid = jdbcTemplate.queryForObject("SELECT MIN(uid) FROM users", String.class);
+        String existingPhone = jdbcTemplate.queryForObject("SELECT MIN(phone_number) FROM users", String.class);
+        String csv = String.join("\n",
+                "uid,full_name,email,phone_number,role_name",
+                p + "a,Nguyễn An," + p + "a@nhahang.vn,09" + p + "1,user",          // dòng 2: hợp lệ
+                p + "a,Trùng UID," + p + "x@nhahang.vn,09" + p + "2,",              // dòng 3: trùng uid trong file
+                p + "b,Trùng email," + p + "A@NHAHANG.VN,09" + p + "3,",  // dòng 4: email khác hoa thường
+                p + "c,Trùng SĐT,,09" + p + "1,",                                   // dòng 5: trùng SĐT trong file
+                existingUid + ",Trùng DB,,09" + p + "4,",                           // dòng 6: uid đã có trong DB
+                p + "d,Trùng DB,," + existingPhone + ",",                           // dòng 7: SĐT đã có trong DB
+                p + "e,\"Trần, Bình\",," + "09" + p + "5,staff",                    // dòng 8: hợp lệ, tên có dấu phẩy
+                p + "f,,,09" + p + "6,",                                            // dòng 9: thiếu họ tên
+                p + "g,Sai vai trò,,09" + p + "7,boss");                            // dòng 10: vai trò không tồn tại
+
+        UserImportResultDTO result = userImportService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertThat(result.getStatus()).isEqualTo("COMPLETED");
+        assertThat(result.getProcessedRows()).isEqualTo(9);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(7);
+        assertThat(result.getErrors()).extracting(UserImportResultDTO.RowError::getLine)
+                .containsExactly(3, 4, 5, 6, 7, 9, 10);
+        assertThat(result.getErrors().get(0).getMessage()).contains("UID đã tồn tại");
+        assertThat(result.getErrors().get(1).getMessage()).contains("Email");
+        assertThat(result.getErrors().get(2).getMessage()).contains("Số điện thoại");
+        assertThat(result.getErrors().get(3).getMessage()).contains("UID đã tồn tại");
+        assertThat(result.getErrors().get(4).getMessage()).contains("Số điện thoại");
+        assertThat(importedNames(p)).containsExactly("Nguyễn An", "Trần, Bình");
+    }
+
+    @Test
+    void ndjsonRowsAreImported() {
+        String p = prefix();
+        String ndjson = String.join("\n",
+                "{\"uid\":\"" + p + "a\",\"fullName\":\"Lê Chi\",\"phoneNumber\":\"09" + p + "1\"}",
+                "",
+                "{\"uid\":\"" + p + "b\",\"fullName\":\"Phạm Dũng\",\"phoneNumber\":\"09" + p + "2\",\"roleName\":\"staff\"}",
+                "{không phải json}");
+
+        UserImportResultDTO result = userImportService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getLine()).isEqualTo(4));
+        assertThat(importedNames(p)).containsExactly("Lê Chi", "Phạm Dũng");
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() {
+        String p = prefix();
+        String concurrentUid = jdbcTemplate.queryForObject("SELECT MIN(uid) FROM users", String.class);
+        // Ảnh chụp khóa rỗng: như user được tạo song song sau khi nạp tập băm, chỉ DB mới bắt được trùng
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllUniqueKeys()).thenReturn(List.of());
+        UserTypeaheadService typeahead = mock(UserTypeaheadService.class);
+        UserImportService service = new UserImportService(userRepository, roleRepository, jdbcTemplate,
+                transactionTemplate, typeahead, objectMapper, 3);
+        String csv = String.join("\n",
+                "uid,fullName,phoneNumber",
+                p + "a,Khách 1,09" + p + "1",
+                concurrentUid + ",Khách 2,09" + p + "2",
+                p + "c,Khách 3,09" + p + "3",
+                p + "d,Khách 4,09" + p + "4",
+                p + "e,Khách 5,09" + p + "5");
+
+        UserImportResultDTO result = service.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        // Lô đầu (dòng 2-4) lỗi ở DB: dòng 2 và 4 vẫn được ghi, chỉ dòng 3 báo lỗi; lô sau ghi bình thường
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getUid()).isEqualTo(concurrentUid);
+            assertThat(error.getMessage()).startsWith("Lỗi khi ghi vào database");
+        });
+        assertThat(importedNames(p)).containsExactly("Khách 1", "Khách 3", "Khách 4", "Khách 5");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE uid = ?", Integer.class,
+                concurrentUid)).isEqualTo(1);
+        verify(typeahead, times(1)).rebuild();
+    }
+
+    // Tiền tố riêng cho mỗi test vì DB loadtest dùng chung giữa các lớp test
+    private static String prefix() {
+        return String.valueOf(900_000 + RUNS.incrementAndGet());
+    }
+
+    private List<String> importedNames(String prefix) {
+        return jdbcTemplate.queryForList("SELECT full_name FROM users WHERE uid LIKE ? ORDER BY uid",
+                String.class, prefix + "%");
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}